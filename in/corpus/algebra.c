@@ -0,0 +1,39 @@
+int g;
+
+int mix(int x, int y) {
+    int a;
+    int b;
+    int c;
+    a = x + 0;
+    b = 1 * y;
+    c = x - x;
+    a = a + 1 + 2 + 3;
+    b = b * 2 * 3;
+    c = c + x * y - y * x;
+    if (3 < x) {
+        c = c + 1;
+    }
+    if (x == x) {
+        c = c + 10;
+    }
+    if (5 > 7) {
+        c = 0;
+    }
+    return a + b + c;
+}
+
+int main() {
+    int r;
+    int i;
+    int s;
+    r = mix(4, 5);
+    s = 0;
+    i = 0;
+    while (i < 6) {
+        s = s + i * 1 - 0;
+        s = s + (i + 2) + 5;
+        i = i + 1;
+    }
+    g = 300 * 300;
+    return r + s;
+}
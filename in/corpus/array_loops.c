@@ -0,0 +1,15 @@
+int main() {
+    int a[10];
+    int i; int s; int k;
+    i = 0; k = 3;
+    while (i < 10) {
+        a[i] = i * 4 + k * 2;
+        i = i + 1;
+    }
+    s = 0; i = 0;
+    while (i < 10) {
+        s = s + a[i] / 2;
+        i = i + 1;
+    }
+    return s;
+}
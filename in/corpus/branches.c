@@ -0,0 +1,8 @@
+int main() {
+    int a; int b; int c;
+    a = 3; b = 4;
+    c = a * b + 2;
+    if (c > 10) { c = c + 1; } else { c = c - 1; }
+    if (a == 3) { b = 100; }
+    return c + b;
+}
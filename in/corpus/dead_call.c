@@ -0,0 +1,15 @@
+int b;
+int c() {
+    int t;
+    t = 1;
+    return t;
+}
+int main() {
+    int x; int y;
+    b = 1;
+    x = 2;
+    y = x * 8;
+    x = y / 4;
+    if (x == 4) { y = c() + x; } else { y = 0; }
+    return y;
+}
@@ -0,0 +1,34 @@
+int g;
+int sq(int x) {
+    return x * x;
+}
+int main() {
+    int a[40];
+    int i; int s; int k;
+    for (i = 0; i < 4; i++) {
+        a[i] = i * 3;
+    }
+    s = 0;
+    for (i = 0; i < 37; i = i + 1) {
+        a[i] = i + 1;
+        s = s + a[i];
+    }
+    for (k = 30; k >= 3; k = k - 3) {
+        if (k > 10) {
+            s = s + k;
+        } else {
+            s = s - 1;
+        }
+    }
+    for (i = 0; i < 5; i++) {
+        for (k = 0; k < 3; k++) {
+            s = s + sq(k) + i;
+        }
+    }
+    k = 0;
+    for (; k < 3; ) {
+        g = g + k;
+        k = k + 1;
+    }
+    return s + g;
+}
@@ -0,0 +1,27 @@
+int a[8];
+int total;
+void fill(int k) {
+    int i;
+    i = 0;
+    while (i < 8) {
+        a[i] = i * k + k * 3;
+        i = i + 1;
+    }
+}
+int sum() {
+    int i; int s;
+    i = 0; s = 0;
+    while (i < 8) {
+        s = s + a[i];
+        total = total + 1;
+        i = i + 1;
+    }
+    return s;
+}
+int main() {
+    int r;
+    fill(3);
+    r = sum();
+    a[2] = a[1] + a[7];
+    return r + sum() + a[2];
+}
@@ -0,0 +1,11 @@
+int g;
+int bump() { g = g + 1; return g; }
+int main() {
+    int a; int b; int t;
+    g = 10;
+    a = g + 1;
+    t = bump();
+    b = g + 1;
+    if (a == b) { return 1; }
+    return a * 100 + b;
+}
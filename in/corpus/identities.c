@@ -0,0 +1,12 @@
+int main() {
+    int x; int y; int z;
+    x = 5;
+    y = x + 0;
+    z = y * 1;
+    z = z + x - x;
+    y = x + 1 + 2;
+    if (x < 3) { z = 99; }
+    while (x < 3) { z = z + 1; }
+    return z + y;
+    z = 7;
+}
@@ -0,0 +1,20 @@
+int main() {
+    int a[20];
+    int i; int s; int j;
+    i = 0;
+    while (i < 10) {
+        a[i * 2] = i * 3 + 1;
+        i = i + 1;
+    }
+    s = 0; j = 0;
+    while (j < 19) {
+        s = s + a[j] * 4 + j / 2 + j / 3;
+        j = j + 1;
+    }
+    i = 20;
+    while (i > 0) {
+        s = s + i * 5;
+        i = i - 2;
+    }
+    return s;
+}
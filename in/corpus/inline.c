@@ -0,0 +1,38 @@
+int g;
+int add(int a, int b) {
+    return a + b;
+}
+int clamp(int x) {
+    if (x > 100) {
+        return 100;
+    }
+    return x;
+}
+int fact(int n) {
+    if (n <= 1) {
+        return 1;
+    }
+    return n * fact(n - 1);
+}
+int bump(int d) {
+    g = g + d;
+    return g;
+}
+int twice(int y) {
+    int z;
+    z = add(y, y);
+    return clamp(z);
+}
+int main() {
+    int i; int s; int a;
+    s = 0;
+    a = 3;
+    i = 0;
+    while (i < 20) {
+        s = add(s, twice(i));
+        bump(i);
+        i = i + 1;
+    }
+    s = s + fact(5) + g;
+    return s;
+}
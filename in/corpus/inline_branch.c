@@ -0,0 +1,13 @@
+int clamp(int x, int hi) {
+    if (x > hi) { return hi; }
+    return x;
+}
+int main() {
+    int i; int s;
+    i = 0; s = 0;
+    while (i < 20) {
+        s = s + clamp(i, 8);
+        i = i + 1;
+    }
+    return s;
+}
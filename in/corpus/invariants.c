@@ -0,0 +1,15 @@
+int g;
+int main() {
+    int a[10]; int b[10];
+    int i; int n; int m; int s; int x;
+    n = g + 3; m = g + 5; s = 0; i = 0;
+    b[2] = 7;
+    while (i < 10) {
+        a[i] = n * m + i;
+        s = s + b[2] * n;
+        if (i > 4) { x = m / 2; s = s + x; }
+        i = i + 1;
+    }
+    while (i < 3) { s = s + n * m; }
+    return s + a[9];
+}
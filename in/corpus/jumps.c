@@ -0,0 +1,29 @@
+int g;
+int main() {
+    int a; int b; int r; int d;
+    a = g + 4; b = g + 9; r = 0;
+    while (a < b) {
+        if (a > 5) {
+            if (b > 7) {
+                r = r + 1;
+            } else {
+                r = r + 2;
+            }
+        } else {
+            r = r + 10;
+        }
+        a = a + 1;
+    }
+    if (r > 3) {
+        if (r < 100) {
+            r = r * 2;
+        }
+    }
+    if (a > r) {
+        d = 1;
+    } else {
+        g = g + 1;
+    }
+    r = r + g;
+    return r;
+}
@@ -0,0 +1,16 @@
+int g;
+int main() {
+    int x; int y; int z; int w; int i;
+    x = 100; y = 7; z = 3; w = 1; i = 1;
+    while (i < 20) {
+        w = w * 3 + x / y;
+        z = z + w / i - x * i;
+        x = x + i * i / z;
+        y = y + (i * 2) + (w / 4);
+        if (y > 50) { y = y - 45; }
+        if (z < 0) { z = 0 - z; }
+        i = i + 1;
+    }
+    g = w;
+    return x + y + z;
+}
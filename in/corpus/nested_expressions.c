@@ -0,0 +1,17 @@
+int g;
+int mix(int a, int b, int c, int d) {
+    int r;
+    r = a * b + (c * d - (a * c + (b * d - (a - d))));
+    r = r + (a * 3 - b) * (c * 5 + (d - (a * b - c)));
+    return r - (a + b * (c - d * (a + 2)));
+}
+int main() {
+    int i; int s;
+    s = 0; i = 0;
+    while (i < 12) {
+        s = s + mix(i, i + 3, 7 - i, i * 2) / 8;
+        g = g + (s - (i * 5 - (s / 3 + i * (i - 4))));
+        i = i + 1;
+    }
+    return s + g;
+}
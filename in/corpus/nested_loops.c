@@ -0,0 +1,13 @@
+int main() {
+    int i; int j; int s; int n;
+    n = 6; s = 0; i = 0;
+    while (i < n) {
+        j = 0;
+        while (j < i) {
+            s = s + i * j;
+            j = j + 1;
+        }
+        i = i + 1;
+    }
+    return s;
+}
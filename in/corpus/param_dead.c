@@ -0,0 +1,21 @@
+int g;
+int f0(int p0, int p1) {
+    int t;
+    t = p0 * 3;
+    g = g + t;
+    p1 = g - p0;
+    t = p1 * 2;
+    return t + p1;
+}
+int main() {
+    int i;
+    int s;
+    s = 0;
+    i = 0;
+    g = 1;
+    while (i < 5) {
+        s = s + f0(i + 2, i * 7);
+        i = i + 1;
+    }
+    return s;
+}
@@ -0,0 +1,16 @@
+int ga[4];
+int f0(int p0, int p1, int p2) {
+    ga[0] = ((5 - 32) - p1);
+    return (p0 * p0) - 17;
+}
+int main() {
+    int i;
+    int s;
+    s = 0;
+    i = 0;
+    while (i < 4) {
+        s = s + f0(i + 3, i * 2, i);
+        i = i + 1;
+    }
+    return s;
+}
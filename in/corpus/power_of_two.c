@@ -0,0 +1,16 @@
+int g;
+int h(int x, int y) { return x * 8 + y / 4 - x / 2 + y * 2; }
+int main() {
+    int i; int s; int t; int n;
+    s = 0; t = 0; n = 0 - 37;
+    i = 0;
+    while (i < 10) {
+        s = s + i * 4;
+        t = t - i / 2;
+        n = n / 8;
+        g = g + 1;
+        i = i + 1;
+    }
+    g = g + h(s, t) + (n / 2) * 16 - n / 16;
+    return g + h(0 - 9, 0 - 13) + s - t;
+}
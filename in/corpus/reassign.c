@@ -0,0 +1,10 @@
+int main() {
+    int a; int b; int c; int d;
+    a = 7; b = 2;
+    c = a - b;
+    d = a - b;
+    a = 1;
+    d = a - b + c;
+    while (a < 100) { a = a * 2; }
+    return a + d;
+}
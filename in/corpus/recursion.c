@@ -0,0 +1,14 @@
+int fact(int n) {
+    if (n <= 1) { return 1; }
+    return n * fact(n - 1);
+}
+int sum(int n, int acc) {
+    if (n == 0) { return acc; }
+    return sum(n - 1, acc + n);
+}
+int main() {
+    int a;
+    a = fact(6);
+    a = a + sum(50, 0);
+    return a;
+}
@@ -0,0 +1,20 @@
+int g;
+int main() {
+    int a; int b; int c; int d; int e; int f; int h; int k; int i; int s;
+    a = 3; b = 5; c = 7; d = 11; e = 13; f = 17; h = 19; k = 23; s = 0;
+    i = 0;
+    while (i < 9) {
+        a = a + b * i;
+        b = b + c / 2;
+        c = c + (d * 2);
+        d = d - (e / 2);
+        e = e + f * h;
+        f = f + h - k;
+        h = h + k / 3;
+        k = k + a - b + c - d;
+        s = s + a + b + c + d + e + f + h + k;
+        i = i + 1;
+    }
+    g = a * b - c * d + e / 7 - f * h + (k * 4);
+    return s - g;
+}
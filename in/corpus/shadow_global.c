@@ -0,0 +1,20 @@
+int g;
+int n;
+int f(int n) {
+    g = g + n;
+    return n * 2;
+}
+int main() {
+    int s;
+    g = 100;
+    n = 7;
+    s = 0;
+    while (s < 3) {
+        int g;
+        g = s * 10;
+        n = n + g;
+        s = s + 1;
+    }
+    s = s + f(5) + n;
+    return g * 10 + s;
+}
@@ -0,0 +1,14 @@
+int g;
+int add(int x, int y) { return x + y; }
+int sq(int x) { return x * x; }
+int main() {
+    int i; int s;
+    i = 0; s = 0;
+    while (i < 10) {
+        s = s + sq(i);
+        s = add(s, 1);
+        i = i + 1;
+    }
+    g = s;
+    return s;
+}
@@ -0,0 +1,29 @@
+int g;
+int gcd(int a, int b) {
+    if (b == 0) {
+        return a;
+    }
+    return gcd(b, a - a / b * b);
+}
+int sumto(int n, int acc) {
+    if (n == 0) {
+        return acc;
+    }
+    return sumto(n - 1, acc + n);
+}
+int big(int n, int k) {
+    int r;
+    r = n * k + n / 3 - k * 7 + n * n - k / 2 + n * 5 + k * 11 - n / 7 + k + n * 3 - k * 13 + n - 1;
+    g = g + r;
+    return r;
+}
+int front(int n, int k) {
+    g = g + 1;
+    return big(n + 1, k);
+}
+int main() {
+    int s;
+    s = gcd(1071, 462) + sumto(150, 0);
+    s = s + front(30, 2) * 10;
+    return s;
+}
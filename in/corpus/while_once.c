@@ -0,0 +1,17 @@
+int c(){
+int t;
+t = 1;
+
+return t;
+}
+
+int main()
+{
+    int b;
+    b = 1;
+    while (b == 1)
+    {
+        b = b - 1;
+    }
+    return 0;
+}
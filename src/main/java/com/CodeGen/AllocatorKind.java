@@ -0,0 +1,35 @@
+package com.CodeGen;
+
+/**
+ * 可选的寄存器分配器
+ * NONE 不分配寄存器；LINEAR_SCAN 为默认的线性扫描；GRAPH_COLORING 为图着色，编译较慢，循环多的程序效果更好
+ */
+public enum AllocatorKind {
+    NONE, LINEAR_SCAN, GRAPH_COLORING;
+
+    /**
+     * 解析分配器名称（不区分大小写），空串或null返回null，表示按优化级别选择
+     */
+    public static AllocatorKind parse(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        return switch (text.trim().toLowerCase()) {
+            case "none" -> NONE;
+            case "linear", "linear-scan", "linearscan" -> LINEAR_SCAN;
+            case "graph", "graph-coloring", "coloring" -> GRAPH_COLORING;
+            default -> throw new RuntimeException("未知的寄存器分配器: " + text);
+        };
+    }
+
+    /**
+     * 创建分配器，NONE 返回null
+     */
+    public RegisterAllocator create() {
+        return switch (this) {
+            case NONE -> null;
+            case LINEAR_SCAN -> new LinearScanAllocator();
+            case GRAPH_COLORING -> new GraphColoringAllocator();
+        };
+    }
+}
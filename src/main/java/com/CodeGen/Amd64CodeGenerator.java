@@ -0,0 +1,406 @@
+package com.CodeGen;
+
+import com.Optimizer.IrFunction;
+import com.Optimizer.IrProgram;
+import com.Optimizer.Quads;
+import com.Parser.Quadruple.OperandKind;
+import com.Parser.Quadruple.Quadruple;
+import com.Parser.Quadruple.SymbolTable;
+import lombok.Getter;
+
+import java.util.*;
+
+import static java.lang.String.format;
+
+/**
+ * x86-64 目标代码生成器
+ * 从同一份四元式生成 GNU as（AT&T 语法）的 Linux 程序，按 System V 调用约定：
+ * 前6个实参依次放在 %rdi、%rsi、%rdx、%rcx、%r8、%r9，其余从右到左压栈，调用时 %rsp 按16字节对齐，返回值在 %rax。
+ * 参数、局部变量和临时变量各占一个8字节的 %rbp 相对槽位，全局变量和数组（元素8字节）在 .bss 中；
+ * 运算在 %rax 中进行，%rcx 放除数和移位次数，数组下标装入 %r10（同一四元式的第二个下标用 %r11）。
+ * 语言的 int 是16位有符号数（与优化器的常量折叠一致），运算结果按16位截断后符号扩展到64位。
+ * 入口 _start 调用 main，以其返回值作为退出码：as prog.s -o prog.o && ld prog.o -o prog
+ */
+public class Amd64CodeGenerator implements CodeGenerator {
+    // System V 的整数参数寄存器
+    private static final List<String> ARG_REGISTERS = List.of("%rdi", "%rsi", "%rdx", "%rcx", "%r8", "%r9");
+    // 数组下标寄存器，调用之间不保存值，也不用于传参
+    private static final List<String> INDEX_REGISTERS = List.of("%r10", "%r11");
+    // 第一个栈上实参相对 %rbp 的偏移：其下依次是保存的 %rbp 和返回地址
+    private static final int ARG_OFFSET = 16;
+    private static final int WORD = 8;
+
+    private final StringBuilder assemblyCode = new StringBuilder();
+    // 数组名 -> 元素个数
+    private final Map<String, Integer> arrays = new LinkedHashMap<>();
+    // 代码中引用到的全局变量，按首次出现的顺序
+    private final Set<String> globals = new LinkedHashSet<>();
+    private final Set<String> functionNames = new HashSet<>();
+    // 函数名 -> 参数、局部变量和临时变量的栈帧槽位
+    private final Map<String, Map<String, String>> frames = new HashMap<>();
+    // 函数名 -> 寄存器传递的参数
+    private final Map<String, List<String>> registerParams = new HashMap<>();
+    // 函数名 -> 局部变量区的字节数（16的倍数）
+    private final Map<String, Integer> frameSizes = new HashMap<>();
+    // 当前函数的栈帧槽位
+    private Map<String, String> current = Map.of();
+    // 当前处理的函数名
+    private String currentFunction = "main";
+    // 当前调用已经出现、尚未传递的实参
+    private final List<String> pendingArguments = new ArrayList<>();
+    // 当前四元式已经占用的下标寄存器个数
+    private int indexInUse = 0;
+    // 控制流标签计数器
+    private int controlLabels = 0;
+    @Getter
+    private final SymbolTable symbolTable;
+
+    public Amd64CodeGenerator() {
+        this(new SymbolTable());
+    }
+
+    /**
+     * @param symbolTable 与调用方共用的符号表，已由同一四元式列表构建过时不再重复构建
+     */
+    public Amd64CodeGenerator(SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
+
+    @Override
+    public void generateAssembly(List<Quadruple> quadruples) {
+        symbolTable.buildFromQuadruples(quadruples);
+
+        for (Quadruple q : quadruples) {
+            if ("FuncStart".equals(q.op) && q.result != null) {
+                functionNames.add(q.result);
+            }
+            if ("ARRAY_DECL".equals(q.op)) {
+                // 同名数组取最大的长度
+                arrays.merge(q.arg1, Integer.parseInt(q.arg2), Math::max);
+            }
+        }
+        if (!functionNames.contains("main")) {
+            throw new RuntimeException("Error: required main function");
+        }
+        layoutFrames(quadruples);
+
+        assemblyCode.append("\t.text\n");
+        assemblyCode.append("\t.globl\t_start\n");
+        assemblyCode.append("_start:\n");
+        emit("call", "main");
+        emit("movq", "%rax, %rdi");
+        emit("movl", "$60, %eax"); // exit
+        emit("syscall", null);
+
+        for (Quadruple q : quadruples) {
+            indexInUse = 0;
+            switch (q.op) {
+                case "=" -> generateAssignment(q);
+                case "+", "-", "*", "/", "<<", ">>" -> generateArithmetic(q);
+                case "j==", "j!=", "j<", "j<=", "j>", "j>=" -> generateConditional(q);
+                case "goto" -> emit("jmp", label(q.result));
+                case "label" -> assemblyCode.append(format("%s:\n", label(q.result)));
+                case "el", "ie", "we", "wh" -> assemblyCode.append(format(".%s_%d:\n", q.op.toUpperCase(), controlLabels++));
+                case "FuncStart" -> generateFunctionStart(q);
+                case "FuncEnd" -> generateFunctionEnd();
+                case "param" -> pendingArguments.add(q.arg1);
+                case "call" -> generateFunctionCall(q);
+                case "tailcall" -> generateTailCall(q);
+                case "return" -> generateReturnStatement(q);
+                case "var_decl", "param_decl", "FuncDef", "ARRAY_DECL" -> {
+                }
+                default -> throw new RuntimeException("Unsupported operation: " + q.op);
+            }
+        }
+
+        if (!arrays.isEmpty() || !globals.isEmpty()) {
+            assemblyCode.append("\n\t.bss\n");
+            assemblyCode.append("\t.align\t8\n");
+            arrays.forEach((name, size) -> assemblyCode.append(format("%s:\n\t.zero\t%d\n", symbol(name), WORD * size)));
+            for (String name : globals) {
+                if (!arrays.containsKey(name)) {
+                    assemblyCode.append(format("%s:\n\t.zero\t%d\n", symbol(name), WORD));
+                }
+            }
+        }
+        assemblyCode.append("\t.section\t.note.GNU-stack,\"\",@progbits\n");
+    }
+
+    /**
+     * 为每个函数的参数、局部变量和临时变量分配栈帧槽位：
+     * 寄存器传递的参数在入口处存入 -8(%rbp) 起的槽位，栈上参数留在调用者压栈的 16(%rbp) 起的位置
+     */
+    private void layoutFrames(List<Quadruple> quadruples) {
+        for (IrFunction function : new IrProgram(quadruples).functions) {
+            Map<String, String> slots = new HashMap<>();
+            List<String> params = function.params();
+            for (int i = ARG_REGISTERS.size(); i < params.size(); i++) {
+                slots.put(params.get(i), format("%d(%%rbp)", ARG_OFFSET + WORD * (i - ARG_REGISTERS.size())));
+            }
+            int count = 0;
+            for (String var : function.locals()) {
+                if (!slots.containsKey(var)) {
+                    slots.put(var, format("-%d(%%rbp)", WORD * ++count));
+                }
+            }
+            frames.put(function.name, slots);
+            registerParams.put(function.name, params.subList(0, Math.min(params.size(), ARG_REGISTERS.size())));
+            // 进入函数并压入 %rbp 后 %rsp 已按16字节对齐，局部变量区保持对齐
+            frameSizes.put(function.name, (WORD * count + 15) / 16 * 16);
+        }
+    }
+
+    private void generateAssignment(Quadruple q) {
+        String src = toOperand(q.arg1);
+        if (isMemory(src)) {
+            emit("movq", src + ", %rax");
+            src = "%rax";
+        }
+        emit("movq", src + ", " + target(q.result));
+    }
+
+    /**
+     * 算术运算在 %rax 中进行：除法的立即数除数先装入 %rcx，变量移位次数装入 %cl；
+     * 结果按16位截断后符号扩展（算术右移的结果不会超出16位）
+     */
+    private void generateArithmetic(Quadruple q) {
+        String op1 = toOperand(q.arg1);
+        String op2 = toOperand(q.arg2);
+        emit("movq", op1 + ", %rax");
+        switch (q.op) {
+            case "+" -> emit("addq", op2 + ", %rax");
+            case "-" -> emit("subq", op2 + ", %rax");
+            case "*" -> emit("imulq", op2 + ", %rax");
+            case "/" -> {
+                String divisor = op2;
+                if (isImmediate(op2)) {
+                    emit("movq", op2 + ", %rcx");
+                    divisor = "%rcx";
+                }
+                emit("cqto", null); // 扩展符号位到 %rdx
+                emit("idivq", divisor);
+            }
+            case "<<", ">>" -> {
+                String count = op2;
+                if (!isImmediate(op2)) {
+                    emit("movq", op2 + ", %rcx");
+                    count = "%cl";
+                }
+                emit("<<".equals(q.op) ? "salq" : "sarq", count + ", %rax");
+            }
+        }
+        if (!">>".equals(q.op)) {
+            emit("movswq", "%ax, %rax");
+        }
+        emit("movq", "%rax, " + target(q.result));
+    }
+
+    /**
+     * 条件跳转：左操作数装入 %rax 后与右操作数比较，按关系直接跳转
+     */
+    private void generateConditional(Quadruple q) {
+        String op1 = toOperand(q.arg1);
+        String op2 = toOperand(q.arg2);
+        emit("movq", op1 + ", %rax");
+        emit("cmpq", op2 + ", %rax");
+        String jump = switch (Quads.relation(q)) {
+            case "==" -> "je";
+            case "!=" -> "jne";
+            case "<" -> "jl";
+            case "<=" -> "jle";
+            case ">" -> "jg";
+            default -> "jge";
+        };
+        emit(jump, label(q.result));
+    }
+
+    private void generateFunctionStart(Quadruple q) {
+        currentFunction = symbol(q.result);
+        current = frames.getOrDefault(q.result, Map.of());
+        assemblyCode.append(format("\n\t.globl\t%s\n", currentFunction));
+        assemblyCode.append(format("\t.type\t%s, @function\n", currentFunction));
+        assemblyCode.append(format("%s:\n", currentFunction));
+        emit("pushq", "%rbp");
+        emit("movq", "%rsp, %rbp");
+        int frameSize = frameSizes.getOrDefault(q.result, 0);
+        if (frameSize > 0) {
+            emit("subq", format("$%d, %%rsp", frameSize));
+        }
+        // 寄存器传递的参数存入栈帧槽位
+        List<String> params = registerParams.getOrDefault(q.result, List.of());
+        for (int i = 0; i < params.size(); i++) {
+            emit("movq", ARG_REGISTERS.get(i) + ", " + current.get(params.get(i)));
+        }
+    }
+
+    private void generateFunctionEnd() {
+        emit("leave", null);
+        emit("ret", null);
+        assemblyCode.append(format("\t.size\t%s, .-%s\n", currentFunction, currentFunction));
+        current = Map.of();
+    }
+
+    private void generateReturnStatement(Quadruple q) {
+        if (!"_".equals(q.arg1)) {
+            emit("movq", toOperand(q.arg1) + ", %rax");
+        }
+        emit("leave", null);
+        emit("ret", null);
+    }
+
+    /**
+     * 按调用约定传递已记录的实参：栈上实参个数为奇数时先补8字节使调用时 %rsp 对齐，
+     * 从右到左压入第7个起的实参，再把前6个实参装入参数寄存器
+     * @param aligned 是否需要对齐（尾调用复用调用者的栈，不补齐）
+     * @return 调用返回后要弹出的字节数
+     */
+    private int passArguments(boolean aligned) {
+        int registerCount = Math.min(pendingArguments.size(), ARG_REGISTERS.size());
+        int stackCount = pendingArguments.size() - registerCount;
+        int padding = aligned && stackCount % 2 == 1 ? WORD : 0;
+        if (padding > 0) {
+            emit("subq", format("$%d, %%rsp", padding));
+        }
+        for (int i = pendingArguments.size() - 1; i >= registerCount; i--) {
+            indexInUse = 0;
+            emit("pushq", toOperand(pendingArguments.get(i)));
+        }
+        for (int i = 0; i < registerCount; i++) {
+            indexInUse = 0;
+            emit("movq", toOperand(pendingArguments.get(i)) + ", " + ARG_REGISTERS.get(i));
+        }
+        pendingArguments.clear();
+        return WORD * stackCount + padding;
+    }
+
+    private void generateFunctionCall(Quadruple q) {
+        int popped = passArguments(true);
+        emit("call", symbol(q.arg1));
+        if (popped > 0) {
+            emit("addq", format("$%d, %%rsp", popped));
+        }
+        if (!"_".equals(q.result)) {
+            emit("movq", "%rax, " + target(q.result));
+        }
+    }
+
+    /**
+     * 尾调用：栈上实参压栈后依次弹出到当前函数自己的栈上参数位置（被调函数的实参不多于本函数的形参），
+     * 撤销栈帧后直接跳到被调函数，被调函数返回时回到当前函数的调用者
+     */
+    private void generateTailCall(Quadruple q) {
+        int stackCount = passArguments(false) / WORD;
+        for (int k = 0; k < stackCount; k++) {
+            emit("popq", format("%d(%%rbp)", ARG_OFFSET + WORD * k));
+        }
+        emit("leave", null);
+        emit("jmp", symbol(q.arg1));
+    }
+
+    /**
+     * 将四元式参数转换为汇编操作数：立即数按16位截断，私有变量为栈帧槽位，全局变量按 %rip 相对寻址
+     */
+    private String toOperand(String value) {
+        OperandKind kind = OperandKind.of(value);
+        switch (kind) {
+            case NONE -> {
+                return "$0";
+            }
+            case INT -> {
+                return "$" + (short) Long.parseLong(value);
+            }
+            case CHAR -> {
+                return "$" + (int) value.charAt(1);
+            }
+            case ARRAY_ELEMENT -> {
+                return element(value);
+            }
+            case STRING -> throw new RuntimeException("x86-64 后端不支持字符串字面量: " + value);
+            default -> {
+                String slot = current.get(value);
+                if (slot != null) {
+                    return slot;
+                }
+                globals.add(value);
+                return symbol(value) + "(%rip)";
+            }
+        }
+    }
+
+    /**
+     * 写入的数组元素：此时读取的操作数已经用完，下标寄存器可以重新使用
+     */
+    private String target(String value) {
+        indexInUse = 0;
+        return toOperand(value);
+    }
+
+    /**
+     * 数组元素的内存操作数：常量下标折叠为位移，变量下标装入下标寄存器后按比例因子8寻址
+     */
+    private String element(String value) {
+        String array = symbol(Quads.arrayName(value));
+        String index = Quads.arrayIndex(value);
+        if (OperandKind.of(index) == OperandKind.INT) {
+            int offset = WORD * Integer.parseInt(index);
+            return offset == 0 ? array + "(%rip)" : format("%s+%d(%%rip)", array, offset);
+        }
+        String register = INDEX_REGISTERS.get(indexInUse++);
+        emit("movq", toOperand(index) + ", " + register);
+        return format("%s(,%s,%d)", array, register, WORD);
+    }
+
+    private static String label(String name) {
+        return "." + symbol(name);
+    }
+
+    /**
+     * 汇编符号名：作用域改名产生的 @ 在 GNU as 中表示符号版本，换成 .
+     */
+    private static String symbol(String name) {
+        return name.replace('@', '.');
+    }
+
+    private static boolean isImmediate(String operand) {
+        return operand.startsWith("$");
+    }
+
+    private static boolean isMemory(String operand) {
+        return operand.contains("(");
+    }
+
+    private void emit(String mnemonic, String operands) {
+        assemblyCode.append('\t').append(mnemonic);
+        if (operands != null) {
+            assemblyCode.append('\t').append(operands);
+        }
+        assemblyCode.append('\n');
+    }
+
+    /**
+     * 代码段中的指令条数（不含标签和伪指令）
+     */
+    @Override
+    public int getInstructionCount() {
+        int count = 0;
+        for (String line : assemblyCode.toString().split("\n")) {
+            if (line.startsWith("\t") && !line.startsWith("\t.")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String getAssemblyCode() {
+        return assemblyCode.toString();
+    }
+
+    @Override
+    public String show() {
+        for (String line : assemblyCode.toString().split("\n")) {
+            System.out.println(line);
+        }
+        return assemblyCode.toString();
+    }
+}
@@ -0,0 +1,41 @@
+package com.CodeGen;
+
+import com.Parser.Quadruple.AssemblyGenerator;
+import com.Parser.Quadruple.SymbolTable;
+
+/**
+ * 可选的目标代码生成器
+ * MASM 为默认的16位汇编生成器；ACCUMULATOR 跟踪 AX 中的值，省去多余的读写内存；
+ * X86_64 生成 Linux 上 GNU as 可汇编的 x86-64 AT&T 汇编（System V 调用约定）
+ */
+public enum Backend {
+    MASM, ACCUMULATOR, X86_64;
+
+    /**
+     * 解析生成器名称（不区分大小写），空串或null为默认的 MASM
+     */
+    public static Backend parse(String text) {
+        if (text == null || text.isBlank()) {
+            return MASM;
+        }
+        return switch (text.trim().toLowerCase()) {
+            case "masm" -> MASM;
+            case "accumulator", "acc" -> ACCUMULATOR;
+            case "x86-64", "x86_64", "x64", "amd64" -> X86_64;
+            default -> throw new RuntimeException("未知的目标代码生成器: " + text);
+        };
+    }
+
+    /**
+     * 创建生成器
+     * @param symbolTable 与调用方共用的符号表
+     * @param registerAllocator 寄存器分配器，为null时不分配寄存器；ACCUMULATOR 只使用 AX，X86_64 变量都在栈帧中，忽略此参数
+     */
+    public CodeGenerator create(SymbolTable symbolTable, RegisterAllocator registerAllocator) {
+        return switch (this) {
+            case MASM -> new AssemblyGenerator(symbolTable, registerAllocator);
+            case ACCUMULATOR -> new SingleRegisterCodeGenerator(symbolTable);
+            case X86_64 -> new Amd64CodeGenerator(symbolTable);
+        };
+    }
+}
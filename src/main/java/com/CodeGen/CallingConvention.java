@@ -0,0 +1,32 @@
+package com.CodeGen;
+
+import java.util.List;
+
+/**
+ * 调用约定
+ * 前两个实参通过 CX、DX 传递（与 fastcall 相同），其余实参从左到右压栈，由调用者清理，最后一个实参离被调函数的BP最近；
+ * 返回值在 AX 中。所有寄存器都由调用者保存，调用者只保存调用之后仍然活跃的变量所在的寄存器
+ */
+public final class CallingConvention {
+    // 依次传递前几个实参的寄存器
+    public static final List<Register> ARG_REGISTERS = List.of(Register.CX, Register.DX);
+    // 最后一个栈上实参相对BP的偏移：其下依次是保存的BP和返回地址
+    public static final int ARG_OFFSET = 4;
+
+    private CallingConvention() {
+    }
+
+    /**
+     * 第 index 个参数（从0开始）是否通过寄存器传递
+     */
+    public static boolean inRegister(int index) {
+        return index < ARG_REGISTERS.size();
+    }
+
+    /**
+     * 共 count 个参数时，第 index 个栈上参数相对被调函数BP的偏移
+     */
+    public static int stackOffset(int index, int count) {
+        return ARG_OFFSET + 2 * (count - 1 - index);
+    }
+}
@@ -0,0 +1,42 @@
+package com.CodeGen;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.List;
+
+/**
+ * 目标代码生成器：把优化后的四元式翻译为汇编程序
+ */
+public interface CodeGenerator {
+
+    /**
+     * 根据四元式列表生成汇编代码
+     * @param quadruples 四元式列表
+     */
+    void generateAssembly(List<Quadruple> quadruples);
+
+    /**
+     * 获取生成的汇编代码字符串
+     */
+    String getAssemblyCode();
+
+    /**
+     * 打印并返回汇编代码
+     */
+    String show();
+
+    /**
+     * 代码段中的指令条数（不含标签、过程定义等伪指令）
+     * 默认按16位 MASM 汇编的格式统计：.CODE 之后缩进的行
+     */
+    default int getInstructionCount() {
+        String code = getAssemblyCode();
+        int count = 0;
+        for (String line : code.substring(code.indexOf(".CODE\n")).split("\n")) {
+            if (line.startsWith("    ")) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
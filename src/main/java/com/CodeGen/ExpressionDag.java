@@ -0,0 +1,346 @@
+package com.CodeGen;
+
+import com.Optimizer.*;
+import com.Parser.Quadruple.OperandKind;
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+
+/**
+ * 基本块表达式 DAG 与 Sethi-Ullman 求值顺序
+ * 基本块按调用、实参、跳转、返回、标签等四元式切成段，段内只有赋值、运算和数组读写：
+ * 1. 建 DAG：按值编号散列共享结点，与段内已有结点相同的运算（包括同一数组元素的重复读取）改为从仍保存该值的变量复制
+ * 2. 标号：只被一条四元式使用一次、之后不再活跃的临时变量是树的内部边，其余四元式是树根；
+ *    叶子作左操作数需要一个寄存器，作右操作数可以直接是内存或立即数；两个子树的标号 l1、l2 相等时为 l1+1，否则取较大者
+ * 3. 排序：树根保持原来的相对顺序，每棵树先求标号大的子树，同时活跃的临时变量最少；
+ *    内部临时变量改用新名字，临时变量合并造成的名字复用不再限制顺序；变量和数组的读写先后仍然保持
+ * 结果仍是四元式，交给 AssemblyGenerator 分配寄存器并输出
+ */
+public class ExpressionDag {
+
+    /**
+     * @param quadruples 优化后的四元式，不会被修改
+     * @return 各基本块按 Sethi-Ullman 顺序重排后的四元式
+     */
+    public List<Quadruple> schedule(List<Quadruple> quadruples) {
+        List<Quadruple> copy = new ArrayList<>();
+        for (Quadruple q : quadruples) {
+            copy.add(new Quadruple(q.op, q.arg1, q.arg2, q.result));
+        }
+        IrProgram program = new IrProgram(copy);
+        for (IrFunction function : program.functions) {
+            Set<String> locals = function.locals();
+            ControlFlowGraph cfg = ControlFlowGraph.build(function.body);
+            Liveness liveness = new Liveness(cfg, locals);
+            List<Quadruple> body = new ArrayList<>();
+            for (BasicBlock b : cfg.blocks) {
+                List<Set<String>> liveAfter = liveness.liveAfter(b);
+                int start = 0;
+                for (int i = 0; i < b.quads.size(); i++) {
+                    // 段以第一条不是赋值、运算的四元式结束，它读取的值也可以是段内树的根
+                    boolean last = i == b.quads.size() - 1;
+                    if (!Quads.isPure(b.quads.get(i)) || last) {
+                        Segment segment = new Segment(program, locals, b.quads.subList(start, i + 1), liveAfter.get(i));
+                        body.addAll(segment.order());
+                        start = i + 1;
+                    }
+                }
+            }
+            function.body.clear();
+            function.body.addAll(body);
+        }
+        return program.toQuadruples();
+    }
+
+    private static class Segment {
+        private final IrProgram program;
+        private final Set<String> locals;
+        private final List<Quadruple> units;
+        private final Set<String> liveOut;
+        // 最后一条四元式不是赋值、运算时，必须放在段的末尾
+        private final boolean closed;
+        // 四元式 -> 必须在它之前的四元式（下标）
+        private final List<Set<Integer>> preds = new ArrayList<>();
+        // 四元式 -> 作为树的内部结点时的使用者，树根为 -1
+        private final int[] consumer;
+        // Sethi-Ullman 标号：求值所需的寄存器数
+        private final int[] label;
+        private final boolean[] emitted;
+        private final List<Quadruple> order = new ArrayList<>();
+
+        Segment(IrProgram program, Set<String> locals, List<Quadruple> units, Set<String> liveOut) {
+            this.program = program;
+            this.locals = locals;
+            this.units = units;
+            this.liveOut = liveOut;
+            this.closed = !Quads.isPure(units.get(units.size() - 1));
+            this.consumer = new int[units.size()];
+            this.label = new int[units.size()];
+            this.emitted = new boolean[units.size()];
+        }
+
+        List<Quadruple> order() {
+            if (units.size() < 2) {
+                return units;
+            }
+            shareNodes();
+            findTrees();
+            buildDependences();
+            for (int u = 0; u < units.size(); u++) {
+                label[u] = -1;
+            }
+            for (int u = 0; u < units.size(); u++) {
+                if (consumer[u] < 0) {
+                    emit(u);
+                }
+            }
+            return order;
+        }
+
+        /**
+         * 值编号：变量和常量对应结点，运算结点按 (运算, 操作数结点) 散列，
+         * 数组元素的读取按 (数组, 下标结点, 数组被写入的次数) 散列；命中且仍有变量保存该值时改为复制
+         */
+        private void shareNodes() {
+            Map<String, Integer> valueOf = new HashMap<>();
+            Map<Integer, Set<String>> holders = new HashMap<>();
+            Map<String, Integer> nodes = new HashMap<>();
+            Map<String, Integer> stores = new HashMap<>();
+            for (Quadruple q : units) {
+                if (!Quads.isPure(q)) {
+                    continue;
+                }
+                if (Quads.isArrayElement(q.result)) {
+                    stores.merge(Quads.arrayName(q.result), 1, Integer::sum);
+                    continue;
+                }
+                String key;
+                if ("=".equals(q.op) && Quads.isArrayElement(q.arg1)) {
+                    String array = Quads.arrayName(q.arg1);
+                    key = "load " + array + " " + node(Quads.arrayIndex(q.arg1), valueOf, nodes) + " " + stores.getOrDefault(array, 0);
+                } else if ("=".equals(q.op)) {
+                    key = null;
+                } else if (Quads.isArrayElement(q.arg1) || Quads.isArrayElement(q.arg2)) {
+                    key = "";
+                } else {
+                    int a = node(q.arg1, valueOf, nodes);
+                    int b = node(q.arg2, valueOf, nodes);
+                    if (("+".equals(q.op) || "*".equals(q.op)) && a > b) {
+                        int t = a;
+                        a = b;
+                        b = t;
+                    }
+                    key = q.op + " " + a + " " + b;
+                }
+
+                int value;
+                if (key == null) {
+                    value = node(q.arg1, valueOf, nodes);
+                } else if (!key.isEmpty() && nodes.containsKey(key)) {
+                    value = nodes.get(key);
+                    String holder = null;
+                    for (String h : holders.getOrDefault(value, Set.of())) {
+                        if (!h.equals(q.result)) {
+                            holder = h;
+                            break;
+                        }
+                    }
+                    if (holder != null) {
+                        q.op = "=";
+                        q.arg1 = holder;
+                        q.arg2 = "_";
+                    }
+                } else {
+                    value = nodes.size();
+                    nodes.put(key.isEmpty() ? "#" + value : key, value);
+                }
+                Integer old = valueOf.put(q.result, value);
+                if (old != null && holders.containsKey(old)) {
+                    holders.get(old).remove(q.result);
+                }
+                holders.computeIfAbsent(value, k -> new LinkedHashSet<>()).add(q.result);
+            }
+        }
+
+        private static int node(String operand, Map<String, Integer> valueOf, Map<String, Integer> nodes) {
+            if (Quads.isVariable(operand)) {
+                Integer value = valueOf.get(operand);
+                if (value == null) {
+                    value = nodes.size();
+                    nodes.put("#" + value, value);
+                    valueOf.put(operand, value);
+                }
+                return value;
+            }
+            return nodes.computeIfAbsent("const " + operand, k -> nodes.size());
+        }
+
+        /**
+         * 找出树的内部结点：定义的临时变量在段内恰好被下一条读取它的四元式读取一次，之后不再活跃；
+         * 内部结点改用新的临时变量名
+         */
+        private void findTrees() {
+            Arrays.fill(consumer, -1);
+            for (int w = 0; w < units.size(); w++) {
+                String t = Quads.def(units.get(w));
+                if (!Quads.isTemp(t) || !locals.contains(t) || (closed && w == units.size() - 1)) {
+                    continue;
+                }
+                int reader = -1;
+                int reads = 0;
+                boolean redefined = false;
+                for (int u = w + 1; u < units.size() && !redefined; u++) {
+                    Quadruple q = units.get(u);
+                    if (Quads.uses(q).contains(t)) {
+                        reader = u;
+                        reads++;
+                    }
+                    redefined = t.equals(Quads.def(q));
+                }
+                if (reads == 1 && (redefined || !liveOut.contains(t))) {
+                    consumer[w] = reader;
+                }
+            }
+            for (int w = 0; w < units.size(); w++) {
+                if (consumer[w] >= 0) {
+                    String t = units.get(w).result;
+                    String renamed = program.newTemp();
+                    units.get(w).result = renamed;
+                    Quads.replaceUses(units.get(consumer[w]), v -> v.equals(t) ? renamed : v);
+                }
+            }
+        }
+
+        /**
+         * 必须的先后关系：读后写、写后读、写后写同一变量，以及同一数组的读写；
+         * 结束段的四元式在所有四元式之后
+         */
+        private void buildDependences() {
+            for (int u = 0; u < units.size(); u++) {
+                Set<Integer> before = new TreeSet<>();
+                Quadruple q = units.get(u);
+                for (int w = 0; w < u; w++) {
+                    if ((closed && u == units.size() - 1) || conflicts(units.get(w), q)) {
+                        before.add(w);
+                    }
+                }
+                preds.add(before);
+            }
+        }
+
+        private static boolean conflicts(Quadruple earlier, Quadruple later) {
+            String d1 = Quads.def(earlier);
+            String d2 = Quads.def(later);
+            if (d1 != null && (d1.equals(d2) || Quads.uses(later).contains(d1))) {
+                return true;
+            }
+            if (d2 != null && Quads.uses(earlier).contains(d2)) {
+                return true;
+            }
+            String stored = storedArray(earlier);
+            if (stored != null && (stored.equals(storedArray(later)) || stored.equals(loadedArray(later)))) {
+                return true;
+            }
+            return loadedArray(earlier) != null && loadedArray(earlier).equals(storedArray(later));
+        }
+
+        private static String storedArray(Quadruple q) {
+            return "=".equals(q.op) && Quads.isArrayElement(q.result) ? Quads.arrayName(q.result) : null;
+        }
+
+        private static String loadedArray(Quadruple q) {
+            return Quads.isPure(q) && Quads.isArrayElement(q.arg1) ? Quads.arrayName(q.arg1) : null;
+        }
+
+        /**
+         * 四元式按求值顺序读取的值：赋值、返回、实参为 arg1，运算和条件跳转为 arg1、arg2，
+         * 数组元素以下标代替，写入的数组元素的下标最后读取
+         */
+        private static List<String> operands(Quadruple q) {
+            List<String> operands = new ArrayList<>();
+            operands.add(q.arg1);
+            if (Quads.isArithmetic(q.op) || Quads.isConditionalBranch(q)) {
+                operands.add(q.arg2);
+            }
+            if ("=".equals(q.op) && Quads.isArrayElement(q.result)) {
+                operands.add(q.result);
+            }
+            List<String> values = new ArrayList<>();
+            for (String operand : operands) {
+                values.add(Quads.isArrayElement(operand) ? Quads.arrayIndex(operand) : operand);
+            }
+            return values;
+        }
+
+        /**
+         * 作为树的内部结点计算各操作数的子结点，没有时为 -1
+         */
+        private List<Integer> children(int u) {
+            List<Integer> children = new ArrayList<>();
+            for (String operand : operands(units.get(u))) {
+                int child = -1;
+                for (int w = 0; w < u; w++) {
+                    if (consumer[w] == u && units.get(w).result.equals(operand)) {
+                        child = w;
+                    }
+                }
+                children.add(child);
+            }
+            return children;
+        }
+
+        /**
+         * Sethi-Ullman 标号：按所需寄存器数从大到小依次求值各操作数，第 i 个操作数求值时前 i 个结果占着寄存器
+         */
+        private int label(int u) {
+            if (label[u] >= 0) {
+                return label[u];
+            }
+            List<Integer> needs = new ArrayList<>();
+            List<Integer> children = children(u);
+            for (int i = 0; i < children.size(); i++) {
+                int child = children.get(i);
+                needs.add(child >= 0 ? label(child) : leaf(units.get(u), i));
+            }
+            needs.sort(Comparator.reverseOrder());
+            int result = 1;
+            for (int i = 0; i < needs.size(); i++) {
+                result = Math.max(result, needs.get(i) + i);
+            }
+            label[u] = result;
+            return result;
+        }
+
+        /**
+         * 叶子操作数需要的寄存器：左操作数要先装入寄存器，其余可以直接作内存或立即数操作数
+         */
+        private static int leaf(Quadruple q, int position) {
+            if (position == 0) {
+                return OperandKind.of(q.arg1).isLiteral() && !Quads.isArithmetic(q.op) ? 0 : 1;
+            }
+            return 0;
+        }
+
+        private void emit(int u) {
+            if (emitted[u]) {
+                return;
+            }
+            emitted[u] = true;
+            List<Integer> children = new ArrayList<>();
+            for (int child : children(u)) {
+                if (child >= 0) {
+                    children.add(child);
+                }
+            }
+            // 标号大的子树先求值，相等时保持从左到右
+            children.sort(Comparator.comparingInt((Integer c) -> label(c)).reversed());
+            for (int child : children) {
+                emit(child);
+            }
+            for (int w : preds.get(u)) {
+                emit(w);
+            }
+            order.add(units.get(u));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.CodeGen;
+
+import java.util.*;
+
+/**
+ * 函数的栈帧布局
+ * 栈上传递的参数在调用者压栈的位置 [BP+4]、[BP+6]……，最后一个参数离BP最近；
+ * 没有分配到寄存器的局部变量、临时变量和寄存器传递的参数在 [BP-2]、[BP-4]……，活跃区间不相交的变量共用一个槽位
+ */
+public class FrameLayout {
+    // 变量 -> 栈帧中的内存操作数
+    public final Map<String, String> slots = new HashMap<>();
+    // 局部变量区的字节数
+    public final int size;
+
+    /**
+     * @param ranges 函数的活跃区间
+     * @param registers 已分配到寄存器的变量，不占槽位
+     */
+    public FrameLayout(LiveRanges ranges, Map<String, Register> registers) {
+        List<String> params = ranges.function.params();
+        for (int i = 0; i < params.size(); i++) {
+            if (!CallingConvention.inRegister(i)) {
+                slots.put(params.get(i), address(CallingConvention.stackOffset(i, params.size())));
+            }
+        }
+
+        List<LiveRanges.Interval> intervals = new ArrayList<>();
+        for (LiveRanges.Interval interval : ranges.intervals.values()) {
+            if (!registers.containsKey(interval.var)) {
+                intervals.add(interval);
+            }
+        }
+        intervals.sort(Comparator.comparingInt((LiveRanges.Interval i) -> i.start).thenComparingInt(i -> i.end));
+        // 槽位编号从1开始，槽位 k 在 [BP-2k]
+        Map<String, Integer> slotOf = new HashMap<>();
+        List<LiveRanges.Interval> active = new ArrayList<>();
+        TreeSet<Integer> free = new TreeSet<>();
+        int count = 0;
+        for (LiveRanges.Interval current : intervals) {
+            Iterator<LiveRanges.Interval> it = active.iterator();
+            while (it.hasNext()) {
+                LiveRanges.Interval i = it.next();
+                if (i.end < current.start) {
+                    free.add(slotOf.get(i.var));
+                    it.remove();
+                }
+            }
+            int slot = free.isEmpty() ? ++count : free.pollFirst();
+            slotOf.put(current.var, slot);
+            slots.put(current.var, address(-2 * slot));
+            active.add(current);
+        }
+        size = 2 * count;
+    }
+
+    private static String address(int offset) {
+        return offset > 0 ? "WORD PTR [BP+" + offset + "]" : "WORD PTR [BP-" + -offset + "]";
+    }
+}
@@ -0,0 +1,193 @@
+package com.CodeGen;
+
+import com.Optimizer.Quads;
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+
+/**
+ * 图着色寄存器分配（Chaitin/Briggs）
+ * 1. 构造冲突图：在每个定义点，被定义的变量与此后活跃的其他变量冲突；复制 x = y 中的 y 除外，以便合并
+ * 2. 合并：复制两侧的变量不冲突时，按 Briggs 的保守条件合并为一个结点，合并后复制变为同一寄存器间的传送而被省略
+ * 3. 简化：反复移走度数小于可用寄存器数的结点压栈；都不满足时，乐观地压入 溢出代价/度数 最小的结点
+ * 4. 选择：按出栈顺序为结点选择邻居未使用、也未被固定使用排除的寄存器，选不到的变量留在内存中
+ * 内存操作数在所有指令序列中都可以使用（AX 作累加器），溢出不需要插入额外代码，也就不必重新构造冲突图
+ */
+public class GraphColoringAllocator implements RegisterAllocator {
+
+    @Override
+    public Map<String, Register> allocate(LiveRanges ranges) {
+        return new Graph(ranges).color();
+    }
+
+    private static class Graph {
+        private final LiveRanges ranges;
+        // 结点 -> 相邻结点；合并后只保留代表结点
+        private final Map<String, Set<String>> adjacency = new LinkedHashMap<>();
+        // 被合并的变量 -> 合并到的结点
+        private final Map<String, String> alias = new HashMap<>();
+        // 结点 -> 可以使用的寄存器
+        private final Map<String, EnumSet<Register>> allowed = new HashMap<>();
+        // 结点 -> 溢出代价
+        private final Map<String, Double> cost = new HashMap<>();
+
+        Graph(LiveRanges ranges) {
+            this.ranges = ranges;
+            for (String v : ranges.intervals.keySet()) {
+                EnumSet<Register> registers = EnumSet.complementOf(ranges.forbidden.get(v));
+                // 没有可用寄存器的变量必定留在内存中，不参与着色，也不约束其他结点
+                if (!registers.isEmpty()) {
+                    adjacency.put(v, new LinkedHashSet<>());
+                    allowed.put(v, registers);
+                    cost.put(v, ranges.spillCost.getOrDefault(v, 0.0));
+                }
+            }
+            build();
+            coalesce();
+        }
+
+        private void build() {
+            for (int p = 0; p < ranges.quads.size(); p++) {
+                Quadruple q = ranges.quads.get(p);
+                String def = Quads.def(q);
+                if (!adjacency.containsKey(def)) {
+                    continue;
+                }
+                String copied = "=".equals(q.op) ? q.arg1 : null;
+                for (String v : ranges.liveAfter.get(p)) {
+                    if (!v.equals(def) && !v.equals(copied)) {
+                        addEdge(def, v);
+                    }
+                }
+            }
+            // 未赋值就读取的变量在入口处同时活跃
+            for (String a : ranges.liveIn) {
+                for (String b : ranges.liveIn) {
+                    if (!a.equals(b)) {
+                        addEdge(a, b);
+                    }
+                }
+            }
+        }
+
+        private void addEdge(String a, String b) {
+            if (adjacency.containsKey(a) && adjacency.containsKey(b)) {
+                adjacency.get(a).add(b);
+                adjacency.get(b).add(a);
+            }
+        }
+
+        private String find(String v) {
+            while (alias.containsKey(v)) {
+                v = alias.get(v);
+            }
+            return v;
+        }
+
+        /**
+         * 按循环深度从深到浅合并复制两侧的变量
+         * Briggs 条件：合并后的结点度数不小于可用寄存器数的邻居少于可用寄存器数，合并不会让图变得不可着色
+         */
+        private void coalesce() {
+            List<Integer> copies = new ArrayList<>();
+            for (int p = 0; p < ranges.quads.size(); p++) {
+                Quadruple q = ranges.quads.get(p);
+                if ("=".equals(q.op) && adjacency.containsKey(q.result) && adjacency.containsKey(q.arg1)) {
+                    copies.add(p);
+                }
+            }
+            copies.sort(Comparator.comparingInt((Integer p) -> ranges.loopDepth.get(p)).reversed());
+            for (int p : copies) {
+                Quadruple q = ranges.quads.get(p);
+                String a = find(q.result);
+                String b = find(q.arg1);
+                if (a.equals(b) || adjacency.get(a).contains(b)) {
+                    continue;
+                }
+                EnumSet<Register> registers = EnumSet.copyOf(allowed.get(a));
+                registers.retainAll(allowed.get(b));
+                if (registers.isEmpty()) {
+                    continue;
+                }
+                Set<String> neighbors = new HashSet<>(adjacency.get(a));
+                neighbors.addAll(adjacency.get(b));
+                int significant = 0;
+                for (String n : neighbors) {
+                    if (adjacency.get(n).size() >= allowed.get(n).size()) {
+                        significant++;
+                    }
+                }
+                if (significant < registers.size()) {
+                    merge(a, b, registers);
+                }
+            }
+        }
+
+        private void merge(String a, String b, EnumSet<Register> registers) {
+            for (String n : adjacency.remove(b)) {
+                adjacency.get(n).remove(b);
+                adjacency.get(n).add(a);
+                adjacency.get(a).add(n);
+            }
+            alias.put(b, a);
+            allowed.put(a, registers);
+            allowed.remove(b);
+            cost.merge(a, cost.remove(b), Double::sum);
+        }
+
+        Map<String, Register> color() {
+            Deque<String> stack = new ArrayDeque<>();
+            Set<String> remaining = new LinkedHashSet<>(adjacency.keySet());
+            Map<String, Integer> degree = new HashMap<>();
+            adjacency.forEach((n, neighbors) -> degree.put(n, neighbors.size()));
+            while (!remaining.isEmpty()) {
+                String pick = null;
+                for (String n : remaining) {
+                    if (degree.get(n) < allowed.get(n).size()) {
+                        pick = n;
+                        break;
+                    }
+                }
+                if (pick == null) {
+                    // 可能溢出：代价低、冲突多的结点优先
+                    double best = Double.MAX_VALUE;
+                    for (String n : remaining) {
+                        double score = cost.get(n) / Math.max(1, degree.get(n));
+                        if (score < best) {
+                            best = score;
+                            pick = n;
+                        }
+                    }
+                }
+                remaining.remove(pick);
+                stack.push(pick);
+                for (String m : adjacency.get(pick)) {
+                    if (remaining.contains(m)) {
+                        degree.merge(m, -1, Integer::sum);
+                    }
+                }
+            }
+
+            Map<String, Register> colors = new HashMap<>();
+            while (!stack.isEmpty()) {
+                String n = stack.pop();
+                EnumSet<Register> free = EnumSet.copyOf(allowed.get(n));
+                for (String m : adjacency.get(n)) {
+                    free.remove(colors.get(m));
+                }
+                if (!free.isEmpty()) {
+                    colors.put(n, free.iterator().next());
+                }
+            }
+
+            Map<String, Register> assignment = new HashMap<>();
+            for (String v : ranges.intervals.keySet()) {
+                Register register = colors.get(find(v));
+                if (register != null) {
+                    assignment.put(v, register);
+                }
+            }
+            return assignment;
+        }
+    }
+}
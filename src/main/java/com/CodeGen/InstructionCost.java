@@ -0,0 +1,196 @@
+package com.CodeGen;
+
+import java.util.List;
+
+/**
+ * 8086 指令的代价估计，供指令选择比较候选序列
+ * 8086 的预取队列每4个时钟周期取1字节，短指令往往受取指限制，
+ * 因此一条指令的代价取 max(执行时钟数, 4×字节数)；
+ * 时钟数取自 8086 手册，内存操作数另加有效地址计算时间 EA，按 CL 移位的位数未知时按4位估计
+ */
+public final class InstructionCost {
+    private InstructionCost() {
+    }
+
+    /**
+     * 指令序列的总代价
+     */
+    public static int of(List<String> instructions) {
+        int cost = 0;
+        for (String instruction : instructions) {
+            cost += of(instruction);
+        }
+        return cost;
+    }
+
+    /**
+     * 一条指令的代价，指令格式为 "助记符 目的, 源"
+     */
+    public static int of(String instruction) {
+        String text = instruction.trim();
+        int space = text.indexOf(' ');
+        String mnemonic = space < 0 ? text : text.substring(0, space);
+        String[] operands = space < 0 ? new String[0] : text.substring(space + 1).split(",");
+        Operand dst = operands.length > 0 ? new Operand(operands[0]) : null;
+        Operand src = operands.length > 1 ? new Operand(operands[1]) : null;
+
+        int clocks;
+        int bytes;
+        switch (mnemonic) {
+            case "MOV" -> {
+                if (dst.memory) {
+                    clocks = (src.immediate ? 10 : 9) + dst.ea;
+                    bytes = 2 + dst.displacement + (src.immediate ? 2 : 0);
+                } else if (src.memory) {
+                    clocks = 8 + src.ea;
+                    bytes = 2 + src.displacement;
+                } else {
+                    clocks = src.immediate ? 4 : 2;
+                    bytes = src.immediate ? 3 : 2;
+                }
+            }
+            case "ADD", "SUB", "AND", "OR", "XOR", "ADC", "SBB", "CMP" -> {
+                boolean compare = "CMP".equals(mnemonic);
+                if (dst.memory) {
+                    clocks = (src.immediate ? (compare ? 10 : 17) : (compare ? 9 : 16)) + dst.ea;
+                    bytes = 2 + dst.displacement + src.immediateBytes();
+                } else if (src.memory) {
+                    clocks = 9 + src.ea;
+                    bytes = 2 + src.displacement;
+                } else {
+                    clocks = src.immediate ? 4 : 3;
+                    bytes = 2 + src.immediateBytes();
+                }
+            }
+            case "INC", "DEC" -> {
+                clocks = dst.memory ? 15 + dst.ea : 2;
+                bytes = dst.memory ? 2 + dst.displacement : 1;
+            }
+            case "NEG", "NOT" -> {
+                clocks = dst.memory ? 16 + dst.ea : 3;
+                bytes = 2 + dst.displacement;
+            }
+            case "SHL", "SAL", "SHR", "SAR", "ROL", "ROR", "RCL", "RCR" -> {
+                boolean byCount = "CL".equals(src.text);
+                clocks = dst.memory ? (byCount ? 20 + 4 * 4 : 15) + dst.ea : (byCount ? 8 + 4 * 4 : 2);
+                bytes = 2 + dst.displacement;
+            }
+            case "MUL" -> {
+                clocks = dst.memory ? 130 + dst.ea : 126;
+                bytes = 2 + dst.displacement;
+            }
+            case "IMUL" -> {
+                clocks = dst.memory ? 140 + dst.ea : 134;
+                bytes = 2 + dst.displacement;
+            }
+            case "DIV" -> {
+                clocks = dst.memory ? 159 + dst.ea : 153;
+                bytes = 2 + dst.displacement;
+            }
+            case "IDIV" -> {
+                clocks = dst.memory ? 181 + dst.ea : 175;
+                bytes = 2 + dst.displacement;
+            }
+            case "LEA" -> {
+                clocks = 2 + src.ea;
+                bytes = 2 + src.displacement;
+            }
+            case "XCHG" -> {
+                Operand memory = dst.memory ? dst : src;
+                clocks = memory.memory ? 17 + memory.ea : 4;
+                bytes = memory.memory ? 2 + memory.displacement : ("AX".equals(dst.text) || "AX".equals(src.text) ? 1 : 2);
+            }
+            case "CWD" -> {
+                clocks = 5;
+                bytes = 1;
+            }
+            case "CBW" -> {
+                clocks = 2;
+                bytes = 1;
+            }
+            default -> {
+                clocks = 4;
+                bytes = 2;
+            }
+        }
+        return Math.max(clocks, 4 * bytes);
+    }
+
+    /**
+     * 指令操作数的分类：寄存器、立即数或内存；内存操作数记录有效地址时间和位移字节数
+     */
+    private static class Operand {
+        final String text;
+        final boolean immediate;
+        final boolean memory;
+        int ea;
+        int displacement;
+
+        Operand(String operand) {
+            String s = operand.trim();
+            if (s.startsWith("WORD PTR ") || s.startsWith("BYTE PTR ")) {
+                s = s.substring(9).trim();
+            }
+            text = s;
+            immediate = OperationTree.isImmediate(s);
+            memory = !immediate && !OperationTree.isRegister(s) && !"CL".equals(s);
+            if (memory) {
+                address(s);
+            }
+        }
+
+        /**
+         * [基址+变址+位移] 或 变量名[...]：变量名作16位位移
+         */
+        private void address(String s) {
+            int bracket = s.indexOf('[');
+            boolean named = bracket != 0;
+            int registers = 0;
+            boolean hasDisplacement = named;
+            int offset = 0;
+            if (bracket >= 0) {
+                String inside = s.substring(bracket + 1, s.indexOf(']', bracket));
+                for (String term : inside.replace("-", "+-").split("\\+")) {
+                    String t = term.trim();
+                    if (t.isEmpty()) {
+                        continue;
+                    }
+                    if (OperationTree.isRegister(t) || "BP".equals(t)) {
+                        registers++;
+                        // [BP] 没有无位移的编码
+                        hasDisplacement |= "BP".equals(t);
+                    } else {
+                        Integer v = OperationTree.value(t);
+                        offset += v == null ? 0 : v;
+                        hasDisplacement = true;
+                    }
+                }
+            }
+            if (!hasDisplacement) {
+                displacement = 0;
+            } else if (named || registers == 0 || offset < -128 || offset > 127) {
+                displacement = 2;
+            } else {
+                displacement = 1;
+            }
+            if (registers == 0) {
+                ea = 6;
+            } else if (registers == 1) {
+                ea = hasDisplacement ? 9 : 5;
+            } else {
+                ea = hasDisplacement ? 11 : 7;
+            }
+        }
+
+        /**
+         * 算术指令的立即数字节数：-128..127 用符号扩展的8位立即数
+         */
+        int immediateBytes() {
+            if (!immediate) {
+                return 0;
+            }
+            Integer v = OperationTree.value(text);
+            return v != null && v >= -128 && v <= 127 ? 1 : 2;
+        }
+    }
+}
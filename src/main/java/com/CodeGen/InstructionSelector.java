@@ -0,0 +1,74 @@
+package com.CodeGen;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按代价的指令选择
+ * 一个四元式就是一棵叶子已确定位置的运算树，用规则表中每条能覆盖它的规则生成候选指令序列，
+ * 选代价最小的一个（代价相同时取排在前面的规则）；新的模式只需加入规则表，不需要修改选择过程。
+ * 记录每条规则被选中的次数
+ */
+public class InstructionSelector {
+    private final List<SelectionRule> rules;
+    private final Map<String, Integer> hits = new LinkedHashMap<>();
+
+    public InstructionSelector() {
+        this(SelectionRules.defaults());
+    }
+
+    public InstructionSelector(List<SelectionRule> rules) {
+        this.rules = rules;
+        for (SelectionRule rule : rules) {
+            hits.put(rule.getName(), 0);
+        }
+    }
+
+    /**
+     * 选择覆盖运算树的指令序列
+     * @return 指令序列，每条一行，不含缩进
+     */
+    public List<String> select(OperationTree tree) {
+        SelectionRule best = null;
+        List<String> bestCode = null;
+        int bestCost = Integer.MAX_VALUE;
+        for (SelectionRule rule : rules) {
+            List<String> code = rule.cover(tree);
+            if (code == null) {
+                continue;
+            }
+            int cost = rule.cost(code);
+            if (cost < bestCost) {
+                best = rule;
+                bestCode = code;
+                bestCost = cost;
+            }
+        }
+        if (best == null) {
+            throw new RuntimeException("没有能覆盖运算树的指令选择规则: " + tree);
+        }
+        hits.merge(best.getName(), 1, Integer::sum);
+        return bestCode;
+    }
+
+    /**
+     * 各规则累计的选中次数
+     */
+    public Map<String, Integer> hits() {
+        return hits;
+    }
+
+    /**
+     * 选中次数报告，如 accumulator=12, inc-dec=3
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        hits.forEach((name, count) -> {
+            if (count > 0) {
+                sb.append(sb.isEmpty() ? "" : ", ").append(name).append('=').append(count);
+            }
+        });
+        return sb.isEmpty() ? "无" : sb.toString();
+    }
+}
@@ -0,0 +1,54 @@
+package com.CodeGen;
+
+import com.Optimizer.Quads;
+
+import java.util.*;
+
+/**
+ * 线性扫描寄存器分配
+ * 活跃区间按起点排序后依次处理：先释放已经结束的区间占用的寄存器，
+ * 再从没有被固定使用排除的空闲寄存器中选一个；没有空闲寄存器时，
+ * 在占用可用寄存器的区间中溢出结束最晚的一个（包括当前区间），被溢出的变量留在内存中
+ */
+public class LinearScanAllocator implements RegisterAllocator {
+
+    @Override
+    public Map<String, Register> allocate(LiveRanges ranges) {
+        List<LiveRanges.Interval> intervals = new ArrayList<>(ranges.intervals.values());
+        intervals.sort(Comparator.comparingInt((LiveRanges.Interval i) -> i.start).thenComparingInt(i -> i.end));
+        Map<String, Register> assignment = new HashMap<>();
+        List<LiveRanges.Interval> active = new ArrayList<>();
+        for (LiveRanges.Interval current : intervals) {
+            active.removeIf(i -> i.end < current.start);
+            // 在当前区间起点被写入的变量可以复用在同一位置最后一次被读取的变量的寄存器；
+            // 那些变量仍留在 active 中，同一位置开始的其他区间不能使用它们的寄存器
+            boolean definedAtStart = current.start != LiveRanges.ENTRY
+                    && current.var.equals(Quads.def(ranges.quads.get(current.start)));
+
+            EnumSet<Register> allowed = EnumSet.complementOf(ranges.forbidden.get(current.var));
+            EnumSet<Register> free = EnumSet.copyOf(allowed);
+            for (LiveRanges.Interval i : active) {
+                if (!(definedAtStart && i.end == current.start)) {
+                    free.remove(assignment.get(i.var));
+                }
+            }
+            if (!free.isEmpty()) {
+                assignment.put(current.var, free.iterator().next());
+                active.add(current);
+                continue;
+            }
+            LiveRanges.Interval victim = null;
+            for (LiveRanges.Interval i : active) {
+                if (allowed.contains(assignment.get(i.var)) && (victim == null || i.end > victim.end)) {
+                    victim = i;
+                }
+            }
+            if (victim != null && victim.end > current.end) {
+                assignment.put(current.var, assignment.remove(victim.var));
+                active.remove(victim);
+                active.add(current);
+            }
+        }
+        return assignment;
+    }
+}
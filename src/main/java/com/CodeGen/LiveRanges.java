@@ -0,0 +1,255 @@
+package com.CodeGen;
+
+import com.Optimizer.*;
+import com.Parser.Quadruple.OperandKind;
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+
+/**
+ * 寄存器分配所需的函数级分析结果
+ * 函数体四元式按顺序编号，记录每个位置之后活跃的候选变量、每个候选变量的活跃区间，
+ * 以及由于指令固定使用某些寄存器（MUL/IDIV/CWD 的 DX:AX、移位的 CL、累加器 AX、返回值 AX、数组寻址的 SI/BX）而不能分配给它的寄存器
+ */
+public class LiveRanges {
+    public final IrFunction function;
+    // 函数体四元式，下标即位置
+    public final List<Quadruple> quads;
+    // 每个位置执行之后活跃的候选变量
+    public final List<Set<String>> liveAfter = new ArrayList<>();
+    // 函数入口处活跃的候选变量（未赋值就读取的变量）
+    public final Set<String> liveIn = new HashSet<>();
+    // 每个位置所在循环的嵌套深度，不在循环中为0
+    public final List<Integer> loopDepth = new ArrayList<>();
+    // 可以放进寄存器的变量：函数的局部变量、临时变量和寄存器传递的参数
+    public final Set<String> candidates = new LinkedHashSet<>();
+    // 变量 -> 活跃区间
+    public final Map<String, Interval> intervals = new LinkedHashMap<>();
+    // 变量 -> 不能分配给它的寄存器
+    public final Map<String, EnumSet<Register>> forbidden = new HashMap<>();
+    // 变量 -> 溢出代价：每次定义和使用按 10^循环深度 计入，留在内存中时多出的访存次数的估计
+    public final Map<String, Double> spillCost = new HashMap<>();
+
+    /**
+     * 活跃区间 [start, end]：从第一次定义或活跃的位置到最后一次使用的位置
+     * 入口处活跃的变量和寄存器传递的参数在函数开始之前就已占用位置，起点为 ENTRY
+     */
+    public static final int ENTRY = -1;
+
+    public static class Interval {
+        public final String var;
+        public int start;
+        public int end;
+
+        Interval(String var, int position) {
+            this.var = var;
+            this.start = position;
+            this.end = position;
+        }
+
+        void extend(int position) {
+            start = Math.min(start, position);
+            end = Math.max(end, position);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s[%d,%d]", var, start, end);
+        }
+    }
+
+    public LiveRanges(IrFunction function) {
+        this.function = function;
+        this.quads = function.body;
+        collectCandidates();
+        computeLiveness();
+        // 实参在调用时才读取，读取时AX用来压入立即数；
+        // 数组元素实参用 SI 寻址，而且在其他实参传送到参数寄存器之后才读取
+        List<String> arguments = new ArrayList<>();
+        Set<String> indexes = new HashSet<>();
+        for (int p = 0; p < quads.size(); p++) {
+            Quadruple q = quads.get(p);
+            if ("param".equals(q.op)) {
+                for (String v : Quads.uses(q)) {
+                    if (candidates.contains(v)) {
+                        arguments.add(v);
+                    }
+                }
+                if (q.kindOfArg1() == OperandKind.ARRAY_ELEMENT && candidates.contains(Quads.arrayIndex(q.arg1))) {
+                    indexes.add(Quads.arrayIndex(q.arg1));
+                }
+            } else if ("call".equals(q.op) || "tailcall".equals(q.op)) {
+                for (String v : arguments) {
+                    extend(v, p);
+                    forbidden.get(v).add(Register.AX);
+                    if (!indexes.isEmpty()) {
+                        forbidden.get(v).add(Register.SI);
+                    }
+                }
+                for (String v : indexes) {
+                    forbidden.get(v).addAll(CallingConvention.ARG_REGISTERS);
+                }
+                arguments.clear();
+                indexes.clear();
+            }
+            for (String v : liveAfter.get(p)) {
+                extend(v, p);
+            }
+            double weight = Math.pow(10, loopDepth.get(p));
+            for (String v : Quads.uses(q)) {
+                extend(v, p);
+                addCost(v, weight);
+            }
+            extend(Quads.def(q), p);
+            addCost(Quads.def(q), weight);
+            constrain(q, liveAfter.get(p));
+        }
+        // 这些变量在序言中同时就位，区间都从入口之前开始，相互重叠
+        List<String> params = function.params();
+        for (int i = 0; i < params.size() && CallingConvention.inRegister(i); i++) {
+            if (intervals.containsKey(params.get(i))) {
+                extend(params.get(i), ENTRY);
+            }
+        }
+        for (String v : liveIn) {
+            extend(v, ENTRY);
+        }
+    }
+
+    private void collectCandidates() {
+        Set<String> excluded = new HashSet<>();
+        List<String> params = function.params();
+        for (int i = 0; i < params.size(); i++) {
+            if (!CallingConvention.inRegister(i)) {
+                excluded.add(params.get(i));
+            }
+        }
+        for (String v : function.locals()) {
+            if (!excluded.contains(v)) {
+                candidates.add(v);
+                forbidden.put(v, EnumSet.noneOf(Register.class));
+            }
+        }
+    }
+
+    private void computeLiveness() {
+        ControlFlowGraph cfg = ControlFlowGraph.build(quads);
+        Liveness liveness = new Liveness(cfg, candidates);
+        LoopForest loops = new LoopForest(cfg);
+        Map<Quadruple, Set<String>> after = new IdentityHashMap<>();
+        Map<Quadruple, Integer> depth = new IdentityHashMap<>();
+        for (BasicBlock b : cfg.blocks) {
+            List<Set<String>> sets = liveness.liveAfter(b);
+            for (int i = 0; i < b.quads.size(); i++) {
+                after.put(b.quads.get(i), sets.get(i));
+                depth.put(b.quads.get(i), loops.depth(b));
+            }
+        }
+        for (Quadruple q : quads) {
+            liveAfter.add(after.getOrDefault(q, Set.of()));
+            loopDepth.add(depth.getOrDefault(q, 0));
+        }
+        if (!quads.isEmpty()) {
+            liveIn.addAll(liveAfter.get(0));
+            liveness.step(quads.get(0), liveIn);
+        }
+    }
+
+    private void addCost(String v, double weight) {
+        if (v != null && candidates.contains(v)) {
+            spillCost.merge(v, weight, Double::sum);
+        }
+    }
+
+    private void extend(String v, int position) {
+        if (v != null && candidates.contains(v)) {
+            intervals.computeIfAbsent(v, k -> new Interval(k, position)).extend(position);
+        }
+    }
+
+    /**
+     * 记录四元式对寄存器的固定使用：
+     * 跨越该四元式仍然活跃的变量不能放在它改写的寄存器中；
+     * 先装入 AX（除法还有 CWD 改写的 DX）再读取的右操作数不能放在这些寄存器中；
+     * 数组地址在读取其他操作数之前计算，操作数和结果都不能放在地址寄存器中，
+     * 写入的数组元素在运算之后才计算地址，它的下标不能放在该四元式改写的任何寄存器中
+     */
+    private void constrain(Quadruple q, Set<String> live) {
+        EnumSet<Register> clobbered = clobbers(q);
+        String def = Quads.def(q);
+        for (String v : live) {
+            if (!v.equals(def)) {
+                forbidden.get(v).addAll(clobbered);
+            }
+        }
+        if (Quads.isArithmetic(q.op) || Quads.isConditionalBranch(q)) {
+            EnumSet<Register> early = "/".equals(q.op) ? EnumSet.of(Register.AX, Register.DX) : EnumSet.of(Register.AX);
+            if (candidates.contains(q.arg2)) {
+                forbidden.get(q.arg2).addAll(early);
+            }
+        }
+        EnumSet<Register> addressing = addressRegisters(q);
+        if (addressing.isEmpty()) {
+            return;
+        }
+        for (String v : Quads.uses(q)) {
+            if (candidates.contains(v)) {
+                forbidden.get(v).addAll(addressing);
+            }
+        }
+        if (candidates.contains(def)) {
+            // 地址寄存器中可能还保存着之前装入的下标，结果也不能写入其中
+            forbidden.get(def).addAll(EnumSet.of(Register.SI, Register.BX));
+        }
+        if (q.kindOfResult() == OperandKind.ARRAY_ELEMENT && candidates.contains(Quads.arrayIndex(q.result))) {
+            forbidden.get(Quads.arrayIndex(q.result)).addAll(clobbered);
+        }
+    }
+
+    /**
+     * 四元式访问数组元素时改写的地址寄存器：有变量下标时用 SI，
+     * 读取的两个数组元素下标不同时第二个用 BX；写入的数组元素在读取完成之后计算地址，仍用 SI
+     */
+    public static EnumSet<Register> addressRegisters(Quadruple q) {
+        EnumSet<Register> registers = EnumSet.noneOf(Register.class);
+        if ("param".equals(q.op)) {
+            return registers;
+        }
+        Set<String> loaded = new HashSet<>();
+        for (String operand : new String[]{q.arg1, q.arg2}) {
+            if (indexedByVariable(operand)) {
+                loaded.add(Quads.arrayIndex(operand));
+            }
+        }
+        if (!loaded.isEmpty() || indexedByVariable(q.result)) {
+            registers.add(Register.SI);
+        }
+        if (loaded.size() > 1) {
+            registers.add(Register.BX);
+        }
+        return registers;
+    }
+
+    private static boolean indexedByVariable(String operand) {
+        return Quads.isArrayElement(operand) && OperandKind.of(Quads.arrayIndex(operand)) != OperandKind.INT;
+    }
+
+    /**
+     * 四元式生成的指令序列改写的寄存器
+     */
+    public static EnumSet<Register> clobbers(Quadruple q) {
+        EnumSet<Register> registers = switch (q.op) {
+            // 实参在调用时才传递，调用前后由调用者保存仍然活跃的寄存器，只有放返回值的 AX 会被改写
+            case "+", "-", "=", "return", "call" -> EnumSet.of(Register.AX);
+            // 立即数乘数、除数先装入 BX
+            case "*", "/" -> q.kindOfArg2().isLiteral()
+                    ? EnumSet.of(Register.AX, Register.BX, Register.DX)
+                    : EnumSet.of(Register.AX, Register.DX);
+            case "<<", ">>" -> EnumSet.of(Register.AX, Register.CX);
+            case "tailcall" -> EnumSet.allOf(Register.class);
+            default -> Quads.isConditionalBranch(q) ? EnumSet.of(Register.AX) : EnumSet.noneOf(Register.class);
+        };
+        registers.addAll(addressRegisters(q));
+        return registers;
+    }
+}
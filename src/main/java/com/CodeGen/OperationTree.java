@@ -0,0 +1,69 @@
+package com.CodeGen;
+
+import com.Parser.Quadruple.OperandKind;
+
+import java.util.EnumSet;
+
+/**
+ * 指令选择的输入：一个四元式对应的运算树 (op 左 右) -> 结果
+ * 叶子是已经确定位置的汇编操作数，分为寄存器、立即数和内存（栈帧槽位、全局变量、数组元素）三类；
+ * 赋值的右子树为空。结果是数组元素时由调用者在 AX 中取结果再写入
+ */
+public class OperationTree {
+    public final String op;
+    public final String left;
+    public final String right;
+    public final String result;
+    // 指令序列除结果外可以改写的寄存器，见 LiveRanges#clobbers
+    public final EnumSet<Register> scratch;
+
+    public OperationTree(String op, String left, String right, String result, EnumSet<Register> scratch) {
+        this.op = op;
+        this.left = left;
+        this.right = right;
+        this.result = result;
+        this.scratch = scratch;
+    }
+
+    public static boolean isRegister(String operand) {
+        return switch (operand) {
+            case "AX", "BX", "CX", "DX", "SI", "DI" -> true;
+            default -> false;
+        };
+    }
+
+    public static boolean isImmediate(String operand) {
+        return OperandKind.of(operand).isLiteral();
+    }
+
+    public static boolean isMemory(String operand) {
+        return !isRegister(operand) && !isImmediate(operand);
+    }
+
+    /**
+     * 整数立即数的值，其他操作数返回null
+     */
+    public static Integer value(String operand) {
+        if (OperandKind.of(operand) != OperandKind.INT) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(operand);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 运算所在的寄存器：结果在寄存器中时就地运算，否则在 AX 中运算再写回
+     */
+    public String work() {
+        return isRegister(result) ? result : "AX";
+    }
+
+    @Override
+    public String toString() {
+        return right == null ? String.format("(%s %s) -> %s", op, left, result)
+                : String.format("(%s %s %s) -> %s", op, left, right, result);
+    }
+}
@@ -0,0 +1,183 @@
+package com.CodeGen;
+
+import com.Optimizer.IrFunction;
+import com.Optimizer.IrProgram;
+import com.Optimizer.Quads;
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+
+import static java.lang.String.format;
+
+/**
+ * 16位后端共用的栈帧与调用约定
+ * 按函数分配寄存器，其余私有变量按活跃区间分配栈帧槽位（FrameLayout）；
+ * 生成函数入口、出口以及尾调用时覆盖栈上参数的指令，参数按 CallingConvention 传递
+ */
+public class ProgramLayout {
+    // 函数名 -> 该函数中变量的位置（寄存器或栈帧中的内存操作数）
+    private final Map<String, Map<String, String>> locations = new HashMap<>();
+    // 函数名 -> 局部变量区的字节数
+    private final Map<String, Integer> frameSizes = new HashMap<>();
+    // 函数名 -> 寄存器传递的各参数在函数中的位置，参数在入口处不活跃时为null
+    private final Map<String, List<String>> registerParams = new HashMap<>();
+    // 不需要建立BP栈帧的函数：不调用其他函数，没有栈上参数，也没有栈帧槽位
+    private final Set<String> frameless = new HashSet<>();
+    // 调用四元式 -> 调用前后需要保存的寄存器
+    private final Map<Quadruple, List<Register>> savedRegisters = new IdentityHashMap<>();
+    // 只在寄存器或栈帧中、不需要数据段空间的变量
+    public final Set<String> placed = new HashSet<>();
+
+    /**
+     * @param quadruples 四元式列表
+     * @param registerAllocator 寄存器分配器，为null时私有变量都在栈帧中
+     */
+    public ProgramLayout(List<Quadruple> quadruples, RegisterAllocator registerAllocator) {
+        for (IrFunction function : new IrProgram(quadruples).functions) {
+            LiveRanges ranges = new LiveRanges(function);
+            Map<String, Register> registers = registerAllocator == null ? Map.of() : registerAllocator.allocate(ranges);
+            FrameLayout frame = new FrameLayout(ranges, registers);
+            Map<String, String> location = new HashMap<>(frame.slots);
+            registers.forEach((var, register) -> location.put(var, register.name()));
+            locations.put(function.name, location);
+            frameSizes.put(function.name, frame.size);
+            placed.addAll(location.keySet());
+
+            List<String> params = function.params();
+            List<String> targets = new ArrayList<>();
+            for (int i = 0; i < params.size() && CallingConvention.inRegister(i); i++) {
+                // 入口处已死的参数（先赋值再读取）不传送，它的位置可能与其他参数共用
+                targets.add(ranges.liveIn.contains(params.get(i)) ? location.get(params.get(i)) : null);
+            }
+            registerParams.put(function.name, targets);
+
+            boolean leaf = true;
+            for (int p = 0; p < ranges.quads.size(); p++) {
+                Quadruple q = ranges.quads.get(p);
+                if ("call".equals(q.op) || "tailcall".equals(q.op)) {
+                    leaf = false;
+                }
+                if ("call".equals(q.op)) {
+                    List<Register> saved = new ArrayList<>();
+                    for (String v : ranges.liveAfter.get(p)) {
+                        if (!v.equals(q.result) && registers.containsKey(v)) {
+                            saved.add(registers.get(v));
+                        }
+                    }
+                    saved.sort(null);
+                    savedRegisters.put(q, saved);
+                }
+            }
+            if (leaf && frame.size == 0 && params.size() <= CallingConvention.ARG_REGISTERS.size()) {
+                frameless.add(function.name);
+            }
+        }
+        // 同名变量在别处（其他函数或函数之外）以全局变量出现时仍需数据段空间
+        Map<String, String> inFunction = Map.of();
+        for (Quadruple q : quadruples) {
+            if ("FuncStart".equals(q.op)) {
+                inFunction = locations.getOrDefault(q.result, Map.of());
+            }
+            // 函数开始之前也会出现一次形参声明，不算全局变量
+            if ("param_decl".equals(q.op)) {
+                continue;
+            }
+            for (String operand : new String[]{q.arg1, q.arg2, q.result}) {
+                String name = Quads.isArrayElement(operand) ? Quads.arrayIndex(operand) : operand;
+                if (name != null && !inFunction.containsKey(name)) {
+                    placed.remove(name);
+                }
+            }
+            if ("FuncEnd".equals(q.op)) {
+                inFunction = Map.of();
+            }
+        }
+    }
+
+    /**
+     * 函数中变量的位置，不在其中的变量在数据段中
+     */
+    public Map<String, String> locations(String function) {
+        return locations.getOrDefault(function, Map.of());
+    }
+
+    public boolean isFrameless(String function) {
+        return frameless.contains(function);
+    }
+
+    /**
+     * 调用前后需要保存的寄存器
+     */
+    public List<Register> savedRegisters(Quadruple call) {
+        return savedRegisters.getOrDefault(call, List.of());
+    }
+
+    /**
+     * 函数入口：建立栈帧、预留局部变量区，寄存器传递的参数中入口处活跃的移到分配给它们的位置
+     */
+    public void prologue(StringBuilder code, String function) {
+        if (!frameless.contains(function)) {
+            // 保存基指针并建立新栈帧
+            code.append("    PUSH BP\n");
+            code.append("    MOV BP, SP\n");
+
+            // 为局部变量预留栈空间
+            int frameSize = frameSizes.getOrDefault(function, 0);
+            if (frameSize > 0) {
+                code.append(format("    SUB SP, %d\n", frameSize));
+            }
+        }
+        List<String> targets = registerParams.getOrDefault(function, List.of());
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < targets.size(); i++) {
+            sources.add(CallingConvention.ARG_REGISTERS.get(i).name());
+        }
+        parallelMove(code, targets, sources);
+    }
+
+    /**
+     * 恢复栈帧，不含返回或跳转指令
+     * @param frameless 函数是否省略了BP栈帧
+     */
+    public static void epilogue(StringBuilder code, boolean frameless) {
+        if (!frameless) {
+            code.append("    MOV SP, BP\n");
+            code.append("    POP BP\n");
+        }
+    }
+
+    /**
+     * 尾调用：已压栈的 stackCount 个实参依次弹出，覆盖当前函数自己的栈上参数位置，撤销栈帧后直接跳到被调函数，
+     * 被调函数返回时直接回到当前函数的调用者，由调用者按原来的实参个数清理栈
+     */
+    public static void tailCall(StringBuilder code, boolean frameless, int stackCount, String callee) {
+        // 最后压栈的实参在栈顶，对应离BP最近的参数位置
+        for (int k = 0; k < stackCount; k++) {
+            code.append("    POP AX\n");
+            code.append(format("    MOV [BP+%d], AX\n", CallingConvention.ARG_OFFSET + 2 * k));
+        }
+        epilogue(code, frameless);
+        code.append(format("    JMP %s\n", callee));
+    }
+
+    /**
+     * 同时把 sources 中的值传送到 targets（至多两个），目的为null的跳过
+     * 一个传送的目的是另一个传送的源时先做另一个，两者互为源和目的时交换
+     */
+    public static void parallelMove(StringBuilder code, List<String> targets, List<String> sources) {
+        if (targets.size() == 2 && targets.get(0) != null && targets.get(1) != null
+                && targets.get(0).equals(sources.get(1)) && targets.get(1).equals(sources.get(0))) {
+            if (!targets.get(0).equals(targets.get(1))) {
+                code.append(format("    XCHG %s, %s\n", targets.get(0), targets.get(1)));
+            }
+            return;
+        }
+        List<Integer> order = targets.size() == 2 && targets.get(0) != null && targets.get(0).equals(sources.get(1))
+                ? List.of(1, 0) : List.of(0, 1).subList(0, targets.size());
+        for (int i : order) {
+            if (targets.get(i) != null && !targets.get(i).equals(sources.get(i))) {
+                code.append(format("    MOV %s, %s\n", targets.get(i), sources.get(i)));
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.CodeGen;
+
+/**
+ * 可分配给变量的16位通用寄存器，按分配时优先选用的顺序排列
+ * AX 同时是运算的累加器，只有不跨越任何改写 AX 的指令的值才能放在 AX 中
+ */
+public enum Register {
+    AX, BX, SI, DI, CX, DX
+}
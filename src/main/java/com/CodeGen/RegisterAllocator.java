@@ -0,0 +1,15 @@
+package com.CodeGen;
+
+import java.util.Map;
+
+/**
+ * 寄存器分配器：为一个函数的候选变量分配寄存器，未分配的变量留在内存中
+ */
+public interface RegisterAllocator {
+
+    /**
+     * @param ranges 函数的活跃区间与寄存器约束
+     * @return 变量 -> 寄存器
+     */
+    Map<String, Register> allocate(LiveRanges ranges);
+}
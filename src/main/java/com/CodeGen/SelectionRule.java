@@ -0,0 +1,28 @@
+package com.CodeGen;
+
+import java.util.List;
+
+/**
+ * 指令选择规则：一个树模式及其指令模板
+ * 规则只描述能覆盖哪些运算树、生成什么指令，由 InstructionSelector 在所有能覆盖的规则中选代价最小的
+ */
+public interface SelectionRule {
+    /**
+     * 规则名称，用于统计选中次数
+     */
+    String getName();
+
+    /**
+     * 尝试覆盖运算树
+     * @param tree 运算树
+     * @return 指令序列（每条一行，不含缩进），只能改写结果和 tree.scratch 中的寄存器；不匹配时返回null
+     */
+    List<String> cover(OperationTree tree);
+
+    /**
+     * 指令序列的代价，默认按 InstructionCost 估计
+     */
+    default int cost(List<String> instructions) {
+        return InstructionCost.of(instructions);
+    }
+}
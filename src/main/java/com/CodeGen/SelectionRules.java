@@ -0,0 +1,415 @@
+package com.CodeGen;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.CodeGen.OperationTree.isImmediate;
+import static com.CodeGen.OperationTree.isMemory;
+import static com.CodeGen.OperationTree.isRegister;
+import static com.CodeGen.OperationTree.value;
+
+/**
+ * 内置的指令选择规则，代价相同时排在前面的规则优先
+ */
+public final class SelectionRules {
+    private SelectionRules() {
+    }
+
+    /**
+     * 默认规则集
+     */
+    public static List<SelectionRule> defaults() {
+        return List.of(
+                new Accumulator(),
+                new TwoAddress(),
+                new ReverseOperands(),
+                new IncrementDecrement(),
+                new MemoryInPlace(),
+                new LoadEffectiveAddress(),
+                new ShiftMultiply(),
+                new ShiftDivide(),
+                new ConstantShift(),
+                new Move(),
+                new ZeroRegister()
+        );
+    }
+
+    /**
+     * (op a b) -> r：在 AX 中运算再写回，覆盖所有算术运算
+     * 乘除法的立即数先装入 BX，除法先用 CWD 扩展符号位，移位次数装入 CL
+     */
+    public static class Accumulator implements SelectionRule {
+        @Override
+        public String getName() {
+            return "accumulator";
+        }
+
+        @Override
+        public List<String> cover(OperationTree tree) {
+            List<String> code = new ArrayList<>();
+            move(code, "AX", tree.left);
+            switch (tree.op) {
+                case "+" -> code.add("ADD AX, " + tree.right);
+                case "-" -> code.add("SUB AX, " + tree.right);
+                case "*", "/" -> {
+                    String operand = word(tree.right);
+                    if (isImmediate(tree.right)) {
+                        if (!tree.scratch.contains(Register.BX)) {
+                            return null;
+                        }
+                        code.add("MOV BX, " + tree.right);
+                        operand = "BX";
+                    }
+                    if ("/".equals(tree.op)) {
+                        code.add("CWD");
+                    }
+                    code.add(("*".equals(tree.op) ? "MUL " : "IDIV ") + operand);
+                }
+                case "<<", ">>" -> {
+                    // 8086 只支持移1位或按 CL 移位
+                    if (!tree.scratch.contains(Register.CX)) {
+                        return null;
+                    }
+                    move(code, "CX", tree.right);
+                    code.add(("<<".equals(tree.op) ? "SHL" : "SAR") + " AX, CL");
+                }
+                default -> {
+                    return null;
+                }
+            }
+            move(code, tree.result, "AX");
+            return code;
+        }
+    }
+
+    /**
+     * (+|- a b) -> R：两地址形式，在结果寄存器上运算，b 可以是寄存器、内存或立即数
+     * 先写 R 再读 b，要求 R 不是 b
+     */
+    public static class TwoAddress implements SelectionRule {
+        @Override
+        public String getName() {
+            return "two-address";
+        }
+
+        @Override
+        public List<String> cover(OperationTree tree) {
+            if (!isAdditive(tree) || !isRegister(tree.result)
+                    || (tree.result.equals(tree.right) && !tree.left.equals(tree.right))) {
+                return null;
+            }
+            List<String> code = new ArrayList<>();
+            move(code, tree.result, tree.left);
+            code.add(additive(tree) + " " + tree.result + ", " + tree.right);
+            return code;
+        }
+    }
+
+    /**
+     * (+ a R) -> R：交换两侧；(- a R) -> R：先取负再加左操作数
+     */
+    public static class ReverseOperands implements SelectionRule {
+        @Override
+        public String getName() {
+            return "reverse-operands";
+        }
+
+        @Override
+        public List<String> cover(OperationTree tree) {
+            if (!isAdditive(tree) || !isRegister(tree.result)
+                    || !tree.result.equals(tree.right) || tree.left.equals(tree.right)) {
+                return null;
+            }
+            List<String> code = new ArrayList<>();
+            if ("-".equals(tree.op)) {
+                code.add("NEG " + tree.result);
+            }
+            code.add("ADD " + tree.result + ", " + tree.left);
+            return code;
+        }
+    }
+
+    /**
+     * (+|- a ±1) -> r：INC/DEC，结果就是 a 所在的内存时直接改写内存
+     */
+    public static class IncrementDecrement implements SelectionRule {
+        @Override
+        public String getName() {
+            return "inc-dec";
+        }
+
+        @Override
+        public List<String> cover(OperationTree tree) {
+            if (!isAdditive(tree)) {
+                return null;
+            }
+            Integer right = value(tree.right);
+            Integer left = value(tree.left);
+            String base;
+            int delta;
+            if (right != null && Math.abs(right) == 1) {
+                base = tree.left;
+                delta = "+".equals(tree.op) ? right : -right;
+            } else if ("+".equals(tree.op) && left != null && Math.abs(left) == 1) {
+                base = tree.right;
+                delta = left;
+            } else {
+                return null;
+            }
+            String instruction = delta > 0 ? "INC" : "DEC";
+            if (isMemory(tree.result) && tree.result.equals(base)) {
+                return List.of(instruction + " " + word(tree.result));
+            }
+            String work = tree.work();
+            List<String> code = new ArrayList<>();
+            move(code, work, base);
+            code.add(instruction + " " + work);
+            move(code, tree.result, work);
+            return code;
+        }
+    }
+
+    /**
+     * (+|- M b) -> M：结果与左操作数是同一内存，b 是寄存器或立即数时直接改写内存（加法两侧可交换）
+     */
+    public static class MemoryInPlace implements SelectionRule {
+        @Override
+        public String getName() {
+            return "memory-in-place";
+        }
+
+        @Override
+        public List<String> cover(OperationTree tree) {
+            if (!isAdditive(tree) || !isMemory(tree.result)) {
+                return null;
+            }
+            String other;
+            if (tree.result.equals(tree.left)) {
+                other = tree.right;
+            } else if ("+".equals(tree.op) && tree.result.equals(tree.right)) {
+                other = tree.left;
+            } else {
+                return null;
+            }
+            if (isMemory(other)) {
+                return null;
+            }
+            return List.of(additive(tree) + " " + word(tree.result) + ", " + other);
+        }
+    }
+
+    /**
+     * (+ B I) -> R、(+|- B c) -> R：用 LEA R, [B+I] / [B±c] 一条指令完成三地址加法
+     * B、I 是可以作基址或变址的寄存器（BX、SI、DI，两个寄存器时一个是 BX）
+     */
+    public static class LoadEffectiveAddress implements SelectionRule {
+        @Override
+        public String getName() {
+            return "lea";
+        }
+
+        @Override
+        public List<String> cover(OperationTree tree) {
+            if (!isAdditive(tree) || !isRegister(tree.result)) {
+                return null;
+            }
+            Integer right = value(tree.right);
+            Integer left = value(tree.left);
+            String address;
+            if (right != null && isAddressRegister(tree.left)) {
+                address = String.format("[%s%+d]", tree.left, "+".equals(tree.op) ? right : -right);
+            } else if ("+".equals(tree.op) && left != null && isAddressRegister(tree.right)) {
+                address = String.format("[%s%+d]", tree.right, left);
+            } else if ("+".equals(tree.op) && isAddressRegister(tree.left) && isAddressRegister(tree.right)
+                    && ("BX".equals(tree.left) != "BX".equals(tree.right))) {
+                address = "[" + tree.left + "+" + tree.right + "]";
+            } else {
+                return null;
+            }
+            return List.of("LEA " + tree.result + ", " + address);
+        }
+
+        private static boolean isAddressRegister(String operand) {
+            return "BX".equals(operand) || "SI".equals(operand) || "DI".equals(operand);
+        }
+    }
+
+    /**
+     * (* a 2^k) -> r：左移 k 位，乘法交换两侧
+     */
+    public static class ShiftMultiply implements SelectionRule {
+        @Override
+        public String getName() {
+            return "shift-multiply";
+        }
+
+        @Override
+        public List<String> cover(OperationTree tree) {
+            if (!"*".equals(tree.op)) {
+                return null;
+            }
+            int k = log2(value(tree.right));
+            String factor = tree.left;
+            if (k <= 0) {
+                k = log2(value(tree.left));
+                factor = tree.right;
+            }
+            if (k <= 0 || k >= 16) {
+                return null;
+            }
+            return shift(tree, factor, "SHL", k);
+        }
+    }
+
+    /**
+     * (/ a 2^k) -> r：带符号除法向零取整，负数先加 2^k-1 再算术右移 k 位
+     * CWD 把符号扩展到 DX（负数为全1），取低 k 位即为修正量
+     */
+    public static class ShiftDivide implements SelectionRule {
+        @Override
+        public String getName() {
+            return "shift-divide";
+        }
+
+        @Override
+        public List<String> cover(OperationTree tree) {
+            int k = "/".equals(tree.op) ? log2(value(tree.right)) : -1;
+            if (k <= 0 || k >= 16 || !tree.scratch.contains(Register.DX)) {
+                return null;
+            }
+            List<String> code = new ArrayList<>();
+            move(code, "AX", tree.left);
+            code.add("CWD");
+            if (k == 1) {
+                code.add("SUB AX, DX");
+            } else {
+                code.add("AND DX, " + ((1 << k) - 1));
+                code.add("ADD AX, DX");
+            }
+            for (int i = 0; i < k; i++) {
+                code.add("SAR AX, 1");
+            }
+            move(code, tree.result, "AX");
+            return code;
+        }
+    }
+
+    /**
+     * (<<|>> a n) -> r：移位次数是常数时逐位移位，不占用 CL
+     */
+    public static class ConstantShift implements SelectionRule {
+        @Override
+        public String getName() {
+            return "constant-shift";
+        }
+
+        @Override
+        public List<String> cover(OperationTree tree) {
+            if (!"<<".equals(tree.op) && !">>".equals(tree.op)) {
+                return null;
+            }
+            Integer n = value(tree.right);
+            if (n == null || n < 0 || n >= 16) {
+                return null;
+            }
+            return shift(tree, tree.left, "<<".equals(tree.op) ? "SHL" : "SAR", n);
+        }
+    }
+
+    /**
+     * (= a) -> r：传送，两侧都在内存时经过 AX
+     */
+    public static class Move implements SelectionRule {
+        @Override
+        public String getName() {
+            return "move";
+        }
+
+        @Override
+        public List<String> cover(OperationTree tree) {
+            if (!"=".equals(tree.op)) {
+                return null;
+            }
+            List<String> code = new ArrayList<>();
+            if (isMemory(tree.result) && isMemory(tree.left)) {
+                if (!tree.scratch.contains(Register.AX)) {
+                    return null;
+                }
+                code.add("MOV AX, " + tree.left);
+                code.add("MOV " + tree.result + ", AX");
+                return code;
+            }
+            move(code, tree.result, tree.left);
+            return code;
+        }
+    }
+
+    /**
+     * (= 0) -> R、(- a a) -> R、(* a 0) -> R：XOR R, R 清零
+     */
+    public static class ZeroRegister implements SelectionRule {
+        @Override
+        public String getName() {
+            return "zero";
+        }
+
+        @Override
+        public List<String> cover(OperationTree tree) {
+            if (!isRegister(tree.result)) {
+                return null;
+            }
+            boolean zero = switch (tree.op) {
+                case "=" -> Integer.valueOf(0).equals(value(tree.left));
+                case "-" -> tree.left.equals(tree.right);
+                case "*" -> Integer.valueOf(0).equals(value(tree.left)) || Integer.valueOf(0).equals(value(tree.right));
+                default -> false;
+            };
+            return zero ? List.of("XOR " + tree.result + ", " + tree.result) : null;
+        }
+    }
+
+    private static boolean isAdditive(OperationTree tree) {
+        return "+".equals(tree.op) || "-".equals(tree.op);
+    }
+
+    private static String additive(OperationTree tree) {
+        return "+".equals(tree.op) ? "ADD" : "SUB";
+    }
+
+    /**
+     * 在运算寄存器中逐位移位 n 次再写回结果
+     */
+    private static List<String> shift(OperationTree tree, String operand, String instruction, int n) {
+        String work = tree.work();
+        List<String> code = new ArrayList<>();
+        move(code, work, operand);
+        for (int i = 0; i < n; i++) {
+            code.add(instruction + " " + work + ", 1");
+        }
+        move(code, tree.result, work);
+        return code;
+    }
+
+    /**
+     * 2 的幂的指数，其他值返回 -1
+     */
+    private static int log2(Integer value) {
+        return value != null && value > 0 && (value & (value - 1)) == 0 ? Integer.numberOfTrailingZeros(value) : -1;
+    }
+
+    /**
+     * 生成传送指令，源与目的相同时省略
+     */
+    private static void move(List<String> code, String dst, String src) {
+        if (!dst.equals(src)) {
+            code.add("MOV " + dst + ", " + src);
+        }
+    }
+
+    /**
+     * 没有寄存器操作数确定大小时给内存操作数加上 WORD PTR
+     */
+    private static String word(String operand) {
+        return isRegister(operand) || isImmediate(operand) || operand.startsWith("WORD PTR ") ? operand : "WORD PTR " + operand;
+    }
+}
@@ -1,5 +1,500 @@
-package com.CodeGen;
-
-public class SingleRegisterCodeGenerator {
-    
-}
+package com.CodeGen;
+
+import com.Optimizer.*;
+import com.Parser.Quadruple.OperandKind;
+import com.Parser.Quadruple.Quadruple;
+import com.Parser.Quadruple.SymbolTable;
+import lombok.Getter;
+
+import java.util.*;
+
+import static java.lang.String.format;
+
+/**
+ * 单寄存器（累加器）目标代码生成器
+ * 生成与 AssemblyGenerator 相同的16位汇编程序，但用累加器描述符记录 AX 当前等于哪些变量或常量的值：
+ * 1. AX 中已经是所需的值时不再从内存读取，作为第二个操作数时直接用 AX
+ * 2. 运算结果先只留在 AX 中并标记为未写回，直到 AX 另作他用、基本块结束、跳转或调用之前才写回内存
+ * 3. 写回时按活跃变量分析跳过之后不再读取的函数私有变量和临时变量
+ * 栈帧与调用约定和 AssemblyGenerator 相同（ProgramLayout）：私有变量在BP栈帧中，前两个实参通过 CX、DX 传递，其余压栈；
+ * 寄存器中不跨调用保存任何值，调用前后不再保存、恢复 AX、BX、CX、DX
+ * 数组元素用 SI 寻址，SI 中的下标在之后按同一下标访问时复用
+ */
+public class SingleRegisterCodeGenerator implements CodeGenerator {
+    private final StringBuilder assemblyCode = new StringBuilder();
+    // 数据段中的变量，按首次出现的顺序
+    private final Set<String> variables = new LinkedHashSet<>();
+    // 数组名 -> 元素个数
+    private final Map<String, Integer> arrays = new LinkedHashMap<>();
+    private final Set<String> functionNames = new HashSet<>();
+    // 控制流标签计数器
+    private int controlLabels = 0;
+    // 当前处理的函数名
+    private String currentFunction = "main";
+    // 各函数的栈帧槽位与调用约定
+    private ProgramLayout layout;
+    // 当前函数中私有变量在栈帧中的位置
+    private Map<String, String> current = Map.of();
+    // 当前函数是否省略了BP栈帧
+    private boolean currentFrameless = false;
+    // 当前调用已经出现、尚未传递的实参；param 四元式紧接在 call 之前，实参在调用时一并传递
+    private final List<String> pendingArguments = new ArrayList<>();
+    @Getter
+    private final SymbolTable symbolTable;
+
+    // 累加器描述符：AX 当前的值等于这些变量或常量的值
+    private final Set<String> held = new HashSet<>();
+    // 其中值只在 AX 中、内存尚未更新的变量
+    private final Set<String> dirty = new LinkedHashSet<>();
+    // 函数名 -> 函数私有变量（参数、局部变量和临时变量）
+    private final Map<String, Set<String>> functionLocals = new HashMap<>();
+    // 当前函数的私有变量
+    private Set<String> locals = Set.of();
+    // 每条函数体四元式执行前后活跃的私有变量
+    private final Map<Quadruple, Set<String>> live = new IdentityHashMap<>();
+    // 每条函数体四元式执行之后活跃的私有变量
+    private final Map<Quadruple, Set<String>> liveOut = new IdentityHashMap<>();
+    // SI 中保存的数组下标（SI = 下标×2 − addressDisplacement），没有时为null
+    private String addressIndex = null;
+    private int addressDisplacement = 0;
+
+    public SingleRegisterCodeGenerator() {
+        this(new SymbolTable());
+    }
+
+    /**
+     * @param symbolTable 与调用方共用的符号表，已由同一四元式列表构建过时不再重复构建
+     */
+    public SingleRegisterCodeGenerator(SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
+
+    @Override
+    public void generateAssembly(List<Quadruple> quadruples) {
+        symbolTable.buildFromQuadruples(quadruples);
+
+        for (Quadruple q : quadruples) {
+            if ("FuncStart".equals(q.op) && q.result != null) {
+                functionNames.add(q.result);
+            }
+        }
+        if (!functionNames.contains("main")) {
+            throw new RuntimeException("Error: required main function");
+        }
+        for (Quadruple q : quadruples) {
+            collect(q);
+        }
+        analyze(quadruples);
+        // 只有累加器参与分配，私有变量都在栈帧中
+        layout = new ProgramLayout(quadruples, null);
+
+        assemblyCode.append(".MODEL SMALL\n");
+        assemblyCode.append(".STACK 100h\n");
+        assemblyCode.append(".DATA\n");
+        arrays.forEach((name, size) -> assemblyCode.append(format("    %s DW %d DUP(?)\n", name, size)));
+        for (String var : variables) {
+            if (!arrays.containsKey(var) && !layout.placed.contains(var)) {
+                assemblyCode.append(format("    %s DW ?\n", var));
+            }
+        }
+        assemblyCode.append(".CODE\n");
+        assemblyCode.append("_start:\n");
+        assemblyCode.append("    MOV AX, @DATA\n");
+        assemblyCode.append("    MOV DS, AX\n");
+        assemblyCode.append("    CALL main\n");
+        assemblyCode.append("    MOV AX, 4C00H\n");
+        assemblyCode.append("    INT 21H\n\n");
+
+        for (Quadruple q : quadruples) {
+            switch (q.op) {
+                case "=" -> generateAssignment(q);
+                case "+", "-", "*", "/", "<<", ">>" -> generateArithmetic(q);
+                case "j==", "j!=", "j<", "j<=", "j>", "j>=" -> generateConditional(q);
+                case "goto" -> {
+                    flush(q);
+                    forget();
+                    assemblyCode.append(format("    JMP %s\n", q.result));
+                }
+                case "label" -> {
+                    // 可能从别处跳转到这里，AX 的值不再确定
+                    flush(q);
+                    forget();
+                    assemblyCode.append(format("%s:\n", q.result));
+                }
+                case "el", "ie", "we", "wh" -> assemblyCode.append(format("%s_%d:\n", q.op.toUpperCase(), controlLabels++));
+                case "FuncStart" -> generateFunctionStart(q);
+                case "FuncEnd" -> generateFunctionEnd();
+                case "param" -> pendingArguments.add(q.arg1);
+                case "call" -> generateFunctionCall(q);
+                case "tailcall" -> generateTailCall(q);
+                case "return" -> generateReturnStatement(q);
+                case "var_decl", "param_decl", "FuncDef", "ARRAY_DECL" -> {
+                }
+                default -> throw new RuntimeException("Unsupported operation: " + q.op);
+            }
+            updateAddressIndex(q);
+        }
+        assemblyCode.append("END _start\n");
+    }
+
+    /**
+     * 收集数据段中的变量和数组，标签、函数名和寄存器名除外
+     */
+    private void collect(Quadruple q) {
+        switch (q.op) {
+            case "label", "goto" -> {
+            }
+            case "ARRAY_DECL" -> arrays.merge(q.arg1, Integer.parseInt(q.arg2), Math::max);
+            case "j==", "j!=", "j<", "j<=", "j>", "j>=" -> {
+                collect(q.arg1, q.kindOfArg1());
+                collect(q.arg2, q.kindOfArg2());
+            }
+            case "var_decl", "param_decl", "FuncDef" -> collect(q.result, q.kindOfResult());
+            default -> {
+                collect(q.arg1, q.kindOfArg1());
+                collect(q.arg2, q.kindOfArg2());
+                collect(q.result, q.kindOfResult());
+            }
+        }
+    }
+
+    private void collect(String name, OperandKind kind) {
+        if (kind == OperandKind.ARRAY_ELEMENT) {
+            String index = Quads.arrayIndex(name);
+            collect(index, OperandKind.of(index));
+            return;
+        }
+        if (kind.isVariable() && !functionNames.contains(name) && !isReserved(name)) {
+            variables.add(name);
+        }
+    }
+
+    private static boolean isReserved(String name) {
+        return switch (name.toUpperCase()) {
+            case "AX", "BX", "CX", "DX" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * 对每个函数做活跃变量分析，记录每条四元式执行前后活跃的私有变量
+     */
+    private void analyze(List<Quadruple> quadruples) {
+        IrProgram program = new IrProgram(quadruples);
+        for (IrFunction function : program.functions) {
+            Set<String> tracked = function.locals();
+            functionLocals.put(function.name, tracked);
+            ControlFlowGraph cfg = ControlFlowGraph.build(function.body);
+            Liveness liveness = new Liveness(cfg, tracked);
+            for (BasicBlock b : cfg.blocks) {
+                List<Set<String>> after = liveness.liveAfter(b);
+                for (int i = 0; i < b.quads.size(); i++) {
+                    Set<String> around = new HashSet<>(after.get(i));
+                    liveness.step(b.quads.get(i), around);
+                    around.addAll(after.get(i));
+                    live.put(b.quads.get(i), around);
+                    liveOut.put(b.quads.get(i), after.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * 使 AX 等于 value：已在 AX 中时不生成指令，否则先写回再从内存或立即数读取
+     */
+    private void load(String value, Quadruple at) {
+        if (held.contains(value)) {
+            return;
+        }
+        modify(at);
+        assemblyCode.append(format("    MOV AX, %s\n", toOperand(value)));
+        if (OperandKind.of(value) != OperandKind.ARRAY_ELEMENT) {
+            held.add(value);
+        }
+    }
+
+    /**
+     * AX 即将被改写：未写回的变量先写回，描述符清空
+     */
+    private void modify(Quadruple at) {
+        flush(at);
+        held.clear();
+    }
+
+    /**
+     * 操作数都已取到，AX 即将被 q 的结果改写：只写回 q 之后还会读取的变量，
+     * 被 q 重新定义的变量旧值不再需要，也不写回
+     */
+    private void overwrite(Quadruple q) {
+        String def = Quads.def(q);
+        Set<String> after = liveOut.get(q);
+        for (String var : dirty) {
+            if (!var.equals(def) && (!locals.contains(var) || after == null || after.contains(var))) {
+                assemblyCode.append(format("    MOV %s, AX\n", toOperand(var)));
+            }
+        }
+        dirty.clear();
+        held.clear();
+    }
+
+    /**
+     * AX 中的新值属于 result：数组元素立即写回，变量先只记入描述符
+     */
+    private void define(String result, Quadruple at) {
+        if (OperandKind.of(result) == OperandKind.ARRAY_ELEMENT) {
+            flush(at);
+            assemblyCode.append(format("    MOV %s, AX\n", toOperand(result)));
+            return;
+        }
+        held.add(result);
+        dirty.add(result);
+    }
+
+    /**
+     * 写回 AX 中尚未写回、之后还可能读取的变量
+     */
+    private void flush(Quadruple at) {
+        Set<String> around = live.get(at);
+        for (String var : dirty) {
+            if (!locals.contains(var) || around == null || around.contains(var)) {
+                assemblyCode.append(format("    MOV %s, AX\n", toOperand(var)));
+            }
+        }
+        dirty.clear();
+    }
+
+    /**
+     * 离开函数前只需写回全局变量，私有变量随函数结束失效
+     */
+    private void flushOnExit() {
+        for (String var : dirty) {
+            if (!locals.contains(var)) {
+                assemblyCode.append(format("    MOV %s, AX\n", toOperand(var)));
+            }
+        }
+        dirty.clear();
+    }
+
+    private void forget() {
+        held.clear();
+        dirty.clear();
+    }
+
+    /**
+     * 第二个操作数：值已在 AX 中时直接用 AX（内存中的值可能尚未写回）
+     */
+    private String source(String value) {
+        return held.contains(value) ? "AX" : toOperand(value);
+    }
+
+    private void generateAssignment(Quadruple q) {
+        load(q.arg1, q);
+        define(q.result, q);
+    }
+
+    private void generateArithmetic(Quadruple q) {
+        String a = q.arg1;
+        String b = q.arg2;
+        // 满足交换律的运算，右操作数已在 AX 中时交换两侧
+        if (("+".equals(q.op) || "*".equals(q.op)) && held.contains(b) && !held.contains(a)) {
+            a = q.arg2;
+            b = q.arg1;
+        }
+        load(a, q);
+        String op2 = source(b);
+        overwrite(q);
+        switch (q.op) {
+            case "+" -> assemblyCode.append(format("    ADD AX, %s\n", op2));
+            case "-" -> assemblyCode.append(format("    SUB AX, %s\n", op2));
+            case "*" -> {
+                assemblyCode.append(format("    MOV BX, %s\n", op2));
+                assemblyCode.append("    MUL BX\n");
+            }
+            case "/" -> {
+                assemblyCode.append(format("    MOV BX, %s\n", op2));
+                assemblyCode.append("    CWD\n");
+                assemblyCode.append("    IDIV BX\n");
+            }
+            case "<<" -> {
+                // 8086 只支持移1位或按 CL 移位
+                assemblyCode.append(format("    MOV CX, %s\n", op2));
+                assemblyCode.append("    SHL AX, CL\n");
+            }
+            case ">>" -> {
+                assemblyCode.append(format("    MOV CX, %s\n", op2));
+                assemblyCode.append("    SAR AX, CL\n");
+            }
+        }
+        define(q.result, q);
+    }
+
+    /**
+     * 条件跳转：右操作数已在 AX 中时交换两侧并对调关系，跳转前写回
+     */
+    private void generateConditional(Quadruple q) {
+        String a = q.arg1;
+        String b = q.arg2;
+        String relation = Quads.relation(q);
+        if (held.contains(b) && !held.contains(a)) {
+            a = q.arg2;
+            b = q.arg1;
+            relation = Quads.mirror(relation);
+        }
+        load(a, q);
+        String op2 = source(b);
+        flush(q);
+        assemblyCode.append(format("    CMP AX, %s\n", op2));
+        String jump = switch (relation) {
+            case "==" -> "JE";
+            case "!=" -> "JNE";
+            case "<" -> "JL";
+            case "<=" -> "JLE";
+            case ">" -> "JG";
+            default -> "JGE";
+        };
+        assemblyCode.append(format("    %s %s\n", jump, q.result));
+    }
+
+    private void generateFunctionStart(Quadruple q) {
+        forget();
+        currentFunction = q.result.toLowerCase();
+        locals = functionLocals.getOrDefault(q.result, Set.of());
+        current = layout.locations(q.result);
+        currentFrameless = layout.isFrameless(q.result);
+        assemblyCode.append(format("%s PROC\n", currentFunction));
+        // 建立栈帧，CX、DX 传来的参数写入各自的槽位
+        layout.prologue(assemblyCode, q.result);
+    }
+
+    private void generateFunctionEnd() {
+        flushOnExit();
+        forget();
+        ProgramLayout.epilogue(assemblyCode, currentFrameless);
+        assemblyCode.append("    RET\n");
+        assemblyCode.append(format("%s ENDP\n\n", currentFunction));
+        current = Map.of();
+    }
+
+    private void generateReturnStatement(Quadruple q) {
+        if (!"_".equals(q.arg1)) {
+            load(q.arg1, q);
+        }
+        flushOnExit();
+        forget();
+        ProgramLayout.epilogue(assemblyCode, currentFrameless);
+        assemblyCode.append("    RET\n");
+    }
+
+    /**
+     * 按调用约定传递已记录的实参：先从左到右压入栈上实参，再把前两个实参传送到 CX、DX
+     * 实参的值可能只在 AX 中，传递过程中不改写 AX
+     * @return 压栈的实参个数
+     */
+    private int passArguments() {
+        int registerCount = Math.min(pendingArguments.size(), CallingConvention.ARG_REGISTERS.size());
+        for (int i = registerCount; i < pendingArguments.size(); i++) {
+            String operand = source(pendingArguments.get(i));
+            if (OperandKind.of(pendingArguments.get(i)).isLiteral()) {
+                // 8086 不能直接压入立即数，经 BX 中转
+                assemblyCode.append(format("    MOV BX, %s\n", operand));
+                operand = "BX";
+            }
+            assemblyCode.append(format("    PUSH %s\n", operand));
+        }
+        List<String> targets = new ArrayList<>();
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < registerCount; i++) {
+            targets.add(CallingConvention.ARG_REGISTERS.get(i).name());
+            sources.add(source(pendingArguments.get(i)));
+        }
+        ProgramLayout.parallelMove(assemblyCode, targets, sources);
+        int stackCount = pendingArguments.size() - registerCount;
+        pendingArguments.clear();
+        return stackCount;
+    }
+
+    /**
+     * 调用前写回，被调函数可能读写任何全局变量；返回值在 AX 中，同样延后写回
+     */
+    private void generateFunctionCall(Quadruple q) {
+        flush(q);
+        int stackCount = passArguments();
+        held.clear();
+        assemblyCode.append(format("    CALL %s\n", q.arg1.toLowerCase()));
+        if (stackCount > 0) {
+            assemblyCode.append(format("    ADD SP, %d\n", stackCount * 2));
+        }
+        if (!"_".equals(q.result)) {
+            define(q.result, q);
+        }
+    }
+
+    /**
+     * 尾调用：复用当前栈帧，已压栈的实参覆盖当前函数自己的栈上参数位置后直接跳到被调函数
+     */
+    private void generateTailCall(Quadruple q) {
+        flushOnExit();
+        int stackCount = passArguments();
+        forget();
+        ProgramLayout.tailCall(assemblyCode, currentFrameless, stackCount, q.arg1.toLowerCase());
+    }
+
+    private String toOperand(String value) {
+        if (value == null) {
+            return "0";
+        }
+        return Quads.isArrayElement(value) ? element(value) : current.getOrDefault(value, value);
+    }
+
+    /**
+     * 数组元素的内存操作数：常量下标折叠为位移，变量下标乘2后装入 SI，SI 中已是该下标时直接复用
+     */
+    private String element(String value) {
+        String array = Quads.arrayName(value);
+        String index = Quads.arrayIndex(value);
+        if (OperandKind.of(index) == OperandKind.INT) {
+            return format("%s[%d]", array, 2 * Integer.parseInt(index));
+        }
+        if (!index.equals(addressIndex)) {
+            // 下标的值可能只在 AX 中
+            assemblyCode.append(format("    MOV SI, %s\n", source(index)));
+            assemblyCode.append("    SHL SI, 1\n");
+            addressIndex = index;
+            addressDisplacement = 0;
+        }
+        return addressDisplacement == 0 ? format("%s[SI]", array) : format("%s[SI%+d]", array, addressDisplacement);
+    }
+
+    /**
+     * 经过标签和调用之后 SI 不再确定；下标被重新定义时失效，下标自身加减常数时只调整位移
+     */
+    private void updateAddressIndex(Quadruple q) {
+        switch (q.op) {
+            case "label", "FuncStart", "FuncEnd", "call", "tailcall" -> addressIndex = null;
+            default -> {
+                if (addressIndex == null || !addressIndex.equals(Quads.def(q))) {
+                    return;
+                }
+                if (("+".equals(q.op) || "-".equals(q.op)) && addressIndex.equals(q.arg1) && OperandKind.of(q.arg2) == OperandKind.INT) {
+                    int step = 2 * Integer.parseInt(q.arg2);
+                    addressDisplacement += "+".equals(q.op) ? step : -step;
+                } else {
+                    addressIndex = null;
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getAssemblyCode() {
+        return assemblyCode.toString();
+    }
+
+    @Override
+    public String show() {
+        for (String line : assemblyCode.toString().split("\n")) {
+            System.out.println(line);
+        }
+        return assemblyCode.toString();
+    }
+}
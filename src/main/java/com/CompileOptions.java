@@ -0,0 +1,48 @@
+package com;
+
+import com.CodeGen.AllocatorKind;
+import com.CodeGen.Backend;
+import com.Optimizer.LoopUnrolling;
+import com.Optimizer.OptLevel;
+import lombok.*;
+
+import java.util.Set;
+
+/**
+ * 编译选项
+ * 默认 -O0、不禁用优化遍、不做性能剖析、生成 MASM 汇编，循环展开使用 LoopUnrolling 的默认参数
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class CompileOptions {
+    // 优化级别
+    @Builder.Default
+    private OptLevel level = OptLevel.O0;
+
+    // 禁用的优化遍名称
+    @Builder.Default
+    private Set<String> disabledPasses = Set.of();
+
+    // 是否在结果中附带各阶段的性能剖析
+    private boolean profiling;
+
+    // 目标代码生成器
+    @Builder.Default
+    private Backend backend = Backend.MASM;
+
+    // 寄存器分配器，为null时 -O0 不分配寄存器，其余级别用线性扫描
+    private AllocatorKind allocator;
+
+    // 循环展开（-O2）：完全展开允许的最大迭代次数
+    @Builder.Default
+    private int unrollMaxTrips = LoopUnrolling.DEFAULT_MAX_FULL_TRIPS;
+
+    // 循环展开（-O2）：每个循环展开后允许增加的四元式条数
+    @Builder.Default
+    private int unrollMaxGrowth = LoopUnrolling.DEFAULT_MAX_GROWTH;
+
+    // 循环展开（-O2）：部分展开的展开因子，小于2时不做部分展开
+    @Builder.Default
+    private int unrollFactor = LoopUnrolling.DEFAULT_FACTOR;
+}
@@ -1,11 +1,17 @@
 package com;
 
 import cn.hutool.core.util.StrUtil;
+import com.CodeGen.CodeGenerator;
+import com.CodeGen.AllocatorKind;
 import com.Lexer.Lexer;
 import com.Lexer.Token;
-import com.Parser.Quadruple.AssemblyGenerator;
+import com.Optimizer.IrOptimizer;
+import com.Optimizer.LoopUnrolling;
+import com.Optimizer.OptLevel;
 import com.Parser.Quadruple.Quadruple;
+import com.Parser.Quadruple.SymbolTable;
 import com.Parser.RecursiveParser;
+import com.Profile.CompileProfile;
 import com.Rest.Result;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -13,12 +19,28 @@ import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 // Main.java
 @SpringBootApplication(exclude = {DataSourceAutoConfiguration.class})
 public class Main {
     static public Result Solve(String s) {
+        return Solve(s, CompileOptions.builder().build());
+    }
+
+    /**
+     * 编译源程序
+     * @param s 源程序
+     * @param options 优化级别、禁用的优化遍、循环展开参数、性能剖析、目标代码生成器与寄存器分配器
+     */
+    static public Result Solve(String s, CompileOptions options) {
+        OptLevel level = options.getLevel();
+        AllocatorKind allocator = options.getAllocator();
+        CompileProfile profile = options.isProfiling() ? new CompileProfile() : null;
+        IrOptimizer optimizer = new IrOptimizer(level, options.getDisabledPasses(),
+                new LoopUnrolling(options.getUnrollMaxTrips(), options.getUnrollMaxGrowth(), options.getUnrollFactor()));
+        optimizer.setProfile(profile);
         // Scanner scan = new Scanner(System.in);
         // 词法分析
         List<Token> tokens = null;
@@ -27,7 +49,7 @@ public class Main {
         try {
 
             Lexer lexer = new Lexer(s);
-            tokens = lexer.analyze();
+            tokens = measure(profile, "lex", lexer::analyze);
 
             String standardTokens = lexer.getStandardTokenSequence();
             // System.out.println(standardTokens);
@@ -39,8 +61,10 @@ public class Main {
             bugFinderMp = lexer.getBugFinderMp();
             parser.setBugFinder(bugFinderMp);
             parser.setSourceCode(s);
+            parser.getGen().setConstantFolding(optimizer.isEnabled(IrOptimizer.GENERATOR_FOLD));
+            parser.getGen().setCommonSubexpressions(optimizer.isEnabled(IrOptimizer.GENERATOR_CSE));
             try {
-                parser.parseProgram();
+                measure(profile, "parse", parser::parseProgram);
                 // assemblyGenerator.generateAssembly();
             } catch (RuntimeException e) {
                 Token errorToken = tokens.get(parser.getPos() == tokens.size() ? tokens.size() - 1 : parser.getPos());
@@ -51,16 +75,30 @@ public class Main {
                 return Result.fail("syntax error" + e.getMessage() + "\n" + errorMessage);
             }
             List<Quadruple> qds = parser.show();
+            int quadCount = qds.size();
 
-            // Generate symbol table
-            com.Parser.Quadruple.SymbolTable symbolTable = new com.Parser.Quadruple.SymbolTable();
-            symbolTable.buildFromQuadruples(qds);
+            // 中间代码优化
+            qds = optimizer.optimize(qds);
+
+            // 符号表与语法分析共用作用域树，只构建一次，与目标代码生成共用
+            SymbolTable symbolTable = new SymbolTable(parser.getGen().getGlobalScope());
+            List<Quadruple> optimized = qds;
+            measure(profile, "symbols", () -> symbolTable.buildFromQuadruples(optimized));
             String symbolTableString = symbolTable.printSymbolTable();
 
             // 目标代码生成
-            AssemblyGenerator asmGen = new AssemblyGenerator();
-            asmGen.generateAssembly(qds);
+            // -O0 默认不分配寄存器，变量都在数据段中
+            AllocatorKind allocatorKind = allocator != null ? allocator
+                    : level == OptLevel.O0 ? AllocatorKind.NONE : AllocatorKind.LINEAR_SCAN;
+            CodeGenerator asmGen = options.getBackend().create(symbolTable, allocatorKind.create());
+            measure(profile, "codegen", () -> asmGen.generateAssembly(optimized));
             String asmCode = asmGen.show();
+            if (profile != null) {
+                profile.setTokenCount(tokens.size());
+                profile.setQuadCount(quadCount);
+                profile.setOptimizedQuadCount(qds.size());
+                profile.setInstructionCount(asmGen.getInstructionCount());
+            }
 
             List<String> rTokens = tokens.stream().map(Token::toString).collect(Collectors.toList());
             List<String> qdsList = qds.stream().map(Quadruple::toString).collect(Collectors.toList());
@@ -73,6 +111,7 @@ public class Main {
             successResult.setSymbolTable(symbolTableString);
             successResult.setMap(lexer);
             successResult.setMsg("Analysis successful");
+            successResult.setProfile(profile);
             return successResult;
 
         } catch (Exception e) {
@@ -86,6 +125,17 @@ public class Main {
         }
     }
 
+    private static <T> T measure(CompileProfile profile, String stage, Supplier<T> work) {
+        return profile == null ? work.get() : profile.measure(stage, work);
+    }
+
+    private static void measure(CompileProfile profile, String stage, Runnable work) {
+        measure(profile, stage, () -> {
+            work.run();
+            return null;
+        });
+    }
+
     public static void main(String[] args) {
         SpringApplication.run(Main.class, args);
     }
@@ -0,0 +1,202 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+
+/**
+ * 代数化简
+ * 1. 常量折叠：算术、比较以及两侧都是常量的条件跳转（除数为0时保留原运算，由运行时处理）
+ * 2. 恒等式：x+0、x-0、x*1、x/1、x<<0、x>>0 变为复制，x*0、x-x 变为常量0，x*-1 变为 0-x，
+ *    两侧相同的比较和条件跳转直接得出结果
+ * 3. 规范化：x-c 改写为 x+(-c)；交换律运算常量放在右侧、两个变量按名字排序；
+ *    条件跳转常量放在右侧（关系随之对调），使相同的运算写法一致，便于公共子表达式消除
+ * 4. 重结合：同一基本块内 (+ x c1 t)(+ t c2 r) 改为 (+ x c1+c2 r)，乘法同理；t 只在此处使用时其定义随后被死代码消除删除
+ */
+public class AlgebraicSimplifier implements OptimizationPass {
+
+    @Override
+    public String getName() {
+        return "simplify";
+    }
+
+    @Override
+    public boolean run(IrFunction function) {
+        Set<String> locals = function.locals();
+        Map<String, Integer> useCount = new HashMap<>();
+        for (Quadruple q : function.body) {
+            for (String v : Quads.uses(q)) {
+                useCount.merge(v, 1, Integer::sum);
+            }
+        }
+
+        boolean changed = false;
+        // 本基本块内可供重结合的定义：临时变量 -> (op x c t)
+        Map<String, Quadruple> chains = new HashMap<>();
+        for (Iterator<Quadruple> it = function.body.iterator(); it.hasNext(); ) {
+            Quadruple q = it.next();
+            String before = q.toString();
+            if (Quads.isConditionalBranch(q)) {
+                Boolean taken = simplifyBranch(q);
+                if (taken != null) {
+                    if (taken) {
+                        q.op = "goto";
+                        q.arg1 = "_";
+                        q.arg2 = "_";
+                    } else {
+                        it.remove();
+                    }
+                    changed = true;
+                    chains.clear();
+                    continue;
+                }
+            } else {
+                simplify(q);
+                if (reassociate(q, chains)) {
+                    simplify(q);
+                }
+            }
+            changed |= !before.equals(q.toString());
+
+            if ("label".equals(q.op) || Quads.isBranch(q) || Quads.isExit(q)) {
+                chains.clear();
+                continue;
+            }
+            String def = Quads.def(q);
+            if (def != null) {
+                chains.remove(def);
+                chains.values().removeIf(c -> c.arg1.equals(def));
+                if (isChainable(q) && Quads.isTemp(def) && locals.contains(q.arg1) && !def.equals(q.arg1)
+                        && useCount.getOrDefault(def, 0) == 1) {
+                    chains.put(def, q);
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 化简单条算术或比较四元式，原地改写
+     */
+    static void simplify(Quadruple q) {
+        boolean arithmetic = Quads.isArithmetic(q.op);
+        if (!arithmetic && !Quads.isComparison(q.op)) {
+            return;
+        }
+        Integer a = constant(q.arg1);
+        Integer b = constant(q.arg2);
+        if (a != null && b != null) {
+            Integer folded = Quads.fold(q.op, a, b);
+            if (folded != null) {
+                assign(q, Integer.toString(folded));
+            }
+            return;
+        }
+        if (!arithmetic) {
+            if (q.arg1.equals(q.arg2)) {
+                assign(q, Quads.fold(q.op, 0, 0).toString());
+            }
+            return;
+        }
+
+        // x-c 统一写成 x+(-c)，常量链的重结合只需处理加法
+        if ("-".equals(q.op) && b != null && b != Short.MIN_VALUE) {
+            q.op = "+";
+            q.arg2 = Integer.toString(-b);
+        }
+        if (isCommutative(q.op) && (a != null || b == null && q.arg1.compareTo(q.arg2) > 0)) {
+            String t = q.arg1;
+            q.arg1 = q.arg2;
+            q.arg2 = t;
+            b = constant(q.arg2);
+        }
+
+        switch (q.op) {
+            case "+", "<<", ">>" -> {
+                if (b != null && b == 0) {
+                    assign(q, q.arg1);
+                }
+            }
+            case "-" -> {
+                if (q.arg1.equals(q.arg2)) {
+                    assign(q, "0");
+                }
+            }
+            case "*" -> {
+                if (b != null && b == 0) {
+                    assign(q, "0");
+                } else if (b != null && b == 1) {
+                    assign(q, q.arg1);
+                } else if (b != null && b == -1) {
+                    q.op = "-";
+                    q.arg2 = q.arg1;
+                    q.arg1 = "0";
+                }
+            }
+            case "/" -> {
+                if (b != null && b == 1) {
+                    assign(q, q.arg1);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * 化简条件跳转，原地改写操作数顺序
+     * @return 结果恒定时返回是否跳转，否则返回null
+     */
+    static Boolean simplifyBranch(Quadruple q) {
+        String relation = Quads.relation(q);
+        Integer a = constant(q.arg1);
+        Integer b = constant(q.arg2);
+        if (a != null && b != null) {
+            return Quads.fold(relation, a, b) != 0;
+        }
+        if (q.arg1.equals(q.arg2)) {
+            return Quads.fold(relation, 0, 0) != 0;
+        }
+        if (a != null) {
+            q.op = Quads.branchOp(Quads.mirror(relation));
+            q.arg1 = q.arg2;
+            q.arg2 = Integer.toString(a);
+        }
+        return null;
+    }
+
+    /**
+     * (op t c2 r) 且 t 由本块内的 (op x c1 t) 定义：改为 (op x c1∘c2 r)
+     */
+    private static boolean reassociate(Quadruple q, Map<String, Quadruple> chains) {
+        Quadruple inner = chains.get(q.arg1);
+        if (!isChainable(q) || inner == null || !inner.op.equals(q.op)) {
+            return false;
+        }
+        Integer combined = Quads.fold(q.op, Integer.parseInt(inner.arg2), Integer.parseInt(q.arg2));
+        q.arg1 = inner.arg1;
+        q.arg2 = Integer.toString(combined);
+        return true;
+    }
+
+    /**
+     * 形如 (+ x c t) 或 (* x c t) 的四元式，x 为变量
+     */
+    private static boolean isChainable(Quadruple q) {
+        return ("+".equals(q.op) || "*".equals(q.op)) && Quads.isVariable(q.arg1) && Quads.isNumber(q.arg2);
+    }
+
+    private static boolean isCommutative(String op) {
+        return "+".equals(op) || "*".equals(op);
+    }
+
+    private static void assign(Quadruple q, String value) {
+        q.op = "=";
+        q.arg1 = value;
+        q.arg2 = "_";
+    }
+
+    private static Integer constant(String operand) {
+        return Quads.isNumber(operand) ? Quads.wrap(Integer.parseInt(operand)) : null;
+    }
+}
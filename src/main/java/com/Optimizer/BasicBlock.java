@@ -0,0 +1,64 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基本块：只能从第一条四元式进入、从最后一条四元式离开的四元式序列
+ */
+public class BasicBlock {
+    public final int id;
+    public final List<Quadruple> quads = new ArrayList<>();
+    public final List<BasicBlock> succs = new ArrayList<>();
+    public final List<BasicBlock> preds = new ArrayList<>();
+    // SSA 形式下块首的 φ 函数
+    public final List<Phi> phis = new ArrayList<>();
+
+    BasicBlock(int id) {
+        this.id = id;
+    }
+
+    /**
+     * 块首标签，没有则返回null
+     */
+    public String label() {
+        return !quads.isEmpty() && "label".equals(quads.get(0).op) ? quads.get(0).result : null;
+    }
+
+    /**
+     * 块尾的跳转四元式，没有则返回null
+     */
+    public Quadruple terminator() {
+        if (quads.isEmpty()) {
+            return null;
+        }
+        Quadruple last = quads.get(quads.size() - 1);
+        return Quads.isBranch(last) || Quads.isExit(last) ? last : null;
+    }
+
+    /**
+     * φ 函数：result = φ(args)，args 与 preds 一一对应
+     */
+    public static class Phi {
+        public final String var;
+        public String result;
+        public final List<String> args = new ArrayList<>();
+
+        Phi(String var) {
+            this.var = var;
+            this.result = var;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("(phi %s _ %s)", args, result);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "B" + id;
+    }
+}
@@ -0,0 +1,100 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+
+/**
+ * 调用图
+ * 结点为程序中的函数，边为函数体中的 call 四元式；
+ * 用 Tarjan 算法求强连通分量，同一分量内的函数互相递归
+ */
+public class CallGraph {
+    private final Map<IrFunction, Set<IrFunction>> callees = new LinkedHashMap<>();
+    // 强连通分量，按逆拓扑序排列（被调函数所在分量在前）
+    private final List<List<IrFunction>> components = new ArrayList<>();
+    private final Map<IrFunction, List<IrFunction>> componentOf = new HashMap<>();
+
+    public CallGraph(IrProgram program) {
+        for (IrFunction f : program.functions) {
+            Set<IrFunction> targets = new LinkedHashSet<>();
+            for (Quadruple q : f.body) {
+                if ("call".equals(q.op) || "tailcall".equals(q.op)) {
+                    IrFunction callee = program.function(q.arg1);
+                    if (callee != null) {
+                        targets.add(callee);
+                    }
+                }
+            }
+            callees.put(f, targets);
+        }
+        new Tarjan().run();
+    }
+
+    public Set<IrFunction> callees(IrFunction f) {
+        return callees.getOrDefault(f, Set.of());
+    }
+
+    /**
+     * 函数是否（直接或间接）递归调用自身
+     */
+    public boolean isRecursive(IrFunction f) {
+        List<IrFunction> component = componentOf.get(f);
+        return component == null || component.size() > 1 || callees(f).contains(f);
+    }
+
+    /**
+     * 自底向上的函数顺序：被调函数排在调用者之前（互相递归的函数之间顺序任意）
+     */
+    public List<IrFunction> bottomUp() {
+        List<IrFunction> order = new ArrayList<>();
+        for (List<IrFunction> component : components) {
+            order.addAll(component);
+        }
+        return order;
+    }
+
+    /**
+     * Tarjan 强连通分量算法，分量按完成顺序（即逆拓扑序）产生
+     */
+    private class Tarjan {
+        private final Map<IrFunction, Integer> index = new HashMap<>();
+        private final Map<IrFunction, Integer> lowLink = new HashMap<>();
+        private final Deque<IrFunction> stack = new ArrayDeque<>();
+        private final Set<IrFunction> onStack = new HashSet<>();
+
+        void run() {
+            for (IrFunction f : callees.keySet()) {
+                if (!index.containsKey(f)) {
+                    visit(f);
+                }
+            }
+        }
+
+        private void visit(IrFunction f) {
+            index.put(f, index.size());
+            lowLink.put(f, index.get(f));
+            stack.push(f);
+            onStack.add(f);
+            for (IrFunction g : callees(f)) {
+                if (!index.containsKey(g)) {
+                    visit(g);
+                    lowLink.put(f, Math.min(lowLink.get(f), lowLink.get(g)));
+                } else if (onStack.contains(g)) {
+                    lowLink.put(f, Math.min(lowLink.get(f), index.get(g)));
+                }
+            }
+            if (lowLink.get(f).equals(index.get(f))) {
+                List<IrFunction> component = new ArrayList<>();
+                IrFunction g;
+                do {
+                    g = stack.pop();
+                    onStack.remove(g);
+                    component.add(g);
+                    componentOf.put(g, component);
+                } while (g != f);
+                components.add(component);
+            }
+        }
+    }
+}
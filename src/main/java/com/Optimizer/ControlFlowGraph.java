@@ -0,0 +1,341 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * 控制流图
+ * 由一个函数体的四元式划分基本块构建，块的顺序即四元式的线性顺序
+ */
+public class ControlFlowGraph {
+    public final List<BasicBlock> blocks = new ArrayList<>();
+    private final Map<String, BasicBlock> labelBlocks = new HashMap<>();
+    private int nextId = 0;
+
+    // 支配信息，由 computeDominators 计算
+    private Map<BasicBlock, BasicBlock> idom;
+    private Map<BasicBlock, List<BasicBlock>> domChildren;
+
+    /**
+     * 由函数体四元式构建控制流图
+     * 首条四元式、label 以及跳转/return/tailcall 之后的四元式都是基本块的入口
+     * 入口块不能有前驱，函数体以标签开头时在前面放一个空的入口块
+     */
+    public static ControlFlowGraph build(List<Quadruple> body) {
+        ControlFlowGraph cfg = new ControlFlowGraph();
+        BasicBlock current = cfg.newBlock();
+        cfg.blocks.add(current);
+        for (Quadruple q : body) {
+            boolean leader = "label".equals(q.op);
+            if (leader && (!current.quads.isEmpty() || cfg.blocks.size() == 1)) {
+                current = cfg.newBlock();
+                cfg.blocks.add(current);
+            }
+            current.quads.add(q);
+            if (Quads.isBranch(q) || Quads.isExit(q)) {
+                current = cfg.newBlock();
+                cfg.blocks.add(current);
+            }
+        }
+        // 去掉末尾多出的空块
+        if (cfg.blocks.size() > 1 && current.quads.isEmpty()) {
+            cfg.blocks.remove(cfg.blocks.size() - 1);
+        }
+        cfg.rebuildEdges();
+        return cfg;
+    }
+
+    public BasicBlock newBlock() {
+        return new BasicBlock(nextId++);
+    }
+
+    public BasicBlock entry() {
+        return blocks.get(0);
+    }
+
+    public BasicBlock blockOfLabel(String label) {
+        return labelBlocks.get(label);
+    }
+
+    /**
+     * 线性顺序中紧随其后的块，没有则返回null
+     */
+    public BasicBlock next(BasicBlock b) {
+        int i = blocks.indexOf(b);
+        return i + 1 < blocks.size() ? blocks.get(i + 1) : null;
+    }
+
+    /**
+     * 根据各块的四元式重新计算前驱和后继
+     */
+    public void rebuildEdges() {
+        labelBlocks.clear();
+        for (BasicBlock b : blocks) {
+            b.succs.clear();
+            b.preds.clear();
+            for (Quadruple q : b.quads) {
+                if ("label".equals(q.op)) {
+                    labelBlocks.put(q.result, b);
+                }
+            }
+        }
+        for (int i = 0; i < blocks.size(); i++) {
+            BasicBlock b = blocks.get(i);
+            BasicBlock next = i + 1 < blocks.size() ? blocks.get(i + 1) : null;
+            Quadruple last = b.quads.isEmpty() ? null : b.quads.get(b.quads.size() - 1);
+            if (last != null && Quads.isBranch(last)) {
+                BasicBlock target = labelBlocks.get(last.result);
+                if (target != null) {
+                    addEdge(b, target);
+                }
+            }
+            if ((last == null || !Quads.endsFlow(last)) && next != null) {
+                addEdge(b, next);
+            }
+        }
+        idom = null;
+        domChildren = null;
+    }
+
+    private void addEdge(BasicBlock from, BasicBlock to) {
+        if (!from.succs.contains(to)) {
+            from.succs.add(to);
+            to.preds.add(from);
+        }
+    }
+
+    /**
+     * 从入口可达的块的逆后序
+     */
+    public List<BasicBlock> reversePostorder() {
+        List<BasicBlock> order = new ArrayList<>();
+        Set<BasicBlock> visited = new HashSet<>();
+        Deque<BasicBlock> stack = new ArrayDeque<>();
+        Deque<Iterator<BasicBlock>> iters = new ArrayDeque<>();
+        stack.push(entry());
+        iters.push(entry().succs.iterator());
+        visited.add(entry());
+        while (!stack.isEmpty()) {
+            Iterator<BasicBlock> it = iters.peek();
+            if (it.hasNext()) {
+                BasicBlock s = it.next();
+                if (visited.add(s)) {
+                    stack.push(s);
+                    iters.push(s.succs.iterator());
+                }
+            } else {
+                order.add(stack.pop());
+                iters.pop();
+            }
+        }
+        Collections.reverse(order);
+        return order;
+    }
+
+    /**
+     * 删除从入口不可达的块
+     * 块中的声明四元式不会执行但仍决定变量的存在，移到入口块保留
+     * @return 是否删除了块
+     */
+    public boolean removeUnreachable() {
+        Set<BasicBlock> reachable = new HashSet<>(reversePostorder());
+        List<Quadruple> decls = new ArrayList<>();
+        boolean changed = false;
+        for (Iterator<BasicBlock> it = blocks.iterator(); it.hasNext(); ) {
+            BasicBlock b = it.next();
+            if (!reachable.contains(b)) {
+                for (Quadruple q : b.quads) {
+                    if (Quads.isDeclaration(q)) {
+                        decls.add(q);
+                    }
+                }
+                it.remove();
+                changed = true;
+            }
+        }
+        if (blocks.isEmpty()) {
+            blocks.add(newBlock());
+        }
+        entry().quads.addAll(0, decls);
+        if (changed) {
+            rebuildEdges();
+        }
+        return changed;
+    }
+
+    /**
+     * 按 Cooper-Harvey-Kennedy 迭代算法计算直接支配者
+     */
+    public void computeDominators() {
+        List<BasicBlock> rpo = reversePostorder();
+        Map<BasicBlock, Integer> index = new HashMap<>();
+        for (int i = 0; i < rpo.size(); i++) {
+            index.put(rpo.get(i), i);
+        }
+        idom = new HashMap<>();
+        idom.put(entry(), entry());
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (BasicBlock b : rpo) {
+                if (b == entry()) {
+                    continue;
+                }
+                BasicBlock newIdom = null;
+                for (BasicBlock p : b.preds) {
+                    if (!idom.containsKey(p)) {
+                        continue;
+                    }
+                    newIdom = newIdom == null ? p : intersect(p, newIdom, index);
+                }
+                if (newIdom != null && idom.get(b) != newIdom) {
+                    idom.put(b, newIdom);
+                    changed = true;
+                }
+            }
+        }
+        domChildren = new HashMap<>();
+        for (BasicBlock b : rpo) {
+            domChildren.put(b, new ArrayList<>());
+        }
+        for (BasicBlock b : rpo) {
+            if (b != entry()) {
+                domChildren.get(idom.get(b)).add(b);
+            }
+        }
+    }
+
+    private BasicBlock intersect(BasicBlock a, BasicBlock b, Map<BasicBlock, Integer> index) {
+        while (a != b) {
+            while (index.get(a) > index.get(b)) {
+                a = idom.get(a);
+            }
+            while (index.get(b) > index.get(a)) {
+                b = idom.get(b);
+            }
+        }
+        return a;
+    }
+
+    private void ensureDominators() {
+        if (idom == null) {
+            computeDominators();
+        }
+    }
+
+    /**
+     * 直接支配者，入口块返回null
+     */
+    public BasicBlock idom(BasicBlock b) {
+        ensureDominators();
+        BasicBlock d = idom.get(b);
+        return d == b ? null : d;
+    }
+
+    public List<BasicBlock> domChildren(BasicBlock b) {
+        ensureDominators();
+        return domChildren.getOrDefault(b, List.of());
+    }
+
+    /**
+     * a 是否支配 b
+     */
+    public boolean dominates(BasicBlock a, BasicBlock b) {
+        ensureDominators();
+        if (!idom.containsKey(b)) {
+            return false;
+        }
+        for (BasicBlock x = b; x != null; x = idom(x)) {
+            if (x == a) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 各块的支配边界
+     */
+    public Map<BasicBlock, Set<BasicBlock>> dominanceFrontier() {
+        ensureDominators();
+        Map<BasicBlock, Set<BasicBlock>> df = new HashMap<>();
+        for (BasicBlock b : blocks) {
+            df.put(b, new LinkedHashSet<>());
+        }
+        for (BasicBlock b : blocks) {
+            if (!idom.containsKey(b) || b.preds.size() < 2) {
+                continue;
+            }
+            for (BasicBlock p : b.preds) {
+                if (!idom.containsKey(p)) {
+                    continue;
+                }
+                for (BasicBlock runner = p; runner != idom.get(b); runner = idom.get(runner)) {
+                    df.get(runner).add(b);
+                    if (runner == entry()) {
+                        break;
+                    }
+                }
+            }
+        }
+        return df;
+    }
+
+    /**
+     * 取得循环的前置块：唯一从循环外进入循环头、且只流向循环头的块
+     * 没有现成的前置块时在循环头之前新建一个，循环外跳向循环头的分支改为跳向它
+     * @param loop 循环
+     * @param newLabel 新标签名的来源
+     * @return 前置块；循环头没有标签而无法改写跳转时返回null
+     */
+    public BasicBlock preheader(LoopForest.Loop loop, Supplier<String> newLabel) {
+        List<BasicBlock> entries = loop.entries();
+        if (entries.size() == 1 && entries.get(0).succs.size() == 1) {
+            return entries.get(0);
+        }
+        String headerLabel = loop.header.label();
+        if (headerLabel == null) {
+            return null;
+        }
+        int at = blocks.indexOf(loop.header);
+        BasicBlock before = at > 0 ? blocks.get(at - 1) : null;
+        BasicBlock pre = newBlock();
+        String label = newLabel.get();
+        pre.quads.add(new Quadruple("label", "_", "_", label));
+        for (BasicBlock p : entries) {
+            Quadruple last = p.terminator();
+            if (last != null && Quads.isBranch(last) && headerLabel.equals(last.result)) {
+                last.result = label;
+            }
+        }
+        // 循环内顺序落入循环头的块改为显式跳转，避免落入前置块
+        if (before != null && loop.contains(before) && before.succs.contains(loop.header)
+                && (before.terminator() == null || !Quads.endsFlow(before.terminator()))) {
+            before.quads.add(new Quadruple("goto", "_", "_", headerLabel));
+        }
+        blocks.add(at, pre);
+        rebuildEdges();
+        return pre;
+    }
+
+    /**
+     * 在块尾（跳转之前）追加四元式
+     */
+    public static void appendBeforeTerminator(BasicBlock b, List<Quadruple> quads) {
+        int at = b.terminator() != null ? b.quads.size() - 1 : b.quads.size();
+        b.quads.addAll(at, quads);
+    }
+
+    /**
+     * 按线性顺序拼回四元式
+     */
+    public List<Quadruple> toQuadruples() {
+        List<Quadruple> result = new ArrayList<>();
+        for (BasicBlock b : blocks) {
+            result.addAll(b.quads);
+        }
+        return result;
+    }
+}
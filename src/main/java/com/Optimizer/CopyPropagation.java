@@ -0,0 +1,149 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+
+/**
+ * 复制传播
+ * 1. 后向：(op a b t) 之后紧接 (= t _ x) 且 t 只在此处使用时，让运算直接写入 x 并删除复制
+ * 2. 前向：对 (= y _ x)，在 x、y 都未被改写的范围内把对 x 的读取替换为 y（可用复制数据流分析）
+ */
+public class CopyPropagation implements OptimizationPass {
+
+    @Override
+    public String getName() {
+        return "copyprop";
+    }
+
+    @Override
+    public boolean run(IrFunction function) {
+        Set<String> locals = function.locals();
+        // 先让定义直接写入目标，避免前向传播给临时变量增加使用而错失合并机会
+        boolean changed = retarget(function, locals);
+        changed |= propagate(function, locals);
+        return changed;
+    }
+
+    private boolean propagate(IrFunction function, Set<String> locals) {
+        ControlFlowGraph cfg = ControlFlowGraph.build(function.body);
+        cfg.removeUnreachable();
+        List<BasicBlock> rpo = cfg.reversePostorder();
+
+        // in[b] 为 null 表示尚未计算（全集）
+        Map<BasicBlock, Map<String, String>> in = new HashMap<>();
+        Map<BasicBlock, Map<String, String>> out = new HashMap<>();
+        in.put(cfg.entry(), new HashMap<>());
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (BasicBlock b : rpo) {
+                Map<String, String> facts = b == cfg.entry() ? new HashMap<>() : meet(b, out);
+                if (facts == null) {
+                    continue;
+                }
+                in.put(b, facts);
+                Map<String, String> result = new HashMap<>(facts);
+                for (Quadruple q : b.quads) {
+                    transfer(q, result, locals);
+                }
+                if (!result.equals(out.get(b))) {
+                    out.put(b, result);
+                    changed = true;
+                }
+            }
+        }
+
+        boolean rewritten = false;
+        for (BasicBlock b : rpo) {
+            Map<String, String> facts = new HashMap<>(in.getOrDefault(b, Map.of()));
+            for (Quadruple q : b.quads) {
+                String before = q.toString();
+                Quads.replaceUses(q, v -> facts.getOrDefault(v, v));
+                rewritten |= !before.equals(q.toString());
+                transfer(q, facts, locals);
+            }
+        }
+        function.body = cfg.toQuadruples();
+        return rewritten;
+    }
+
+    private Map<String, String> meet(BasicBlock b, Map<BasicBlock, Map<String, String>> out) {
+        Map<String, String> result = null;
+        for (BasicBlock p : b.preds) {
+            Map<String, String> facts = out.get(p);
+            if (facts == null) {
+                continue;
+            }
+            if (result == null) {
+                result = new HashMap<>(facts);
+            } else {
+                result.entrySet().removeIf(e -> !e.getValue().equals(facts.get(e.getKey())));
+            }
+        }
+        return result;
+    }
+
+    private void transfer(Quadruple q, Map<String, String> facts, Set<String> locals) {
+        String def = Quads.def(q);
+        if (def != null) {
+            facts.remove(def);
+            facts.values().removeIf(def::equals);
+        }
+        if ("call".equals(q.op)) {
+            // 被调函数可能修改全局变量
+            facts.values().removeIf(v -> Quads.isVariable(v) && !locals.contains(v));
+        }
+        if ("=".equals(q.op) && def != null && locals.contains(def) && !def.equals(q.arg1)
+                && !Quads.isArrayElement(q.arg1) && !q.arg1.startsWith("\"")) {
+            facts.put(def, q.arg1);
+        }
+    }
+
+    /**
+     * 让只被复制一次的临时变量的定义直接写入复制的目标
+     */
+    private boolean retarget(IrFunction function, Set<String> locals) {
+        Map<String, Integer> useCount = new HashMap<>();
+        Map<String, Integer> defCount = new HashMap<>();
+        for (Quadruple q : function.body) {
+            for (String v : Quads.uses(q)) {
+                useCount.merge(v, 1, Integer::sum);
+            }
+            String def = Quads.def(q);
+            if (def != null) {
+                defCount.merge(def, 1, Integer::sum);
+            }
+        }
+
+        boolean changed = false;
+        List<Quadruple> body = function.body;
+        for (int i = 0; i < body.size(); i++) {
+            Quadruple copy = body.get(i);
+            if (!"=".equals(copy.op) || !Quads.isTemp(copy.arg1) || !locals.contains(copy.arg1)
+                    || !Quads.isVariable(copy.result)
+                    || useCount.getOrDefault(copy.arg1, 0) != 1 || defCount.getOrDefault(copy.arg1, 0) != 1) {
+                continue;
+            }
+            String temp = copy.arg1;
+            String target = copy.result;
+            // 在同一基本块内向前寻找临时变量的定义，中间不能读写目标变量
+            for (int j = i - 1; j >= 0; j--) {
+                Quadruple q = body.get(j);
+                if (temp.equals(Quads.def(q))) {
+                    q.result = target;
+                    body.remove(i);
+                    i--;
+                    changed = true;
+                    break;
+                }
+                if ("label".equals(q.op) || Quads.isBranch(q) || Quads.isExit(q)
+                        || target.equals(Quads.def(q)) || Quads.uses(q).contains(target)
+                        || ("call".equals(q.op) && !locals.contains(target))) {
+                    break;
+                }
+            }
+        }
+        return changed;
+    }
+}
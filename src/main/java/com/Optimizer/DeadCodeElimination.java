@@ -0,0 +1,79 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+
+/**
+ * 基于活跃变量分析的死代码消除
+ * 删除不可达块（如 return 之后的代码）、结果不再被读取的赋值和运算、
+ * 丢弃无人使用的函数调用返回值，并删除函数体中已无引用的变量和数组声明，
+ * 使目标代码中相应的 DW 数据也不再生成
+ */
+public class DeadCodeElimination implements OptimizationPass {
+
+    @Override
+    public String getName() {
+        return "dce";
+    }
+
+    @Override
+    public boolean run(IrFunction function) {
+        ControlFlowGraph cfg = ControlFlowGraph.build(function.body);
+        boolean changed = cfg.removeUnreachable();
+        Set<String> locals = function.locals();
+
+        boolean removed = true;
+        while (removed) {
+            removed = false;
+            Liveness liveness = new Liveness(cfg, locals);
+            for (BasicBlock b : cfg.blocks) {
+                Set<String> live = new HashSet<>(liveness.liveOut(b));
+                for (int i = b.quads.size() - 1; i >= 0; i--) {
+                    Quadruple q = b.quads.get(i);
+                    String def = Quads.def(q);
+                    if (def != null && locals.contains(def) && !live.contains(def)) {
+                        if ("call".equals(q.op)) {
+                            // 调用有副作用，只丢弃返回值
+                            q.result = "_";
+                            changed = true;
+                        } else if (Quads.isPure(q)) {
+                            b.quads.remove(i);
+                            removed = true;
+                            continue;
+                        }
+                    }
+                    liveness.step(q, live);
+                }
+            }
+            changed |= removed;
+        }
+
+        function.body = cfg.toQuadruples();
+        changed |= removeDeadDeclarations(function);
+        return changed;
+    }
+
+    /**
+     * 删除函数体中不再被任何四元式引用的变量、数组声明
+     */
+    private boolean removeDeadDeclarations(IrFunction function) {
+        Set<String> referenced = new HashSet<>(function.params());
+        for (Quadruple q : function.body) {
+            if (Quads.isDeclaration(q)) {
+                continue;
+            }
+            for (String operand : new String[]{q.arg1, q.arg2, q.result}) {
+                if (Quads.isArrayElement(operand)) {
+                    referenced.add(Quads.arrayName(operand));
+                    referenced.add(Quads.arrayIndex(operand));
+                } else {
+                    referenced.add(operand);
+                }
+            }
+        }
+        return function.body.removeIf(q ->
+                ("var_decl".equals(q.op) && !referenced.contains(q.result))
+                        || ("ARRAY_DECL".equals(q.op) && !referenced.contains(q.arg1)));
+    }
+}
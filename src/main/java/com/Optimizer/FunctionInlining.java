@@ -0,0 +1,149 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+
+/**
+ * 函数内联
+ * 把对小函数的调用（param ... call）替换为被调函数体的副本：
+ * 实参赋给改名后的形参，被调函数的参数、局部变量和临时变量都换成调用者中的新临时变量，
+ * 标签换成新标签，return 改为给调用结果赋值并跳到副本末尾
+ * 递归（调用图中处于环上）的函数、声明了数组的函数以及体积超过阈值的函数不内联
+ */
+public class FunctionInlining implements OptimizationPass {
+    // 可内联的被调函数最多包含的四元式条数（不含声明）
+    private final int maxCalleeSize;
+
+    public FunctionInlining() {
+        this(16);
+    }
+
+    /**
+     * @param maxCalleeSize 可内联的被调函数最多包含的四元式条数（不含声明）
+     */
+    public FunctionInlining(int maxCalleeSize) {
+        this.maxCalleeSize = maxCalleeSize;
+    }
+
+    @Override
+    public String getName() {
+        return "inline";
+    }
+
+    @Override
+    public boolean run(IrFunction function) {
+        CallGraph graph = new CallGraph(function.program);
+        Set<String> locals = function.locals();
+        boolean changed = false;
+        List<Quadruple> result = new ArrayList<>();
+        for (Quadruple q : function.body) {
+            IrFunction callee = "call".equals(q.op) ? function.program.function(q.arg1) : null;
+            if (callee == null || !canInline(function, callee, graph, locals)) {
+                result.add(q);
+                continue;
+            }
+            // call 之前紧挨着的 param 四元式依次为各个实参
+            int n = callee.params().size();
+            List<Quadruple> params = result.subList(result.size() - n, result.size());
+            List<String> args = new ArrayList<>();
+            for (Quadruple p : params) {
+                args.add(p.arg1);
+            }
+            params.clear();
+            result.addAll(expand(callee, args, q.result));
+            changed = true;
+        }
+        function.body = result;
+        return changed;
+    }
+
+    private boolean canInline(IrFunction caller, IrFunction callee, CallGraph graph, Set<String> callerLocals) {
+        if (callee == caller || graph.isRecursive(callee)) {
+            return false;
+        }
+        int size = 0;
+        Set<String> calleeLocals = callee.locals();
+        for (Quadruple q : callee.body) {
+            if ("ARRAY_DECL".equals(q.op)) {
+                return false;
+            }
+            if (!Quads.isDeclaration(q)) {
+                size++;
+            }
+            // 被调函数访问的全局变量不能被调用者的同名局部变量遮蔽
+            List<String> names = new ArrayList<>(Quads.uses(q));
+            names.add(Quads.def(q));
+            for (String v : names) {
+                if (v != null && !calleeLocals.contains(v) && callerLocals.contains(v)) {
+                    return false;
+                }
+            }
+        }
+        return size <= maxCalleeSize;
+    }
+
+    /**
+     * 生成被调函数体的一份改名副本
+     * @param args 实参
+     * @param target 接收返回值的变量，"_" 表示返回值不被使用
+     */
+    private List<Quadruple> expand(IrFunction callee, List<String> args, String target) {
+        IrProgram program = callee.program;
+        Map<String, String> names = new HashMap<>();
+        for (String v : callee.locals()) {
+            names.put(v, program.newTemp());
+        }
+        Map<String, String> labels = new HashMap<>();
+        for (Quadruple q : callee.body) {
+            if ("label".equals(q.op)) {
+                labels.put(q.result, program.newLabel());
+            }
+        }
+        String end = program.newLabel();
+
+        List<Quadruple> out = new ArrayList<>();
+        List<String> params = callee.params();
+        for (int i = 0; i < params.size(); i++) {
+            out.add(new Quadruple("=", args.get(i), "_", names.get(params.get(i))));
+        }
+        Quadruple last = callee.body.isEmpty() ? null : callee.body.get(callee.body.size() - 1);
+        for (Quadruple q : callee.body) {
+            if (Quads.isDeclaration(q)) {
+                continue;
+            }
+            if ("return".equals(q.op)) {
+                if (!"_".equals(q.arg1) && !"_".equals(target)) {
+                    out.add(new Quadruple("=", rename(q.arg1, names), "_", target));
+                }
+                // 末尾的 return 直接落到副本末尾
+                if (q != last) {
+                    out.add(new Quadruple("goto", "_", "_", end));
+                }
+            } else if ("tailcall".equals(q.op)) {
+                // 尾调用的结果就是被调函数的返回值，内联后还原为普通调用
+                out.add(new Quadruple("call", q.arg1, q.arg2, target));
+                if (q != last) {
+                    out.add(new Quadruple("goto", "_", "_", end));
+                }
+            } else if ("label".equals(q.op) || Quads.isBranch(q)) {
+                // 条件跳转的两个比较操作数都可能是被调函数的私有变量
+                out.add(new Quadruple(q.op, rename(q.arg1, names), rename(q.arg2, names), labels.getOrDefault(q.result, q.result)));
+            } else if ("call".equals(q.op)) {
+                out.add(new Quadruple(q.op, q.arg1, q.arg2, rename(q.result, names)));
+            } else {
+                out.add(new Quadruple(q.op, rename(q.arg1, names), rename(q.arg2, names), rename(q.result, names)));
+            }
+        }
+        out.add(new Quadruple("label", "_", "_", end));
+        return out;
+    }
+
+    private static String rename(String operand, Map<String, String> names) {
+        if (Quads.isArrayElement(operand)) {
+            String index = Quads.arrayIndex(operand);
+            return Quads.arrayElement(Quads.arrayName(operand), names.getOrDefault(index, index));
+        }
+        return operand == null ? null : names.getOrDefault(operand, operand);
+    }
+}
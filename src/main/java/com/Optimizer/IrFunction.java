@@ -0,0 +1,68 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 一个函数的四元式
+ * header 为 FuncStart/FuncDef/param_decl 等函数头，body 为函数体，end 为 FuncEnd
+ * 优化遍只改写 body
+ */
+public class IrFunction {
+    public final String name;
+    public final List<Quadruple> header = new ArrayList<>();
+    public List<Quadruple> body = new ArrayList<>();
+    public Quadruple end;
+    // 所属程序，用于申请新的临时变量和标签
+    public final IrProgram program;
+
+    IrFunction(String name, IrProgram program) {
+        this.name = name;
+        this.program = program;
+    }
+
+    /**
+     * 按声明顺序返回参数名
+     */
+    public List<String> params() {
+        List<String> params = new ArrayList<>();
+        for (Quadruple q : header) {
+            if ("param_decl".equals(q.op)) {
+                params.add(q.result);
+            }
+        }
+        return params;
+    }
+
+    /**
+     * 函数私有的标量：参数、函数体内声明的非数组变量以及临时变量
+     * 其余名字（全局变量、数组）被视为内存，调用其他函数时可能被修改
+     */
+    public Set<String> locals() {
+        Set<String> locals = new LinkedHashSet<>(params());
+        Set<String> arrays = new LinkedHashSet<>();
+        for (Quadruple q : body) {
+            if ("ARRAY_DECL".equals(q.op)) {
+                arrays.add(q.arg1);
+            }
+        }
+        for (Quadruple q : body) {
+            if ("var_decl".equals(q.op) && !arrays.contains(q.result)) {
+                locals.add(q.result);
+            }
+            String def = Quads.def(q);
+            if (Quads.isTemp(def) && !program.globals().contains(def)) {
+                locals.add(def);
+            }
+        }
+        return locals;
+    }
+
+    public int size() {
+        return body.size();
+    }
+}
@@ -0,0 +1,194 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+
+/**
+ * 四元式解释器
+ * 按16位有符号数的语义直接执行四元式程序，用于比较优化前后程序的行为是否一致
+ * 每次调用有独立的私有变量，全局变量和数组在所有函数间共享
+ */
+public class IrInterpreter {
+    // 调用深度上限，与目标机有限的栈空间对应
+    private static final int MAX_DEPTH = 200;
+    // 执行步数上限，防止死循环
+    private static final long MAX_STEPS = 2_000_000;
+
+    private final IrProgram program;
+    private final Map<String, Integer> globals = new TreeMap<>();
+    private final Map<String, int[]> arrays = new TreeMap<>();
+    private long steps = 0;
+
+    public IrInterpreter(List<Quadruple> quadruples) {
+        this.program = new IrProgram(quadruples);
+    }
+
+    /**
+     * 执行 main 函数
+     * @return 程序的可观察结果：返回值、全局变量和数组的最终值；出错时为 ERR 加错误原因
+     */
+    public String run() {
+        IrFunction main = program.function("main");
+        if (main == null) {
+            return "ERR no main";
+        }
+        // 全局数组在调用 main 之前就存在
+        for (Quadruple q : program.globalCode()) {
+            if ("ARRAY_DECL".equals(q.op)) {
+                arrays.putIfAbsent(q.arg1, new int[Integer.parseInt(q.arg2)]);
+            }
+        }
+        int ret;
+        try {
+            ret = call(main, List.of(), 0);
+        } catch (RuntimeException e) {
+            return "ERR " + e.getMessage();
+        }
+        StringBuilder sb = new StringBuilder("ret=" + ret);
+        globals.forEach((k, v) -> sb.append(' ').append(k).append('=').append(v));
+        arrays.forEach((k, v) -> sb.append(' ').append(k).append(Arrays.toString(v)));
+        return sb.toString();
+    }
+
+    private int call(IrFunction f, List<Integer> args, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new RuntimeException("stack overflow in " + f.name);
+        }
+        Frame frame = new Frame(f.locals());
+        List<String> params = f.params();
+        for (int i = 0; i < params.size(); i++) {
+            frame.values.put(params.get(i), args.get(i));
+        }
+        List<Quadruple> body = f.body;
+        Map<String, Integer> labels = new HashMap<>();
+        for (int i = 0; i < body.size(); i++) {
+            Quadruple q = body.get(i);
+            if ("label".equals(q.op)) {
+                labels.put(q.result, i);
+            } else if ("ARRAY_DECL".equals(q.op)) {
+                arrays.putIfAbsent(q.arg1, new int[Integer.parseInt(q.arg2)]);
+            }
+        }
+
+        List<Integer> pending = new ArrayList<>();
+        int pc = 0;
+        while (pc < body.size()) {
+            if (++steps > MAX_STEPS) {
+                throw new RuntimeException("step limit exceeded");
+            }
+            Quadruple q = body.get(pc++);
+            switch (q.op) {
+                case "=" -> store(q.result, value(q.arg1, frame), frame);
+                case "goto" -> pc = target(labels, q.result);
+                case "param" -> pending.add(value(q.arg1, frame));
+                case "call", "tailcall" -> {
+                    IrFunction callee = program.function(q.arg1);
+                    if (callee == null) {
+                        throw new RuntimeException("undefined function " + q.arg1);
+                    }
+                    int n = Integer.parseInt(q.arg2);
+                    List<Integer> actuals = new ArrayList<>(pending.subList(pending.size() - n, pending.size()));
+                    pending.subList(pending.size() - n, pending.size()).clear();
+                    if ("tailcall".equals(q.op)) {
+                        // 尾调用复用当前栈帧，调用深度不变
+                        return call(callee, actuals, depth);
+                    }
+                    int r = call(callee, actuals, depth + 1);
+                    if (!"_".equals(q.result)) {
+                        store(q.result, r, frame);
+                    }
+                }
+                case "return" -> {
+                    return "_".equals(q.arg1) ? 0 : value(q.arg1, frame);
+                }
+                default -> {
+                    if (Quads.isArithmetic(q.op) || Quads.isComparison(q.op)) {
+                        store(q.result, evaluate(q.op, value(q.arg1, frame), value(q.arg2, frame)), frame);
+                    } else if (Quads.isConditionalBranch(q)
+                            && evaluate(Quads.relation(q), value(q.arg1, frame), value(q.arg2, frame)) != 0) {
+                        pc = target(labels, q.result);
+                    }
+                    // 声明和控制流标记不产生执行效果
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static int target(Map<String, Integer> labels, String label) {
+        Integer at = labels.get(label);
+        if (at == null) {
+            throw new RuntimeException("undefined label " + label);
+        }
+        return at;
+    }
+
+    private static int evaluate(String op, int a, int b) {
+        Integer r = Quads.fold(op, a, b);
+        if (r == null) {
+            throw new RuntimeException("cannot evaluate " + a + " " + op + " " + b);
+        }
+        return r;
+    }
+
+    private int value(String operand, Frame frame) {
+        if (Quads.isNumber(operand)) {
+            return Quads.wrap(Integer.parseInt(operand));
+        }
+        if (operand.startsWith("'") && operand.length() > 1) {
+            return operand.charAt(1);
+        }
+        if (operand.startsWith("\"")) {
+            return 0;
+        }
+        if (Quads.isArrayElement(operand)) {
+            int[] array = array(operand);
+            return array[index(operand, array, frame)];
+        }
+        if (frame.locals.contains(operand)) {
+            return frame.values.getOrDefault(operand, 0);
+        }
+        return globals.getOrDefault(operand, 0);
+    }
+
+    private void store(String operand, int v, Frame frame) {
+        v = Quads.wrap(v);
+        if (Quads.isArrayElement(operand)) {
+            int[] array = array(operand);
+            array[index(operand, array, frame)] = v;
+        } else if (frame.locals.contains(operand)) {
+            frame.values.put(operand, v);
+        } else {
+            globals.put(operand, v);
+        }
+    }
+
+    private int[] array(String element) {
+        int[] array = arrays.get(Quads.arrayName(element));
+        if (array == null) {
+            throw new RuntimeException("undeclared array " + Quads.arrayName(element));
+        }
+        return array;
+    }
+
+    private int index(String element, int[] array, Frame frame) {
+        int i = value(Quads.arrayIndex(element), frame);
+        if (i < 0 || i >= array.length) {
+            throw new RuntimeException("index out of bounds " + element + " = " + i);
+        }
+        return i;
+    }
+
+    /**
+     * 一次调用的私有变量
+     */
+    private static class Frame {
+        final Set<String> locals;
+        final Map<String, Integer> values = new HashMap<>();
+
+        Frame(Set<String> locals) {
+            this.locals = locals;
+        }
+    }
+}
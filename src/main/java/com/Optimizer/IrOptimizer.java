@@ -0,0 +1,126 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+import com.Profile.CompileProfile;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 中间代码优化入口，按调用图自底向上对每个函数执行所选优化级别的优化流水线
+ */
+public class IrOptimizer {
+    // 生成四元式时的常量折叠和局部公共子表达式消除，也可以按名字禁用
+    public static final String GENERATOR_FOLD = "fold";
+    public static final String GENERATOR_CSE = "cse";
+    // 标量清理遍组合最多反复执行的轮数
+    private static final int MAX_ROUNDS = 4;
+
+    @Getter
+    private final OptLevel level;
+    // 窥孔优化在流水线中出现两次，共用一个实例累计命中次数
+    @Getter
+    private final PeepholeOptimizer peephole = new PeepholeOptimizer();
+    @Getter
+    private final PassManager passManager;
+    // 不为null时记录切分函数和各优化遍的开销
+    private CompileProfile profile;
+
+    public IrOptimizer() {
+        this(OptLevel.O2, Set.of());
+    }
+
+    /**
+     * @param level 优化级别
+     * @param disabledPasses 禁用的优化遍名称
+     */
+    public IrOptimizer(OptLevel level, Set<String> disabledPasses) {
+        this(level, disabledPasses, new LoopUnrolling());
+    }
+
+    /**
+     * @param level 优化级别
+     * @param disabledPasses 禁用的优化遍名称
+     * @param unrolling -O2 流水线中使用的循环展开遍，决定完全展开的迭代次数和体积上限
+     */
+    public IrOptimizer(OptLevel level, Set<String> disabledPasses, LoopUnrolling unrolling) {
+        this.level = level;
+        this.passManager = pipeline(level, new PassManager(disabledPasses), unrolling);
+    }
+
+    private PassManager pipeline(OptLevel level, PassManager pm, LoopUnrolling unrolling) {
+        switch (level) {
+            case O0 -> {
+            }
+            case O1 -> pm.add(new AlgebraicSimplifier())
+                    .add(peephole)
+                    .fixpoint(MAX_ROUNDS, new SparseConditionalConstantPropagation(), new CopyPropagation(),
+                            new AlgebraicSimplifier(), new DeadCodeElimination())
+                    .add(new TempCoalescing())
+                    .add(peephole);
+            case O2 -> pm.add(new FunctionInlining())
+                    .add(new TailCallElimination())
+                    .add(new AlgebraicSimplifier())
+                    .add(peephole)
+                    .fixpoint(MAX_ROUNDS, new SparseConditionalConstantPropagation(), new CopyPropagation(),
+                            new AlgebraicSimplifier(), new DeadCodeElimination())
+                    .add(unrolling)
+                    .fixpoint(MAX_ROUNDS, new SparseConditionalConstantPropagation(), new CopyPropagation(),
+                            new AlgebraicSimplifier(), new DeadCodeElimination())
+                    .add(new LoopInvariantCodeMotion())
+                    .add(new StrengthReduction())
+                    .fixpoint(MAX_ROUNDS, new CopyPropagation(), new AlgebraicSimplifier(), new DeadCodeElimination())
+                    .add(new TempCoalescing())
+                    .add(peephole);
+            // 只内联不比调用序列大的函数，不做循环展开和会增加指令的强度削弱
+            case Os -> pm.add(new FunctionInlining(4))
+                    .add(new TailCallElimination())
+                    .add(new AlgebraicSimplifier())
+                    .add(peephole)
+                    .fixpoint(MAX_ROUNDS, new SparseConditionalConstantPropagation(), new CopyPropagation(),
+                            new AlgebraicSimplifier(), new DeadCodeElimination())
+                    .add(new LoopInvariantCodeMotion())
+                    .fixpoint(MAX_ROUNDS, new CopyPropagation(), new AlgebraicSimplifier(), new DeadCodeElimination())
+                    .add(new TempCoalescing())
+                    .add(peephole);
+        }
+        return pm;
+    }
+
+    public void setProfile(CompileProfile profile) {
+        this.profile = profile;
+        passManager.setProfile(profile);
+    }
+
+    /**
+     * 是否启用某个优化（包括生成四元式时的 fold 和 cse），O0 下全部关闭
+     */
+    public boolean isEnabled(String pass) {
+        return level != OptLevel.O0 && passManager.isEnabled(pass);
+    }
+
+    /**
+     * 优化四元式列表
+     * @param quadruples 语法分析生成的四元式
+     * @return 优化后的四元式
+     */
+    public List<Quadruple> optimize(List<Quadruple> quadruples) {
+        // 按函数切分并确定自底向上的顺序，内联时被调函数已经优化过
+        IrProgram program = measure("lower", () -> new IrProgram(quadruples));
+        List<IrFunction> order = measure("lower", () -> new CallGraph(program).bottomUp());
+        for (IrFunction function : order) {
+            passManager.run(function);
+        }
+        if (profile != null) {
+            profile.setPasses(passManager.describe());
+            profile.getPeepholeHits().putAll(peephole.hits());
+        }
+        return measure("lower", program::toQuadruples);
+    }
+
+    private <T> T measure(String stage, Supplier<T> work) {
+        return profile == null ? work.get() : profile.measure(stage, work);
+    }
+}
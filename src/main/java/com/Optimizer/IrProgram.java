@@ -0,0 +1,143 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.OperandKind;
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 按函数切分后的四元式程序
+ * FuncStart ... FuncEnd 之间的四元式组成一个 IrFunction，函数之外的全局四元式原样保留
+ */
+public class IrProgram {
+    public final List<IrFunction> functions = new ArrayList<>();
+    // globalCode.get(i) 为第 i 个函数之前的全局四元式，最后一项为所有函数之后的部分
+    private final List<List<Quadruple>> globalCode = new ArrayList<>();
+    private final Set<String> globals = new HashSet<>();
+    private int nextTemp = 0;
+    private int nextLabel = 0;
+
+    public IrProgram(List<Quadruple> quadruples) {
+        List<Quadruple> global = new ArrayList<>();
+        IrFunction current = null;
+        boolean inHeader = false;
+        for (Quadruple q : quadruples) {
+            scanNames(q);
+            if ("FuncStart".equals(q.op)) {
+                globalCode.add(global);
+                global = new ArrayList<>();
+                current = new IrFunction(q.result, this);
+                current.header.add(q);
+                inHeader = true;
+            } else if (current == null) {
+                if ("var_decl".equals(q.op)) {
+                    globals.add(q.result);
+                }
+                global.add(q);
+            } else if ("FuncEnd".equals(q.op)) {
+                current.end = q;
+                functions.add(current);
+                current = null;
+            } else if (inHeader && ("FuncDef".equals(q.op) || "param_decl".equals(q.op))) {
+                current.header.add(q);
+            } else {
+                inHeader = false;
+                current.body.add(q);
+            }
+        }
+        if (current != null) {
+            // 缺少 FuncEnd 的函数按原样收尾
+            functions.add(current);
+        }
+        globalCode.add(global);
+    }
+
+    private void scanNames(Quadruple q) {
+        for (String s : new String[]{q.arg1, q.arg2, q.result}) {
+            if (s == null || s.length() < 2 || !Character.isDigit(s.charAt(1))) {
+                continue;
+            }
+            if (!OperandKind.isDigits(s, 1)) {
+                continue;
+            }
+            if (s.charAt(0) == 't') {
+                nextTemp = Math.max(nextTemp, Integer.parseInt(s.substring(1)) + 1);
+            } else if (s.charAt(0) == 'L') {
+                nextLabel = Math.max(nextLabel, Integer.parseInt(s.substring(1)) + 1);
+            }
+        }
+    }
+
+    /**
+     * 全局作用域中声明的变量名
+     */
+    public Set<String> globals() {
+        return globals;
+    }
+
+    public IrFunction function(String name) {
+        for (IrFunction f : functions) {
+            if (f.name.equals(name)) {
+                return f;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 所有函数之外的全局四元式（全局变量和数组的声明），按出现顺序
+     */
+    public List<Quadruple> globalCode() {
+        List<Quadruple> result = new ArrayList<>();
+        for (List<Quadruple> g : globalCode) {
+            result.addAll(g);
+        }
+        return result;
+    }
+
+    /**
+     * 申请一个与现有名字不冲突的临时变量
+     */
+    public String newTemp() {
+        return "t" + (nextTemp++);
+    }
+
+    /**
+     * 申请一个与现有标签不冲突的标签
+     */
+    public String newLabel() {
+        return "L" + (nextLabel++);
+    }
+
+    /**
+     * 拼回完整的四元式列表
+     */
+    public List<Quadruple> toQuadruples() {
+        List<Quadruple> result = new ArrayList<>();
+        for (int i = 0; i < functions.size(); i++) {
+            IrFunction f = functions.get(i);
+            result.addAll(globalCode.get(i));
+            result.addAll(f.header);
+            result.addAll(f.body);
+            if (f.end != null) {
+                result.add(f.end);
+            }
+        }
+        result.addAll(globalCode.get(functions.size()));
+        return result;
+    }
+
+    public int size() {
+        int size = 0;
+        for (List<Quadruple> g : globalCode) {
+            size += g.size();
+        }
+        for (IrFunction f : functions) {
+            size += f.header.size() + f.body.size() + (f.end != null ? 1 : 0);
+        }
+        return size;
+    }
+}
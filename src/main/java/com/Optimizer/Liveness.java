@@ -0,0 +1,110 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+
+/**
+ * 活跃变量分析（后向数据流）
+ * 只跟踪函数私有的标量；全局变量和数组在调用和返回后仍可能被读取，始终视为活跃
+ */
+public class Liveness {
+    private final Set<String> tracked;
+    private final Map<BasicBlock, Set<String>> liveIn = new HashMap<>();
+    private final Map<BasicBlock, Set<String>> liveOut = new HashMap<>();
+
+    /**
+     * @param cfg 控制流图
+     * @param tracked 参与分析的变量（通常为 IrFunction.locals()）
+     */
+    public Liveness(ControlFlowGraph cfg, Set<String> tracked) {
+        this.tracked = tracked;
+        Map<BasicBlock, Set<String>> use = new HashMap<>();
+        Map<BasicBlock, Set<String>> def = new HashMap<>();
+        for (BasicBlock b : cfg.blocks) {
+            Set<String> u = new HashSet<>();
+            Set<String> d = new HashSet<>();
+            for (Quadruple q : b.quads) {
+                for (String v : Quads.uses(q)) {
+                    if (tracked.contains(v) && !d.contains(v)) {
+                        u.add(v);
+                    }
+                }
+                String w = Quads.def(q);
+                if (w != null && tracked.contains(w)) {
+                    d.add(w);
+                }
+            }
+            use.put(b, u);
+            def.put(b, d);
+            liveIn.put(b, new HashSet<>());
+            liveOut.put(b, new HashSet<>());
+        }
+
+        // 按逆序迭代到不动点，后向问题收敛更快
+        List<BasicBlock> order = new ArrayList<>(cfg.blocks);
+        Collections.reverse(order);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (BasicBlock b : order) {
+                Set<String> out = new HashSet<>();
+                for (BasicBlock s : b.succs) {
+                    out.addAll(liveIn.get(s));
+                }
+                Set<String> in = new HashSet<>(out);
+                in.removeAll(def.get(b));
+                in.addAll(use.get(b));
+                if (!in.equals(liveIn.get(b)) || !out.equals(liveOut.get(b))) {
+                    liveIn.put(b, in);
+                    liveOut.put(b, out);
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    public Set<String> liveIn(BasicBlock b) {
+        return liveIn.get(b);
+    }
+
+    public Set<String> liveOut(BasicBlock b) {
+        return liveOut.get(b);
+    }
+
+    /**
+     * 块内每条四元式执行之后的活跃变量集合
+     * @return 与 b.quads 一一对应的列表
+     */
+    public List<Set<String>> liveAfter(BasicBlock b) {
+        List<Set<String>> result = new ArrayList<>(Collections.nCopies(b.quads.size(), null));
+        Set<String> live = new HashSet<>(liveOut.get(b));
+        for (int i = b.quads.size() - 1; i >= 0; i--) {
+            result.set(i, new HashSet<>(live));
+            step(b.quads.get(i), live);
+        }
+        return result;
+    }
+
+    /**
+     * 把 live 从四元式之后的状态回退到四元式之前的状态
+     */
+    public void step(Quadruple q, Set<String> live) {
+        String w = Quads.def(q);
+        if (w != null) {
+            live.remove(w);
+        }
+        for (String v : Quads.uses(q)) {
+            if (tracked.contains(v)) {
+                live.add(v);
+            }
+        }
+    }
+
+    /**
+     * 变量是否参与分析；不参与分析的变量一律视为活跃
+     */
+    public boolean isTracked(String v) {
+        return tracked.contains(v);
+    }
+}
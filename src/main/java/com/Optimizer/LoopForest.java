@@ -0,0 +1,176 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+
+/**
+ * 循环森林
+ * 由回边（目标支配源的边）求出自然循环，同一循环头的回边合并为一个循环，
+ * 再按包含关系组织成嵌套树
+ */
+public class LoopForest {
+
+    /**
+     * 自然循环
+     */
+    public static class Loop {
+        public final BasicBlock header;
+        public final Set<BasicBlock> blocks = new LinkedHashSet<>();
+        // 回边的源块
+        public final List<BasicBlock> latches = new ArrayList<>();
+        public Loop parent;
+        public final List<Loop> children = new ArrayList<>();
+
+        Loop(BasicBlock header) {
+            this.header = header;
+        }
+
+        /**
+         * 嵌套深度，最外层循环为1
+         */
+        public int depth() {
+            int d = 1;
+            for (Loop p = parent; p != null; p = p.parent) {
+                d++;
+            }
+            return d;
+        }
+
+        public boolean contains(BasicBlock b) {
+            return blocks.contains(b);
+        }
+
+        /**
+         * 循环外的出口块（循环内块的循环外后继）
+         */
+        public Set<BasicBlock> exits() {
+            Set<BasicBlock> exits = new LinkedHashSet<>();
+            for (BasicBlock b : blocks) {
+                for (BasicBlock s : b.succs) {
+                    if (!blocks.contains(s)) {
+                        exits.add(s);
+                    }
+                }
+            }
+            return exits;
+        }
+
+        /**
+         * 从循环外进入循环头的前驱
+         */
+        public List<BasicBlock> entries() {
+            List<BasicBlock> entries = new ArrayList<>();
+            for (BasicBlock p : header.preds) {
+                if (!blocks.contains(p)) {
+                    entries.add(p);
+                }
+            }
+            return entries;
+        }
+
+        /**
+         * 变量进入循环时的常量值：从唯一的入口块沿唯一前驱链向上，
+         * 找到的最后一次赋值为常量赋值时返回该常量，否则返回null
+         */
+        public Integer entryConstant(String var) {
+            List<BasicBlock> entries = entries();
+            if (entries.size() != 1) {
+                return null;
+            }
+            Set<BasicBlock> visited = new HashSet<>();
+            for (BasicBlock b = entries.get(0); b != null && visited.add(b);
+                 b = b.preds.size() == 1 ? b.preds.get(0) : null) {
+                for (int i = b.quads.size() - 1; i >= 0; i--) {
+                    Quadruple q = b.quads.get(i);
+                    if (var.equals(Quads.def(q))) {
+                        return "=".equals(q.op) && Quads.isNumber(q.arg1) ? Integer.valueOf(q.arg1) : null;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    private final List<Loop> loops = new ArrayList<>();
+    private final Map<BasicBlock, Loop> innermost = new HashMap<>();
+
+    public LoopForest(ControlFlowGraph cfg) {
+        Map<BasicBlock, Loop> byHeader = new LinkedHashMap<>();
+        for (BasicBlock b : cfg.reversePostorder()) {
+            for (BasicBlock s : b.succs) {
+                if (cfg.dominates(s, b)) {
+                    Loop loop = byHeader.computeIfAbsent(s, Loop::new);
+                    loop.latches.add(b);
+                    collectBody(loop, b);
+                }
+            }
+        }
+        loops.addAll(byHeader.values());
+
+        // 父循环为包含它的最小循环
+        for (Loop loop : loops) {
+            for (Loop other : loops) {
+                if (other != loop && other.blocks.containsAll(loop.blocks)
+                        && (loop.parent == null || loop.parent.blocks.size() > other.blocks.size())) {
+                    loop.parent = other;
+                }
+            }
+        }
+        for (Loop loop : loops) {
+            if (loop.parent != null) {
+                loop.parent.children.add(loop);
+            }
+            for (BasicBlock b : loop.blocks) {
+                Loop cur = innermost.get(b);
+                if (cur == null || cur.blocks.size() > loop.blocks.size()) {
+                    innermost.put(b, loop);
+                }
+            }
+        }
+    }
+
+    private void collectBody(Loop loop, BasicBlock latch) {
+        loop.blocks.add(loop.header);
+        Deque<BasicBlock> work = new ArrayDeque<>();
+        if (loop.blocks.add(latch)) {
+            work.push(latch);
+        }
+        while (!work.isEmpty()) {
+            BasicBlock b = work.pop();
+            for (BasicBlock p : b.preds) {
+                if (loop.blocks.add(p)) {
+                    work.push(p);
+                }
+            }
+        }
+    }
+
+    public List<Loop> loops() {
+        return loops;
+    }
+
+    /**
+     * 由内向外排列的循环（子循环总在父循环之前）
+     */
+    public List<Loop> innerToOuter() {
+        List<Loop> order = new ArrayList<>(loops);
+        order.sort(Comparator.comparingInt(Loop::depth).reversed());
+        return order;
+    }
+
+    /**
+     * 包含该块的最内层循环，不在循环中返回null
+     */
+    public Loop loopOf(BasicBlock b) {
+        return innermost.get(b);
+    }
+
+    /**
+     * 块的循环嵌套深度，不在循环中为0
+     */
+    public int depth(BasicBlock b) {
+        Loop loop = innermost.get(b);
+        return loop == null ? 0 : loop.depth();
+    }
+}
@@ -0,0 +1,146 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+
+/**
+ * 循环不变量外提
+ * 按循环森林由内向外处理每个循环，把每次迭代结果都相同的运算（包括下标不变的数组元素读取）
+ * 移到循环的前置块中，只计算一次
+ * 为保证循环一次都不执行时语义不变，被外提的定义在循环出口处必须不活跃
+ */
+public class LoopInvariantCodeMotion implements OptimizationPass {
+
+    @Override
+    public String getName() {
+        return "licm";
+    }
+
+    @Override
+    public boolean run(IrFunction function) {
+        boolean changed = false;
+        Set<String> done = new HashSet<>();
+        boolean hoisted = true;
+        // 每外提一个循环就重建控制流图，前置块的插入会改变支配关系
+        while (hoisted) {
+            hoisted = false;
+            ControlFlowGraph cfg = ControlFlowGraph.build(function.body);
+            cfg.removeUnreachable();
+            LoopForest forest = new LoopForest(cfg);
+            for (LoopForest.Loop loop : forest.innerToOuter()) {
+                String key = loop.header.label() != null ? loop.header.label() : "B" + loop.header.id;
+                if (!done.add(key)) {
+                    continue;
+                }
+                if (hoist(function, cfg, loop)) {
+                    function.body = cfg.toQuadruples();
+                    hoisted = true;
+                    changed = true;
+                    break;
+                }
+            }
+        }
+        return changed;
+    }
+
+    private boolean hoist(IrFunction function, ControlFlowGraph cfg, LoopForest.Loop loop) {
+        Set<String> locals = function.locals();
+        Liveness liveness = new Liveness(cfg, locals);
+
+        // 循环内的定义次数、被存储的数组以及是否有调用
+        Map<String, Integer> defCount = new HashMap<>();
+        Set<String> storedArrays = new HashSet<>();
+        boolean hasCall = false;
+        for (BasicBlock b : loop.blocks) {
+            for (Quadruple q : b.quads) {
+                String def = Quads.def(q);
+                if (def != null) {
+                    defCount.merge(def, 1, Integer::sum);
+                }
+                if ("=".equals(q.op) && Quads.isArrayElement(q.result)) {
+                    storedArrays.add(Quads.arrayName(q.result));
+                }
+                hasCall |= "call".equals(q.op);
+            }
+        }
+        Set<String> liveAtExit = new HashSet<>();
+        for (BasicBlock exit : loop.exits()) {
+            liveAtExit.addAll(liveness.liveIn(exit));
+        }
+
+        List<Quadruple> invariant = new ArrayList<>();
+        Set<String> invariantDefs = new HashSet<>();
+        boolean found = true;
+        while (found) {
+            found = false;
+            for (BasicBlock b : loop.blocks) {
+                for (Quadruple q : b.quads) {
+                    if (invariant.contains(q)) {
+                        continue;
+                    }
+                    if (isHoistable(q, cfg, loop, b, locals, defCount, storedArrays, hasCall,
+                            invariantDefs, liveAtExit, liveness)) {
+                        invariant.add(q);
+                        invariantDefs.add(Quads.def(q));
+                        found = true;
+                    }
+                }
+            }
+        }
+        if (invariant.isEmpty()) {
+            return false;
+        }
+
+        BasicBlock pre = cfg.preheader(loop, function.program::newLabel);
+        if (pre == null) {
+            return false;
+        }
+        for (BasicBlock b : loop.blocks) {
+            b.quads.removeAll(invariant);
+        }
+        ControlFlowGraph.appendBeforeTerminator(pre, invariant);
+        return true;
+    }
+
+    private boolean isHoistable(Quadruple q, ControlFlowGraph cfg, LoopForest.Loop loop, BasicBlock block,
+                                Set<String> locals, Map<String, Integer> defCount, Set<String> storedArrays,
+                                boolean hasCall, Set<String> invariantDefs, Set<String> liveAtExit,
+                                Liveness liveness) {
+        if (!Quads.isPure(q)) {
+            return false;
+        }
+        String def = Quads.def(q);
+        // 只外提函数私有标量的唯一定义，且循环入口和出口处它都不活跃
+        if (def == null || !locals.contains(def) || defCount.getOrDefault(def, 0) != 1
+                || liveness.liveIn(loop.header).contains(def) || liveAtExit.contains(def)) {
+            return false;
+        }
+        if ("/".equals(q.op) && (!Quads.isNumber(q.arg2) || Integer.parseInt(q.arg2) == 0)) {
+            // 除数可能为0，循环不执行时提前求值会引入原本没有的异常
+            return false;
+        }
+        if ("=".equals(q.op) && Quads.isArrayElement(q.arg1)) {
+            // 数组读取：循环内没有存储该数组、没有调用，且每次迭代都会执行
+            if (storedArrays.contains(Quads.arrayName(q.arg1)) || hasCall) {
+                return false;
+            }
+            for (BasicBlock latch : loop.latches) {
+                if (!cfg.dominates(block, latch)) {
+                    return false;
+                }
+            }
+        }
+        for (String v : Quads.uses(q)) {
+            boolean definedInLoop = defCount.containsKey(v);
+            if (definedInLoop && !invariantDefs.contains(v)) {
+                return false;
+            }
+            if (!definedInLoop && !locals.contains(v) && hasCall) {
+                // 全局变量可能被循环内的调用修改
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,288 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+
+/**
+ * 循环展开
+ * 只处理形如 while/for 翻译出的最内层计数循环：
+ * 循环头为 (label Lh)(j<relop> i K Lexit)，循环体顺序排列在循环头之后、以 (goto Lh) 结束，
+ * i 为循环内只被 i = i ± c 改写一次的私有变量，进入循环时为常量
+ * 迭代次数在编译期可以精确算出：次数少且体积小的循环完全展开，去掉比较和跳转；
+ * 否则按展开因子部分展开，余下的迭代剥离到循环之前，循环体内每展开因子次迭代才判断一次条件
+ */
+public class LoopUnrolling implements OptimizationPass {
+    // 模拟迭代的上限，超过则视为迭代次数未知（16位计数变量的取值个数）
+    private static final int MAX_SIMULATED_TRIPS = 1 << 16;
+    // 默认参数，见 CompileOptions
+    public static final int DEFAULT_MAX_FULL_TRIPS = 8;
+    public static final int DEFAULT_MAX_GROWTH = 64;
+    public static final int DEFAULT_FACTOR = 4;
+
+    // 完全展开允许的最大迭代次数
+    private final int maxFullTrips;
+    // 展开后允许增加的四元式条数
+    private final int maxGrowth;
+    // 部分展开的展开因子
+    private final int factor;
+
+    public LoopUnrolling() {
+        this(DEFAULT_MAX_FULL_TRIPS, DEFAULT_MAX_GROWTH, DEFAULT_FACTOR);
+    }
+
+    /**
+     * @param maxFullTrips 完全展开允许的最大迭代次数
+     * @param maxGrowth 每个循环展开后允许增加的四元式条数
+     * @param factor 部分展开的展开因子，小于2时不做部分展开
+     */
+    public LoopUnrolling(int maxFullTrips, int maxGrowth, int factor) {
+        this.maxFullTrips = maxFullTrips;
+        this.maxGrowth = maxGrowth;
+        this.factor = factor;
+    }
+
+    @Override
+    public String getName() {
+        return "unroll";
+    }
+
+    @Override
+    public boolean run(IrFunction function) {
+        boolean changed = false;
+        Set<String> done = new HashSet<>();
+        boolean unrolled = true;
+        while (unrolled) {
+            unrolled = false;
+            ControlFlowGraph cfg = ControlFlowGraph.build(function.body);
+            cfg.removeUnreachable();
+            LoopForest forest = new LoopForest(cfg);
+            for (LoopForest.Loop loop : forest.innerToOuter()) {
+                String label = loop.header.label();
+                if (!loop.children.isEmpty() || label == null || !done.add(label)) {
+                    continue;
+                }
+                if (unroll(function, cfg, loop, done)) {
+                    unrolled = true;
+                    changed = true;
+                    break;
+                }
+            }
+        }
+        return changed;
+    }
+
+    private boolean unroll(IrFunction function, ControlFlowGraph cfg, LoopForest.Loop loop, Set<String> done) {
+        // 循环头只有标签和条件跳转，条件成立时跳出循环
+        List<Quadruple> head = loop.header.quads;
+        if (head.size() != 2 || !Quads.isConditionalBranch(head.get(1))) {
+            return false;
+        }
+        Quadruple exitBranch = head.get(1);
+
+        // 循环体在线性顺序上紧跟循环头，以唯一的回边 (goto Lh) 结束，出口紧跟其后
+        if (loop.latches.size() != 1) {
+            return false;
+        }
+        BasicBlock latch = loop.latches.get(0);
+        Quadruple back = latch.terminator();
+        int first = cfg.blocks.indexOf(loop.header);
+        int last = cfg.blocks.indexOf(latch);
+        if (back == null || !"goto".equals(back.op) || last <= first
+                || last - first + 1 != loop.blocks.size()) {
+            return false;
+        }
+        List<BasicBlock> body = cfg.blocks.subList(first + 1, last + 1);
+        for (BasicBlock b : body) {
+            if (!loop.contains(b)) {
+                return false;
+            }
+            for (BasicBlock s : b.succs) {
+                if (!loop.contains(s)) {
+                    return false;
+                }
+            }
+        }
+        BasicBlock exit = cfg.next(latch);
+        if (exit == null || !exitBranch.result.equals(exit.label())) {
+            return false;
+        }
+        Set<String> locals = function.locals();
+
+        Integer trips = tripCount(cfg, loop, exitBranch, latch, locals);
+        if (trips == null) {
+            return false;
+        }
+
+        int size = 0;
+        for (BasicBlock b : body) {
+            for (Quadruple q : b.quads) {
+                if (!"label".equals(q.op) && q != back) {
+                    size++;
+                }
+            }
+        }
+
+        List<Quadruple> region = new ArrayList<>();
+        region.add(head.get(0));
+        if (trips <= maxFullTrips && trips * size - size - head.size() <= maxGrowth) {
+            // 完全展开：n 份循环体顺序排列，不再有比较和回边；声明只保留一份
+            for (BasicBlock b : body) {
+                for (Quadruple q : b.quads) {
+                    if (Quads.isDeclaration(q)) {
+                        region.add(q);
+                    }
+                }
+            }
+            for (int k = 0; k < trips; k++) {
+                region.addAll(copyBody(function, body, back));
+            }
+        } else {
+            int u = factor;
+            while (u >= 2 && (u - 1 + trips % u) * size > maxGrowth) {
+                u--;
+            }
+            if (u < 2 || trips < u) {
+                return false;
+            }
+            // 部分展开：先剥离 n mod u 次迭代，剩余迭代次数是 u 的倍数，每 u 次迭代判断一次条件
+            for (int k = 0; k < trips % u; k++) {
+                region.addAll(copyBody(function, body, back));
+            }
+            String header = function.program.newLabel();
+            done.add(header);
+            region.add(new Quadruple("label", "_", "_", header));
+            region.add(exitBranch);
+            for (int k = 1; k < u; k++) {
+                region.addAll(copyBody(function, body, back));
+            }
+            for (BasicBlock b : body) {
+                region.addAll(b.quads);
+            }
+            back.result = header;
+        }
+
+        List<Quadruple> quads = new ArrayList<>();
+        for (int i = 0; i < cfg.blocks.size(); i++) {
+            if (i == first) {
+                quads.addAll(region);
+            } else if (i < first || i > last) {
+                quads.addAll(cfg.blocks.get(i).quads);
+            }
+        }
+        function.body = quads;
+        return true;
+    }
+
+    /**
+     * 精确计算循环迭代次数，无法确定时返回null
+     * 出口跳转比较的一侧为基本归纳变量、另一侧为常量，按16位回绕逐次模拟
+     */
+    private Integer tripCount(ControlFlowGraph cfg, LoopForest.Loop loop, Quadruple exitBranch,
+                              BasicBlock latch, Set<String> locals) {
+        String iv;
+        if (Quads.isVariable(exitBranch.arg1) && Quads.isNumber(exitBranch.arg2)) {
+            iv = exitBranch.arg1;
+        } else if (Quads.isNumber(exitBranch.arg1) && Quads.isVariable(exitBranch.arg2)) {
+            iv = exitBranch.arg2;
+        } else {
+            return null;
+        }
+        if (!locals.contains(iv)) {
+            return null;
+        }
+        Integer step = step(cfg, loop, iv, latch);
+        Integer value = loop.entryConstant(iv);
+        if (step == null || step == 0 || value == null) {
+            return null;
+        }
+        int v = value;
+        for (int trips = 0; trips < MAX_SIMULATED_TRIPS; trips++) {
+            int a = iv.equals(exitBranch.arg1) ? v : Integer.parseInt(exitBranch.arg1);
+            int b = iv.equals(exitBranch.arg2) ? v : Integer.parseInt(exitBranch.arg2);
+            Integer exits = Quads.fold(Quads.relation(exitBranch), a, b);
+            if (exits == null) {
+                return null;
+            }
+            if (exits != 0) {
+                return trips;
+            }
+            v = Quads.wrap(v + step);
+        }
+        return null;
+    }
+
+    /**
+     * 归纳变量每次迭代的步长
+     * 循环内对它只有一次定义，且该定义在每次迭代都恰好执行一次（所在块支配回边、不在循环头中）；
+     * 定义为 (+ i c i)、(+ c i i)、(- i c i)，或同一块中先算出 (+ i c t) 再 (= t _ i)
+     */
+    private Integer step(ControlFlowGraph cfg, LoopForest.Loop loop, String iv, BasicBlock latch) {
+        Quadruple update = null;
+        BasicBlock block = null;
+        for (BasicBlock b : loop.blocks) {
+            for (Quadruple q : b.quads) {
+                if (iv.equals(Quads.def(q))) {
+                    if (update != null) {
+                        return null;
+                    }
+                    update = q;
+                    block = b;
+                }
+            }
+        }
+        if (update == null || block == loop.header || !cfg.dominates(block, latch)) {
+            return null;
+        }
+        if ("=".equals(update.op) && Quads.isTemp(update.arg1)) {
+            // 在同一块中向前找临时变量的定义，中间不能再改写它
+            String temp = update.arg1;
+            int at = block.quads.indexOf(update);
+            update = null;
+            for (int i = at - 1; i >= 0; i--) {
+                if (temp.equals(Quads.def(block.quads.get(i)))) {
+                    update = block.quads.get(i);
+                    break;
+                }
+            }
+            if (update == null) {
+                return null;
+            }
+        }
+        if ("+".equals(update.op) && iv.equals(update.arg1) && Quads.isNumber(update.arg2)) {
+            return Integer.parseInt(update.arg2);
+        }
+        if ("+".equals(update.op) && iv.equals(update.arg2) && Quads.isNumber(update.arg1)) {
+            return Integer.parseInt(update.arg1);
+        }
+        if ("-".equals(update.op) && iv.equals(update.arg1) && Quads.isNumber(update.arg2)) {
+            return -Integer.parseInt(update.arg2);
+        }
+        return null;
+    }
+
+    /**
+     * 复制一份循环体，去掉结尾的回边和声明，体内的标签换成新标签
+     */
+    private List<Quadruple> copyBody(IrFunction function, List<BasicBlock> body, Quadruple back) {
+        Map<String, String> labels = new HashMap<>();
+        for (BasicBlock b : body) {
+            String label = b.label();
+            if (label != null) {
+                labels.put(label, function.program.newLabel());
+            }
+        }
+        List<Quadruple> copy = new ArrayList<>();
+        for (BasicBlock b : body) {
+            for (Quadruple q : b.quads) {
+                if (q == back || Quads.isDeclaration(q)) {
+                    continue;
+                }
+                String result = "label".equals(q.op) || Quads.isBranch(q)
+                        ? labels.getOrDefault(q.result, q.result) : q.result;
+                copy.add(new Quadruple(q.op, q.arg1, q.arg2, result));
+            }
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,32 @@
+package com.Optimizer;
+
+/**
+ * 优化级别
+ * O0 不做任何优化；O1 只做开销小的标量优化；O2 做全部优化；Os 以代码体积为先，不做会让代码变大的优化
+ */
+public enum OptLevel {
+    O0, O1, O2, Os;
+
+    /**
+     * 解析优化级别，接受 -O2、O2、2、-Os、s 等写法，空串或null为默认的 O0
+     */
+    public static OptLevel parse(String text) {
+        if (text == null || text.isBlank()) {
+            return O0;
+        }
+        String s = text.trim();
+        if (s.startsWith("-")) {
+            s = s.substring(1);
+        }
+        if (s.startsWith("O") || s.startsWith("o")) {
+            s = s.substring(1);
+        }
+        return switch (s) {
+            case "0" -> O0;
+            case "1" -> O1;
+            case "2" -> O2;
+            case "s", "S" -> Os;
+            default -> throw new RuntimeException("未知的优化级别: " + text);
+        };
+    }
+}
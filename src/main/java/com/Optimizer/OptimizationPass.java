@@ -0,0 +1,18 @@
+package com.Optimizer;
+
+/**
+ * 作用于单个函数的中间代码优化遍
+ */
+public interface OptimizationPass {
+    /**
+     * 优化遍名称
+     */
+    String getName();
+
+    /**
+     * 对函数体执行一次优化
+     * @param function 待优化的函数
+     * @return 是否改动了四元式
+     */
+    boolean run(IrFunction function);
+}
@@ -0,0 +1,119 @@
+package com.Optimizer;
+
+import com.Profile.CompileProfile;
+import lombok.Setter;
+
+import java.util.*;
+
+/**
+ * 优化遍管理器
+ * 按顺序执行一组步骤，每个步骤是单个优化遍，或是反复执行直到不再变化（不动点）的一组优化遍；
+ * 按名字禁用的优化遍直接跳过；设置了 profile 时记录每个优化遍的耗时、分配字节数和前后的四元式条数
+ */
+public class PassManager {
+    private final List<Step> steps = new ArrayList<>();
+    private final Set<String> disabled;
+    private final Map<String, Integer> occurrences = new HashMap<>();
+    @Setter
+    private CompileProfile profile;
+
+    /**
+     * @param disabled 禁用的优化遍名称
+     */
+    public PassManager(Set<String> disabled) {
+        this.disabled = disabled;
+    }
+
+    /**
+     * 追加一个只执行一次的优化遍
+     */
+    public PassManager add(OptimizationPass pass) {
+        return fixpoint(1, pass);
+    }
+
+    /**
+     * 追加一组反复执行的优化遍，直到一轮中没有任何改动，最多执行 maxRounds 轮
+     */
+    public PassManager fixpoint(int maxRounds, OptimizationPass... passes) {
+        List<String> labels = new ArrayList<>();
+        for (OptimizationPass pass : passes) {
+            // 同一优化遍在流水线中多次出现时按出现次序编号，如 sccp、sccp#2
+            int n = occurrences.merge(pass.getName(), 1, Integer::sum);
+            labels.add(n == 1 ? pass.getName() : pass.getName() + "#" + n);
+        }
+        steps.add(new Step(List.of(passes), labels, maxRounds));
+        return this;
+    }
+
+    public boolean isEnabled(String name) {
+        return !disabled.contains(name);
+    }
+
+    /**
+     * 对函数依次执行各步骤
+     * @return 是否改动了四元式
+     */
+    public boolean run(IrFunction function) {
+        boolean changed = false;
+        for (Step step : steps) {
+            // 各优化遍在本函数上第一次执行前、最后一次执行后的四元式条数
+            Map<String, Integer> before = new HashMap<>();
+            Map<String, Integer> after = new HashMap<>();
+            for (int round = 0; round < step.maxRounds(); round++) {
+                boolean progress = false;
+                for (int i = 0; i < step.passes().size(); i++) {
+                    OptimizationPass pass = step.passes().get(i);
+                    if (!isEnabled(pass.getName())) {
+                        continue;
+                    }
+                    if (profile == null) {
+                        progress |= pass.run(function);
+                        continue;
+                    }
+                    String label = step.labels().get(i);
+                    before.putIfAbsent(label, function.size());
+                    long bytes = CompileProfile.allocatedBytes();
+                    long start = System.nanoTime();
+                    progress |= pass.run(function);
+                    profile.record(label, System.nanoTime() - start, CompileProfile.allocatedBytes() - bytes);
+                    after.put(label, function.size());
+                }
+                changed |= progress;
+                if (!progress) {
+                    break;
+                }
+            }
+            if (profile != null) {
+                for (String label : step.labels()) {
+                    if (before.containsKey(label)) {
+                        profile.stage(label).addIrSize(before.get(label), after.get(label));
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 流水线描述，如 inline tailcall [sccp copyprop dce]*4，禁用的优化遍不列出
+     */
+    public String describe() {
+        StringJoiner sj = new StringJoiner(" ");
+        for (Step step : steps) {
+            StringJoiner names = new StringJoiner(" ");
+            for (OptimizationPass pass : step.passes()) {
+                if (isEnabled(pass.getName())) {
+                    names.add(pass.getName());
+                }
+            }
+            if (names.length() == 0) {
+                continue;
+            }
+            sj.add(step.maxRounds() > 1 ? "[" + names + "]*" + step.maxRounds() : names.toString());
+        }
+        return sj.length() == 0 ? "无" : sj.toString();
+    }
+
+    private record Step(List<OptimizationPass> passes, List<String> labels, int maxRounds) {
+    }
+}
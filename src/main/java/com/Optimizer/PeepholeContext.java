@@ -0,0 +1,120 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 窥孔规则可以查询的全函数信息：变量的读取次数和活跃性、标签的引用次数、标签之后的第一条指令，
+ * 以及窗口之后顺序执行会经过哪些标签
+ */
+public class PeepholeContext {
+    private final List<Quadruple> body;
+    private final Set<String> locals;
+    private final Map<String, Integer> useCount = new HashMap<>();
+    private final Map<String, Integer> labelRefs = new HashMap<>();
+    private final Map<String, Integer> labelIndex = new HashMap<>();
+    // 当前窗口之后第一条四元式的下标
+    int end;
+    // 活跃变量信息，首次查询时才计算
+    private ControlFlowGraph cfg;
+    private Liveness liveness;
+
+    PeepholeContext(IrFunction function) {
+        this.body = function.body;
+        this.locals = function.locals();
+        for (int i = 0; i < body.size(); i++) {
+            Quadruple q = body.get(i);
+            for (String v : Quads.uses(q)) {
+                useCount.merge(v, 1, Integer::sum);
+            }
+            if (Quads.isBranch(q)) {
+                labelRefs.merge(q.result, 1, Integer::sum);
+            } else if ("label".equals(q.op)) {
+                labelIndex.put(q.result, i);
+            }
+        }
+    }
+
+    /**
+     * 变量在函数体中被读取的次数
+     */
+    public int useCount(String var) {
+        return useCount.getOrDefault(var, 0);
+    }
+
+    public boolean isLocal(String var) {
+        return locals.contains(var);
+    }
+
+    /**
+     * 私有变量在四元式执行之后是否仍活跃；非私有变量总视为活跃
+     */
+    public boolean isLiveAfter(Quadruple q, String var) {
+        if (!isLocal(var)) {
+            return true;
+        }
+        if (liveness == null) {
+            cfg = ControlFlowGraph.build(body);
+            liveness = new Liveness(cfg, locals);
+        }
+        for (BasicBlock b : cfg.blocks) {
+            int at = indexOf(b.quads, q);
+            if (at >= 0) {
+                return liveness.liveAfter(b).get(at).contains(var);
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(List<Quadruple> quads, Quadruple q) {
+        for (int i = 0; i < quads.size(); i++) {
+            if (quads.get(i) == q) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 跳转到该标签的四元式条数
+     */
+    public int labelRefs(String label) {
+        return labelRefs.getOrDefault(label, 0);
+    }
+
+    /**
+     * 从窗口末尾顺序执行，只经过标签和控制流标记就能到达该标签
+     */
+    public boolean fallsInto(String label) {
+        for (int i = end; i < body.size() && isTransparent(body.get(i)); i++) {
+            if ("label".equals(body.get(i).op) && label.equals(body.get(i).result)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 跳到该标签后实际执行的第一条四元式（跳过标签和控制流标记），没有则返回null
+     */
+    public Quadruple firstAfter(String label) {
+        Integer at = labelIndex.get(label);
+        if (at == null) {
+            return null;
+        }
+        for (int i = at; i < body.size(); i++) {
+            if (!isTransparent(body.get(i))) {
+                return body.get(i);
+            }
+        }
+        return null;
+    }
+
+    private static boolean isTransparent(Quadruple q) {
+        return "label".equals(q.op) || Quads.isMarker(q);
+    }
+}
@@ -0,0 +1,103 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 四元式窥孔优化
+ * 用可替换的规则集在函数体上滑动窗口，命中即替换窗口中的四元式，
+ * 并从受影响的位置重新扫描，直到没有规则命中为止；记录每条规则的命中次数
+ */
+public class PeepholeOptimizer implements OptimizationPass {
+    private final List<PeepholeRule> rules;
+    private final Map<String, Integer> hits = new LinkedHashMap<>();
+    private final int maxWindow;
+
+    public PeepholeOptimizer() {
+        this(PeepholeRules.defaults());
+    }
+
+    public PeepholeOptimizer(List<PeepholeRule> rules) {
+        this.rules = rules;
+        int max = 1;
+        for (PeepholeRule rule : rules) {
+            max = Math.max(max, rule.size());
+            hits.put(rule.getName(), 0);
+        }
+        this.maxWindow = max;
+    }
+
+    @Override
+    public String getName() {
+        return "peephole";
+    }
+
+    @Override
+    public boolean run(IrFunction function) {
+        boolean changed = false;
+        // 改写会改变变量和标签的引用情况，远处的窗口也可能因此匹配，逐遍扫描直到不再变化
+        while (sweep(function)) {
+            changed = true;
+        }
+        return changed;
+    }
+
+    private boolean sweep(IrFunction function) {
+        boolean changed = false;
+        PeepholeContext context = new PeepholeContext(function);
+        List<Quadruple> body = function.body;
+        int i = 0;
+        while (i < body.size()) {
+            PeepholeRule hit = null;
+            for (PeepholeRule rule : rules) {
+                int n = rule.size();
+                if (i + n > body.size()) {
+                    continue;
+                }
+                context.end = i + n;
+                List<Quadruple> window = body.subList(i, i + n);
+                List<Quadruple> replacement = rule.rewrite(new ArrayList<>(window), context);
+                if (replacement != null) {
+                    window.clear();
+                    window.addAll(replacement);
+                    hit = rule;
+                    break;
+                }
+            }
+            if (hit == null) {
+                i++;
+                continue;
+            }
+            hits.merge(hit.getName(), 1, Integer::sum);
+            changed = true;
+            // 改写可能让前面的窗口重新匹配，回退一个窗口重新扫描
+            context = new PeepholeContext(function);
+            i = Math.max(0, i - maxWindow + 1);
+        }
+        return changed;
+    }
+
+    /**
+     * 各规则累计的命中次数
+     */
+    public Map<String, Integer> hits() {
+        return hits;
+    }
+
+    /**
+     * 命中次数报告，如 goto-next=3, jump-thread=1
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        hits.forEach((name, count) -> {
+            if (count > 0) {
+                sb.append(sb.isEmpty() ? "" : ", ").append(name).append('=').append(count);
+            }
+        });
+        return sb.isEmpty() ? "无" : sb.toString();
+    }
+}
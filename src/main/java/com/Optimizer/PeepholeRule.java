@@ -0,0 +1,29 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.List;
+
+/**
+ * 窥孔优化规则
+ * 在函数体上滑动一个固定大小的窗口，规则只看窗口内的四元式（以及 PeepholeContext 提供的全函数信息）决定是否改写
+ */
+public interface PeepholeRule {
+    /**
+     * 规则名称，用于统计命中次数
+     */
+    String getName();
+
+    /**
+     * 窗口大小（连续四元式的条数）
+     */
+    int size();
+
+    /**
+     * 尝试改写窗口
+     * @param window 窗口内的四元式，不要原地修改
+     * @param context 窗口所在函数的信息
+     * @return 替换窗口的四元式；不匹配时返回null
+     */
+    List<Quadruple> rewrite(List<Quadruple> window, PeepholeContext context);
+}
@@ -0,0 +1,231 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+
+/**
+ * 内置的窥孔规则
+ */
+public final class PeepholeRules {
+    private PeepholeRules() {
+    }
+
+    /**
+     * 默认规则集，按顺序尝试
+     */
+    public static List<PeepholeRule> defaults() {
+        return List.of(
+                new GotoNext(),
+                new JumpThreading(),
+                new GotoReturn(),
+                new Unreachable(),
+                new DeadLabel(),
+                new SelfCopy(),
+                new CopyChain(),
+                new InvertBranch()
+        );
+    }
+
+    /**
+     * (goto L) 之后顺序执行就到达 L：删除跳转
+     */
+    public static class GotoNext implements PeepholeRule {
+        @Override
+        public String getName() {
+            return "goto-next";
+        }
+
+        @Override
+        public int size() {
+            return 1;
+        }
+
+        @Override
+        public List<Quadruple> rewrite(List<Quadruple> window, PeepholeContext context) {
+            Quadruple q = window.get(0);
+            return "goto".equals(q.op) && context.fallsInto(q.result) ? List.of() : null;
+        }
+    }
+
+    /**
+     * 跳转的目标处是另一条 goto：直接跳到最终目标（目标链成环时不改写）
+     */
+    public static class JumpThreading implements PeepholeRule {
+        @Override
+        public String getName() {
+            return "jump-thread";
+        }
+
+        @Override
+        public int size() {
+            return 1;
+        }
+
+        @Override
+        public List<Quadruple> rewrite(List<Quadruple> window, PeepholeContext context) {
+            Quadruple q = window.get(0);
+            if (!Quads.isBranch(q)) {
+                return null;
+            }
+            String target = q.result;
+            Set<String> visited = new HashSet<>(Set.of(target));
+            for (Quadruple first = context.firstAfter(target); first != null && "goto".equals(first.op);
+                 first = context.firstAfter(target)) {
+                if (!visited.add(first.result)) {
+                    return null;
+                }
+                target = first.result;
+            }
+            return target.equals(q.result) ? null : List.of(new Quadruple(q.op, q.arg1, q.arg2, target));
+        }
+    }
+
+    /**
+     * (goto L) 而 L 处是 return：直接返回
+     */
+    public static class GotoReturn implements PeepholeRule {
+        @Override
+        public String getName() {
+            return "goto-return";
+        }
+
+        @Override
+        public int size() {
+            return 1;
+        }
+
+        @Override
+        public List<Quadruple> rewrite(List<Quadruple> window, PeepholeContext context) {
+            Quadruple q = window.get(0);
+            if (!"goto".equals(q.op)) {
+                return null;
+            }
+            Quadruple first = context.firstAfter(q.result);
+            if (first == null || !"return".equals(first.op)) {
+                return null;
+            }
+            return List.of(new Quadruple(first.op, first.arg1, first.arg2, first.result));
+        }
+    }
+
+    /**
+     * 无条件跳转或返回之后、下一个标签之前的四元式不可达（声明除外）
+     */
+    public static class Unreachable implements PeepholeRule {
+        @Override
+        public String getName() {
+            return "unreachable";
+        }
+
+        @Override
+        public int size() {
+            return 2;
+        }
+
+        @Override
+        public List<Quadruple> rewrite(List<Quadruple> window, PeepholeContext context) {
+            Quadruple q = window.get(1);
+            if (!Quads.endsFlow(window.get(0)) || "label".equals(q.op) || Quads.isMarker(q) || Quads.isDeclaration(q)) {
+                return null;
+            }
+            return List.of(window.get(0));
+        }
+    }
+
+    /**
+     * 没有任何跳转引用的标签
+     */
+    public static class DeadLabel implements PeepholeRule {
+        @Override
+        public String getName() {
+            return "dead-label";
+        }
+
+        @Override
+        public int size() {
+            return 1;
+        }
+
+        @Override
+        public List<Quadruple> rewrite(List<Quadruple> window, PeepholeContext context) {
+            Quadruple q = window.get(0);
+            return "label".equals(q.op) && context.labelRefs(q.result) == 0 ? List.of() : null;
+        }
+    }
+
+    /**
+     * (= x _ x)
+     */
+    public static class SelfCopy implements PeepholeRule {
+        @Override
+        public String getName() {
+            return "self-copy";
+        }
+
+        @Override
+        public int size() {
+            return 1;
+        }
+
+        @Override
+        public List<Quadruple> rewrite(List<Quadruple> window, PeepholeContext context) {
+            Quadruple q = window.get(0);
+            return "=".equals(q.op) && q.arg1.equals(q.result) ? List.of() : null;
+        }
+    }
+
+    /**
+     * (op a b t)(= t _ x)，t 为复制之后不再活跃的临时变量：运算直接写入 x
+     */
+    public static class CopyChain implements PeepholeRule {
+        @Override
+        public String getName() {
+            return "copy-chain";
+        }
+
+        @Override
+        public int size() {
+            return 2;
+        }
+
+        @Override
+        public List<Quadruple> rewrite(List<Quadruple> window, PeepholeContext context) {
+            Quadruple def = window.get(0);
+            Quadruple copy = window.get(1);
+            String t = Quads.def(def);
+            if (t == null || !"=".equals(copy.op) || !t.equals(copy.arg1) || !Quads.isTemp(t)
+                    || context.isLiveAfter(copy, t) || !Quads.isVariable(copy.result)) {
+                return null;
+            }
+            return List.of(new Quadruple(def.op, def.arg1, def.arg2, copy.result));
+        }
+    }
+
+    /**
+     * (j<relop> a b L1)(goto L2) L1:，即条件成立时落到 L1、否则跳到 L2：
+     * 关系取反后只保留一条条件跳转 (j<!relop> a b L2)
+     */
+    public static class InvertBranch implements PeepholeRule {
+        @Override
+        public String getName() {
+            return "invert-branch";
+        }
+
+        @Override
+        public int size() {
+            return 2;
+        }
+
+        @Override
+        public List<Quadruple> rewrite(List<Quadruple> window, PeepholeContext context) {
+            Quadruple branch = window.get(0);
+            Quadruple jump = window.get(1);
+            if (!Quads.isConditionalBranch(branch) || !"goto".equals(jump.op) || !context.fallsInto(branch.result)) {
+                return null;
+            }
+            String op = Quads.branchOp(Quads.negate(Quads.relation(branch)));
+            return List.of(new Quadruple(op, branch.arg1, branch.arg2, jump.result));
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.OperandKind;
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * 四元式辅助工具
+ * 统一描述各类四元式读写了哪些变量、是否为跳转等信息，供所有优化遍共用
+ */
+public final class Quads {
+    private Quads() {
+    }
+
+    /**
+     * 判断字符串是否为整数字面量
+     */
+    public static boolean isNumber(String s) {
+        return OperandKind.of(s) == OperandKind.INT;
+    }
+
+    /**
+     * 判断操作数是否为变量（标识符或数组元素以外的具名值）
+     */
+    public static boolean isVariable(String s) {
+        return OperandKind.of(s).isVariable();
+    }
+
+    /**
+     * 判断操作数是否为编译器生成的临时变量(t数字)
+     */
+    public static boolean isTemp(String s) {
+        return OperandKind.of(s) == OperandKind.TEMP;
+    }
+
+    /**
+     * 判断操作数是否为数组元素，如 a[t3]
+     */
+    public static boolean isArrayElement(String s) {
+        return OperandKind.of(s) == OperandKind.ARRAY_ELEMENT;
+    }
+
+    public static String arrayName(String element) {
+        return element.substring(0, element.indexOf('['));
+    }
+
+    public static String arrayIndex(String element) {
+        return element.substring(element.indexOf('[') + 1, element.length() - 1);
+    }
+
+    public static String arrayElement(String name, String index) {
+        return name + "[" + index + "]";
+    }
+
+    public static boolean isArithmetic(String op) {
+        return switch (op) {
+            case "+", "-", "*", "/", "<<", ">>" -> true;
+            default -> false;
+        };
+    }
+
+    public static boolean isComparison(String op) {
+        return switch (op) {
+            case "==", "!=", "<", "<=", ">", ">=" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * 比较运算取反，如 < 变为 >=
+     */
+    public static String negate(String op) {
+        return switch (op) {
+            case "==" -> "!=";
+            case "!=" -> "==";
+            case "<" -> ">=";
+            case "<=" -> ">";
+            case ">" -> "<=";
+            case ">=" -> "<";
+            default -> throw new RuntimeException("not a comparison: " + op);
+        };
+    }
+
+    /**
+     * 交换比较两侧操作数后的等价关系，如 a < b 即 b > a
+     */
+    public static String mirror(String op) {
+        return switch (op) {
+            case "==", "!=" -> op;
+            case "<" -> ">";
+            case "<=" -> ">=";
+            case ">" -> "<";
+            case ">=" -> "<=";
+            default -> throw new RuntimeException("not a comparison: " + op);
+        };
+    }
+
+    /**
+     * 是否为无副作用、结果只取决于操作数的运算
+     */
+    public static boolean isPure(Quadruple q) {
+        return isArithmetic(q.op) || isComparison(q.op) || "=".equals(q.op);
+    }
+
+    /**
+     * 比较与跳转合一的条件跳转 (j<relop> a b L)：a relop b 成立时跳到 L，否则顺序执行
+     */
+    public static boolean isConditionalBranch(Quadruple q) {
+        return q.op.length() > 1 && q.op.charAt(0) == 'j' && isComparison(q.op.substring(1));
+    }
+
+    /**
+     * 条件跳转所比较的关系运算，如 j< 的 <
+     */
+    public static String relation(Quadruple branch) {
+        return branch.op.substring(1);
+    }
+
+    /**
+     * 关系运算成立时跳转的条件跳转操作符，如 < 对应 j<
+     */
+    public static String branchOp(String relation) {
+        return "j" + relation;
+    }
+
+    public static boolean isBranch(Quadruple q) {
+        return "goto".equals(q.op) || isConditionalBranch(q);
+    }
+
+    /**
+     * 离开当前函数：return，或复用当前栈帧跳到被调函数的尾调用 tailcall
+     */
+    public static boolean isExit(Quadruple q) {
+        return "return".equals(q.op) || "tailcall".equals(q.op);
+    }
+
+    /**
+     * 执行后不会顺序落到下一条四元式
+     */
+    public static boolean endsFlow(Quadruple q) {
+        return "goto".equals(q.op) || isExit(q);
+    }
+
+    /**
+     * if/while 结构的标记（wh、we、el、ie），不产生任何执行效果
+     */
+    public static boolean isMarker(Quadruple q) {
+        return switch (q.op) {
+            case "wh", "we", "el", "ie" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * 只用于声明、不产生任何执行效果的四元式
+     */
+    public static boolean isDeclaration(Quadruple q) {
+        return switch (q.op) {
+            case "var_decl", "ARRAY_DECL", "param_decl" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * 四元式定义（写入）的标量变量，没有则返回null
+     * 写入数组元素视为对内存的存储，不算定义
+     */
+    public static String def(Quadruple q) {
+        if (isArithmetic(q.op) || isComparison(q.op) || "=".equals(q.op) || "call".equals(q.op)) {
+            return q.kindOfResult().isVariable() ? q.result : null;
+        }
+        return null;
+    }
+
+    /**
+     * 四元式读取的标量变量（包括数组下标中的变量）
+     * 操作数的分类取四元式按字段缓存的结果，只有数组下标需要重新分类
+     */
+    public static List<String> uses(Quadruple q) {
+        List<String> uses = new ArrayList<>(2);
+        switch (q.op) {
+            case "=" -> {
+                addUse(uses, q.arg1, q.kindOfArg1());
+                if (q.kindOfResult() == OperandKind.ARRAY_ELEMENT) {
+                    addUse(uses, arrayIndex(q.result));
+                }
+            }
+            case "param", "return" -> addUse(uses, q.arg1, q.kindOfArg1());
+            default -> {
+                if (isArithmetic(q.op) || isComparison(q.op) || isConditionalBranch(q)) {
+                    addUse(uses, q.arg1, q.kindOfArg1());
+                    addUse(uses, q.arg2, q.kindOfArg2());
+                }
+            }
+        }
+        return uses;
+    }
+
+    private static void addUse(List<String> uses, String operand, OperandKind kind) {
+        if (kind == OperandKind.ARRAY_ELEMENT) {
+            addUse(uses, arrayIndex(operand));
+        } else if (kind.isVariable()) {
+            uses.add(operand);
+        }
+    }
+
+    private static void addUse(List<String> uses, String index) {
+        if (isVariable(index)) {
+            uses.add(index);
+        }
+    }
+
+    /**
+     * 用给定函数替换四元式中所有被读取的变量
+     */
+    public static void replaceUses(Quadruple q, UnaryOperator<String> f) {
+        switch (q.op) {
+            case "=" -> {
+                q.arg1 = mapUse(q.arg1, q.kindOfArg1(), f);
+                if (q.kindOfResult() == OperandKind.ARRAY_ELEMENT) {
+                    q.result = mapUse(q.result, OperandKind.ARRAY_ELEMENT, f);
+                }
+            }
+            case "param", "return" -> q.arg1 = mapUse(q.arg1, q.kindOfArg1(), f);
+            default -> {
+                if (isArithmetic(q.op) || isComparison(q.op) || isConditionalBranch(q)) {
+                    q.arg1 = mapUse(q.arg1, q.kindOfArg1(), f);
+                    q.arg2 = mapUse(q.arg2, q.kindOfArg2(), f);
+                }
+            }
+        }
+    }
+
+    private static String mapUse(String operand, OperandKind kind, UnaryOperator<String> f) {
+        if (kind == OperandKind.ARRAY_ELEMENT) {
+            String index = arrayIndex(operand);
+            return isVariable(index) ? arrayElement(arrayName(operand), f.apply(index)) : operand;
+        }
+        return kind.isVariable() ? f.apply(operand) : operand;
+    }
+
+    /**
+     * 把整数截断为16位有符号数，与目标机的字长保持一致
+     */
+    public static int wrap(int value) {
+        return (short) value;
+    }
+
+    /**
+     * 对两个常量做编译期求值，无法求值（如除数为0）时返回null
+     */
+    public static Integer fold(String op, int a, int b) {
+        return switch (op) {
+            case "+" -> wrap(a + b);
+            case "-" -> wrap(a - b);
+            case "*" -> wrap(a * b);
+            case "/" -> b == 0 ? null : wrap(a / b);
+            case "<<" -> b < 0 || b > 15 ? null : wrap(a << b);
+            case ">>" -> b < 0 || b > 15 ? null : a >> b;
+            case "==" -> a == b ? 1 : 0;
+            case "!=" -> a != b ? 1 : 0;
+            case "<" -> a < b ? 1 : 0;
+            case "<=" -> a <= b ? 1 : 0;
+            case ">" -> a > b ? 1 : 0;
+            case ">=" -> a >= b ? 1 : 0;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,266 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+
+/**
+ * 稀疏条件常量传播(SCCP, Wegman-Zadeck)
+ * 在 SSA 形式上同时跟踪变量的常量格值和控制流边的可执行性：
+ * 常量经变量传播并折叠，结果恒定的条件跳转被改写为 goto 或删除，永不执行的块被剪除
+ */
+public class SparseConditionalConstantPropagation implements OptimizationPass {
+
+    /**
+     * 常量格：TOP(尚未确定) > 常量 > BOTTOM(非常量)
+     */
+    private static final class Value {
+        static final Value TOP = new Value(0);
+        static final Value BOTTOM = new Value(0);
+        final int constant;
+
+        Value(int constant) {
+            this.constant = constant;
+        }
+
+        boolean isConstant() {
+            return this != TOP && this != BOTTOM;
+        }
+
+        Value meet(Value other) {
+            if (this == TOP) return other;
+            if (other == TOP) return this;
+            if (this == BOTTOM || other == BOTTOM) return BOTTOM;
+            return constant == other.constant ? this : BOTTOM;
+        }
+
+        boolean same(Value other) {
+            if (isConstant() && other.isConstant()) {
+                return constant == other.constant;
+            }
+            return this == other;
+        }
+    }
+
+    private record Edge(BasicBlock from, BasicBlock to) {
+    }
+
+    // 使用某个 SSA 名字的位置：φ 或四元式
+    private record Use(BasicBlock block, Object site) {
+    }
+
+    private ControlFlowGraph cfg;
+    private Map<String, Value> values;
+    private Map<String, List<Use>> useSites;
+    private Set<Edge> executableEdges;
+    private Set<BasicBlock> executableBlocks;
+    private Deque<Edge> flowWork;
+    private Deque<String> ssaWork;
+
+    @Override
+    public String getName() {
+        return "sccp";
+    }
+
+    @Override
+    public boolean run(IrFunction function) {
+        ControlFlowGraph cfg = ControlFlowGraph.build(function.body);
+        boolean changed = cfg.removeUnreachable();
+        SsaForm.construct(cfg, function.locals());
+
+        analyze(cfg);
+        changed |= rewrite(cfg);
+
+        SsaForm.destruct(cfg);
+        cfg.rebuildEdges();
+        changed |= cfg.removeUnreachable();
+        function.body = cfg.toQuadruples();
+        return changed;
+    }
+
+    private void analyze(ControlFlowGraph cfg) {
+        this.cfg = cfg;
+        values = new HashMap<>();
+        useSites = new HashMap<>();
+        executableEdges = new HashSet<>();
+        executableBlocks = new HashSet<>();
+        flowWork = new ArrayDeque<>();
+        ssaWork = new ArrayDeque<>();
+
+        for (BasicBlock b : cfg.blocks) {
+            for (BasicBlock.Phi phi : b.phis) {
+                for (String arg : phi.args) {
+                    useSites.computeIfAbsent(arg, k -> new ArrayList<>()).add(new Use(b, phi));
+                }
+            }
+            for (Quadruple q : b.quads) {
+                for (String v : Quads.uses(q)) {
+                    useSites.computeIfAbsent(v, k -> new ArrayList<>()).add(new Use(b, q));
+                }
+            }
+        }
+
+        flowWork.add(new Edge(null, cfg.entry()));
+        while (!flowWork.isEmpty() || !ssaWork.isEmpty()) {
+            while (!flowWork.isEmpty()) {
+                Edge e = flowWork.poll();
+                if (!executableEdges.add(e)) {
+                    continue;
+                }
+                BasicBlock b = e.to();
+                for (BasicBlock.Phi phi : b.phis) {
+                    visitPhi(b, phi);
+                }
+                if (executableBlocks.add(b)) {
+                    for (Quadruple q : b.quads) {
+                        visitQuad(q);
+                    }
+                    visitTerminator(b);
+                }
+            }
+            while (!ssaWork.isEmpty()) {
+                String name = ssaWork.poll();
+                for (Use use : useSites.getOrDefault(name, List.of())) {
+                    if (!executableBlocks.contains(use.block())) {
+                        continue;
+                    }
+                    if (use.site() instanceof BasicBlock.Phi phi) {
+                        visitPhi(use.block(), phi);
+                    } else {
+                        Quadruple q = (Quadruple) use.site();
+                        visitQuad(q);
+                        if (q == use.block().terminator()) {
+                            visitTerminator(use.block());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void visitPhi(BasicBlock b, BasicBlock.Phi phi) {
+        Value v = Value.TOP;
+        for (int i = 0; i < b.preds.size(); i++) {
+            if (executableEdges.contains(new Edge(b.preds.get(i), b))) {
+                v = v.meet(valueOf(phi.args.get(i)));
+            }
+        }
+        update(phi.result, v);
+    }
+
+    private void visitQuad(Quadruple q) {
+        String def = Quads.def(q);
+        if (def == null) {
+            return;
+        }
+        Value v;
+        if ("=".equals(q.op)) {
+            v = valueOf(q.arg1);
+        } else if (Quads.isArithmetic(q.op) || Quads.isComparison(q.op)) {
+            Value a = valueOf(q.arg1);
+            Value b = valueOf(q.arg2);
+            if (a == Value.BOTTOM || b == Value.BOTTOM) {
+                v = Value.BOTTOM;
+            } else if (a == Value.TOP || b == Value.TOP) {
+                v = Value.TOP;
+            } else {
+                Integer folded = Quads.fold(q.op, a.constant, b.constant);
+                v = folded == null ? Value.BOTTOM : new Value(folded);
+            }
+        } else {
+            // 函数调用等结果未知
+            v = Value.BOTTOM;
+        }
+        update(def, v);
+    }
+
+    /**
+     * 根据块尾四元式确定哪些出边可执行
+     */
+    private void visitTerminator(BasicBlock b) {
+        Quadruple last = b.terminator();
+        if (last != null && Quads.isConditionalBranch(last)) {
+            Value a = valueOf(last.arg1);
+            Value c = valueOf(last.arg2);
+            if (a == Value.TOP || c == Value.TOP) {
+                return;
+            }
+            Integer holds = a.isConstant() && c.isConstant()
+                    ? Quads.fold(Quads.relation(last), a.constant, c.constant) : null;
+            if (holds != null) {
+                // 关系成立时跳转到标签，否则顺序执行
+                BasicBlock taken = holds != 0 ? cfg.blockOfLabel(last.result) : cfg.next(b);
+                if (taken != null) {
+                    flowWork.add(new Edge(b, taken));
+                }
+                return;
+            }
+        }
+        for (BasicBlock s : b.succs) {
+            flowWork.add(new Edge(b, s));
+        }
+    }
+
+    private Value valueOf(String operand) {
+        if (Quads.isNumber(operand)) {
+            return new Value(Quads.wrap(Integer.parseInt(operand)));
+        }
+        if (Quads.isVariable(operand) && operand.indexOf('.') > 0) {
+            return values.getOrDefault(operand, Value.TOP);
+        }
+        // 版本0（外部传入的初值）、全局变量、数组元素和字符/字符串字面量
+        return Value.BOTTOM;
+    }
+
+    private void update(String name, Value v) {
+        Value old = values.getOrDefault(name, Value.TOP);
+        Value merged = old.meet(v);
+        if (!merged.same(old)) {
+            values.put(name, merged);
+            ssaWork.add(name);
+        }
+    }
+
+    /**
+     * 按分析结果改写：常量替换变量、常量定义折叠为赋值、条件恒定的分支化简、清空不可执行块
+     */
+    private boolean rewrite(ControlFlowGraph cfg) {
+        boolean changed = false;
+        for (BasicBlock b : cfg.blocks) {
+            if (!executableBlocks.contains(b)) {
+                changed |= b.quads.removeIf(q -> !Quads.isDeclaration(q));
+                b.phis.clear();
+                continue;
+            }
+            for (Iterator<Quadruple> it = b.quads.iterator(); it.hasNext(); ) {
+                Quadruple q = it.next();
+                String before = q.toString();
+                Quads.replaceUses(q, v -> {
+                    Value value = valueOf(v);
+                    return value.isConstant() ? Integer.toString(value.constant) : v;
+                });
+                String def = Quads.def(q);
+                if (def != null && Quads.isPure(q) && valueOf(def).isConstant()) {
+                    q.op = "=";
+                    q.arg1 = Integer.toString(valueOf(def).constant);
+                    q.arg2 = "_";
+                }
+                if (Quads.isConditionalBranch(q) && Quads.isNumber(q.arg1) && Quads.isNumber(q.arg2)) {
+                    Integer holds = Quads.fold(Quads.relation(q),
+                            Quads.wrap(Integer.parseInt(q.arg1)), Quads.wrap(Integer.parseInt(q.arg2)));
+                    if (holds != 0) {
+                        q.op = "goto";
+                        q.arg1 = "_";
+                        q.arg2 = "_";
+                    } else {
+                        it.remove();
+                    }
+                    changed = true;
+                    continue;
+                }
+                changed |= !before.equals(q.toString());
+            }
+        }
+        return changed;
+    }
+}
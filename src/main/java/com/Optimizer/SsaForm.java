@@ -0,0 +1,137 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+
+/**
+ * 静态单赋值(SSA)形式的构建与消除
+ * 变量的第 n 个定义改名为 "名字.n"，未经定义的初始值保留原名（即版本0）
+ */
+public final class SsaForm {
+    private SsaForm() {
+    }
+
+    /**
+     * 在支配边界上放置 φ 函数并重命名，把控制流图转换为 SSA 形式
+     * @param cfg 已删除不可达块的控制流图
+     * @param vars 参与重命名的变量（函数私有的标量）
+     */
+    public static void construct(ControlFlowGraph cfg, Set<String> vars) {
+        Map<BasicBlock, Set<BasicBlock>> df = cfg.dominanceFrontier();
+
+        // 收集每个变量的定义块
+        Map<String, Set<BasicBlock>> defSites = new HashMap<>();
+        for (BasicBlock b : cfg.blocks) {
+            for (Quadruple q : b.quads) {
+                String def = Quads.def(q);
+                if (def != null && vars.contains(def)) {
+                    defSites.computeIfAbsent(def, k -> new LinkedHashSet<>()).add(b);
+                }
+            }
+        }
+
+        // 迭代支配边界放置 φ 函数
+        for (Map.Entry<String, Set<BasicBlock>> entry : defSites.entrySet()) {
+            String var = entry.getKey();
+            Deque<BasicBlock> work = new ArrayDeque<>(entry.getValue());
+            Set<BasicBlock> hasPhi = new HashSet<>();
+            while (!work.isEmpty()) {
+                BasicBlock b = work.poll();
+                for (BasicBlock d : df.get(b)) {
+                    if (hasPhi.add(d)) {
+                        BasicBlock.Phi phi = new BasicBlock.Phi(var);
+                        for (int i = 0; i < d.preds.size(); i++) {
+                            phi.args.add(var);
+                        }
+                        d.phis.add(phi);
+                        if (!entry.getValue().contains(d)) {
+                            work.add(d);
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<String, Integer> counters = new HashMap<>();
+        Map<String, Deque<String>> stacks = new HashMap<>();
+        for (String v : vars) {
+            stacks.put(v, new ArrayDeque<>(List.of(v)));
+        }
+        rename(cfg, cfg.entry(), vars, counters, stacks);
+    }
+
+    private static void rename(ControlFlowGraph cfg, BasicBlock b, Set<String> vars,
+                               Map<String, Integer> counters, Map<String, Deque<String>> stacks) {
+        List<String> pushed = new ArrayList<>();
+        for (BasicBlock.Phi phi : b.phis) {
+            phi.result = push(phi.var, counters, stacks);
+            pushed.add(phi.var);
+        }
+        for (Quadruple q : b.quads) {
+            Quads.replaceUses(q, v -> vars.contains(v) ? stacks.get(v).peek() : v);
+            String def = Quads.def(q);
+            if (def != null && vars.contains(def)) {
+                q.result = push(def, counters, stacks);
+                pushed.add(def);
+            }
+        }
+        for (BasicBlock s : b.succs) {
+            int j = s.preds.indexOf(b);
+            for (BasicBlock.Phi phi : s.phis) {
+                phi.args.set(j, stacks.get(phi.var).peek());
+            }
+        }
+        for (BasicBlock child : cfg.domChildren(b)) {
+            rename(cfg, child, vars, counters, stacks);
+        }
+        for (String v : pushed) {
+            stacks.get(v).pop();
+        }
+    }
+
+    private static String push(String var, Map<String, Integer> counters, Map<String, Deque<String>> stacks) {
+        int n = counters.merge(var, 1, Integer::sum);
+        String name = var + "." + n;
+        stacks.get(var).push(name);
+        return name;
+    }
+
+    /**
+     * 去掉版本号，得到原变量名
+     */
+    public static String baseName(String name) {
+        int dot = name.indexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+
+    /**
+     * 消除 φ 函数并去掉版本号，把控制流图转换回普通四元式
+     * 参数与结果同名的 φ 直接删除，否则在前驱块尾（跳转之前）插入复制
+     */
+    public static void destruct(ControlFlowGraph cfg) {
+        for (BasicBlock b : cfg.blocks) {
+            for (BasicBlock.Phi phi : b.phis) {
+                String target = baseName(phi.result);
+                for (int i = 0; i < b.preds.size(); i++) {
+                    String arg = phi.args.get(i);
+                    if (arg == null || baseName(arg).equals(target)) {
+                        continue;
+                    }
+                    BasicBlock p = b.preds.get(i);
+                    int at = p.terminator() != null ? p.quads.size() - 1 : p.quads.size();
+                    p.quads.add(at, new Quadruple("=", arg, "_", phi.result));
+                }
+            }
+        }
+        for (BasicBlock b : cfg.blocks) {
+            b.phis.clear();
+            for (Quadruple q : b.quads) {
+                Quads.replaceUses(q, SsaForm::baseName);
+                if (Quads.def(q) != null) {
+                    q.result = baseName(q.result);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+
+/**
+ * 归纳变量强度削弱
+ * 1. 识别循环中形如 i = i ± c 的基本归纳变量，把 i * k（k 为常量）改写为
+ *    在前置块中初始化、每次 i 更新后加上步长 c*k 的新变量，循环中的乘法变为加法
+ * 2. 乘以2的幂改为左移；除以2的幂在被除数确定非负（从非负常量开始递增、且有常量上界的归纳变量）时改为右移
+ */
+public class StrengthReduction implements OptimizationPass {
+
+    // 基本归纳变量：每次迭代执行 var = var + step
+    private record InductionVariable(String var, int step, Quadruple update) {
+    }
+
+    @Override
+    public String getName() {
+        return "strength";
+    }
+
+    @Override
+    public boolean run(IrFunction function) {
+        boolean changed = false;
+        Set<String> done = new HashSet<>();
+        boolean reduced = true;
+        while (reduced) {
+            reduced = false;
+            ControlFlowGraph cfg = ControlFlowGraph.build(function.body);
+            cfg.removeUnreachable();
+            LoopForest forest = new LoopForest(cfg);
+            for (LoopForest.Loop loop : forest.innerToOuter()) {
+                String key = loop.header.label() != null ? loop.header.label() : "B" + loop.header.id;
+                if (!done.add(key)) {
+                    continue;
+                }
+                if (reduceLoop(function, cfg, loop)) {
+                    function.body = cfg.toQuadruples();
+                    reduced = true;
+                    changed = true;
+                    break;
+                }
+            }
+        }
+        changed |= shiftPowersOfTwo(function.body);
+        return changed;
+    }
+
+    private boolean reduceLoop(IrFunction function, ControlFlowGraph cfg, LoopForest.Loop loop) {
+        Set<String> locals = function.locals();
+        Map<String, InductionVariable> ivs = findInductionVariables(loop, locals);
+        if (ivs.isEmpty()) {
+            return false;
+        }
+
+        // 收集 i * k 形式的乘法，相同的 (i, k) 共用一个新变量
+        Map<String, List<Quadruple>> candidates = new LinkedHashMap<>();
+        List<Quadruple> divisions = new ArrayList<>();
+        for (BasicBlock b : loop.blocks) {
+            for (Quadruple q : b.quads) {
+                if ("*".equals(q.op)) {
+                    String iv = ivs.containsKey(q.arg1) && Quads.isNumber(q.arg2) ? q.arg1
+                            : ivs.containsKey(q.arg2) && Quads.isNumber(q.arg1) ? q.arg2 : null;
+                    if (iv != null && ivs.get(iv).update() != q) {
+                        String k = iv.equals(q.arg1) ? q.arg2 : q.arg1;
+                        candidates.computeIfAbsent(iv + "," + k, x -> new ArrayList<>()).add(q);
+                    }
+                } else if ("/".equals(q.op) && ivs.containsKey(q.arg1) && log2(q.arg2) > 0) {
+                    divisions.add(q);
+                }
+            }
+        }
+
+        boolean changed = false;
+        BasicBlock pre = null;
+        if (!candidates.isEmpty()) {
+            pre = cfg.preheader(loop, function.program::newLabel);
+            if (pre == null) {
+                return false;
+            }
+        }
+        for (Map.Entry<String, List<Quadruple>> entry : candidates.entrySet()) {
+            String[] key = entry.getKey().split(",");
+            InductionVariable iv = ivs.get(key[0]);
+            int k = Integer.parseInt(key[1]);
+            String s = function.program.newTemp();
+            ControlFlowGraph.appendBeforeTerminator(pre, List.of(new Quadruple("*", iv.var(), key[1], s)));
+            for (BasicBlock b : loop.blocks) {
+                int at = b.quads.indexOf(iv.update());
+                if (at >= 0) {
+                    b.quads.add(at + 1, new Quadruple("+", s, Integer.toString(Quads.wrap(iv.step() * k)), s));
+                }
+            }
+            for (Quadruple q : entry.getValue()) {
+                q.op = "=";
+                q.arg1 = s;
+                q.arg2 = "_";
+            }
+            changed = true;
+        }
+
+        for (Quadruple q : divisions) {
+            if (isNonNegative(loop, ivs.get(q.arg1))) {
+                q.op = ">>";
+                q.arg2 = Integer.toString(log2(q.arg2));
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 循环内只有一个定义且形如 (+ i c i)、(+ c i i)、(- i c i) 的函数私有变量
+     */
+    private Map<String, InductionVariable> findInductionVariables(LoopForest.Loop loop, Set<String> locals) {
+        Map<String, Integer> defCount = new HashMap<>();
+        Map<String, InductionVariable> ivs = new LinkedHashMap<>();
+        for (BasicBlock b : loop.blocks) {
+            for (Quadruple q : b.quads) {
+                String def = Quads.def(q);
+                if (def == null) {
+                    continue;
+                }
+                defCount.merge(def, 1, Integer::sum);
+                if (!locals.contains(def)) {
+                    continue;
+                }
+                if ("+".equals(q.op) && def.equals(q.arg1) && Quads.isNumber(q.arg2)) {
+                    ivs.put(def, new InductionVariable(def, Integer.parseInt(q.arg2), q));
+                } else if ("+".equals(q.op) && def.equals(q.arg2) && Quads.isNumber(q.arg1)) {
+                    ivs.put(def, new InductionVariable(def, Integer.parseInt(q.arg1), q));
+                } else if ("-".equals(q.op) && def.equals(q.arg1) && Quads.isNumber(q.arg2)) {
+                    ivs.put(def, new InductionVariable(def, -Integer.parseInt(q.arg2), q));
+                }
+            }
+        }
+        ivs.keySet().removeIf(v -> defCount.get(v) != 1);
+        return ivs;
+    }
+
+    /**
+     * 归纳变量在循环中是否始终非负：进入循环前被赋为非负常量、步长为正，
+     * 且循环头以 i < N 或 i <= N（N 为常量）判断退出，保证递增不会溢出
+     */
+    private boolean isNonNegative(LoopForest.Loop loop, InductionVariable iv) {
+        if (iv.step() <= 0) {
+            return false;
+        }
+        Integer bound = null;
+        for (Quadruple q : loop.header.quads) {
+            if (("<".equals(q.op) || "<=".equals(q.op)) && iv.var().equals(q.arg1) && Quads.isNumber(q.arg2)) {
+                bound = Integer.parseInt(q.arg2);
+            }
+        }
+        if (bound == null || bound + iv.step() > Short.MAX_VALUE) {
+            return false;
+        }
+        Integer init = loop.entryConstant(iv.var());
+        return init != null && init >= 0;
+    }
+
+    /**
+     * 乘以2的幂改为左移
+     */
+    private boolean shiftPowersOfTwo(List<Quadruple> body) {
+        boolean changed = false;
+        for (Quadruple q : body) {
+            if (!"*".equals(q.op)) {
+                continue;
+            }
+            if (log2(q.arg1) > 0 && !Quads.isNumber(q.arg2)) {
+                String k = q.arg1;
+                q.arg1 = q.arg2;
+                q.arg2 = k;
+            }
+            int shift = log2(q.arg2);
+            if (shift > 0) {
+                q.op = "<<";
+                q.arg2 = Integer.toString(shift);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 操作数为2的正整数次幂时返回指数，否则返回-1
+     */
+    private static int log2(String operand) {
+        if (!Quads.isNumber(operand)) {
+            return -1;
+        }
+        int v = Integer.parseInt(operand);
+        return v > 1 && v <= (1 << 14) && Integer.bitCount(v) == 1 ? Integer.numberOfTrailingZeros(v) : -1;
+    }
+}
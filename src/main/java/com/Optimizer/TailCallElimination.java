@@ -0,0 +1,114 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+
+/**
+ * 尾调用消除
+ * 调用结果直接被 return（中间只经过标签、标记、跳转和对私有变量的复制）的调用是尾调用：
+ * 1. 调用自身时，实参先存入新临时变量再赋给形参（避免实参引用已被改写的形参），然后跳回函数体开头，递归变为循环
+ * 2. 调用其他函数且实参个数不超过本函数形参个数时，改为 tailcall 四元式，
+ *    由后端把实参写入本函数的实参位置、撤销栈帧后直接跳转，调用链不再增长
+ */
+public class TailCallElimination implements OptimizationPass {
+
+    @Override
+    public String getName() {
+        return "tailcall";
+    }
+
+    @Override
+    public boolean run(IrFunction function) {
+        List<Quadruple> body = function.body;
+        Set<String> locals = function.locals();
+        List<String> formals = function.params();
+        String entry = null;
+        boolean changed = false;
+        List<Quadruple> result = new ArrayList<>();
+        for (int i = 0; i < body.size(); i++) {
+            Quadruple q = body.get(i);
+            if (!"call".equals(q.op) || !isTail(body, i, locals)) {
+                result.add(q);
+                continue;
+            }
+            int n = Integer.parseInt(q.arg2);
+            if (q.arg1.equals(function.name) && n == formals.size()) {
+                // call 之前紧挨着的 param 四元式依次为各个实参
+                List<Quadruple> params = result.subList(result.size() - n, result.size());
+                List<String> temps = new ArrayList<>();
+                List<Quadruple> copies = new ArrayList<>();
+                for (Quadruple p : params) {
+                    String t = function.program.newTemp();
+                    temps.add(t);
+                    copies.add(new Quadruple("=", p.arg1, "_", t));
+                }
+                params.clear();
+                result.addAll(copies);
+                for (int k = 0; k < n; k++) {
+                    result.add(new Quadruple("=", temps.get(k), "_", formals.get(k)));
+                }
+                if (entry == null) {
+                    entry = function.program.newLabel();
+                }
+                result.add(new Quadruple("goto", "_", "_", entry));
+            } else if (n <= formals.size() && function.program.function(q.arg1) != null) {
+                result.add(new Quadruple("tailcall", q.arg1, q.arg2, "_"));
+            } else {
+                result.add(q);
+                continue;
+            }
+            // 其后的 return 若不再可达，由死代码消除删除
+            changed = true;
+        }
+        if (entry != null) {
+            result.add(0, new Quadruple("label", "_", "_", entry));
+        }
+        function.body = result;
+        return changed;
+    }
+
+    /**
+     * 第 at 条四元式（call）的结果是否不经任何其他计算就被 return
+     */
+    private boolean isTail(List<Quadruple> body, int at, Set<String> locals) {
+        String value = body.get(at).result;
+        Set<Integer> visited = new HashSet<>();
+        int i = at + 1;
+        while (i < body.size() && visited.add(i)) {
+            Quadruple q = body.get(i);
+            if ("label".equals(q.op) || Quads.isMarker(q)) {
+                i++;
+                continue;
+            }
+            switch (q.op) {
+                case "goto" -> i = indexOfLabel(body, q.result);
+                case "=" -> {
+                    // 复制给私有变量，返回后不再可见
+                    if (!q.arg1.equals(value) || !locals.contains(q.result)) {
+                        return false;
+                    }
+                    value = q.result;
+                    i++;
+                }
+                case "return" -> {
+                    return q.arg1.equals(value) || "_".equals(q.arg1);
+                }
+                default -> {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private int indexOfLabel(List<Quadruple> body, String label) {
+        for (int i = 0; i < body.size(); i++) {
+            Quadruple q = body.get(i);
+            if ("label".equals(q.op) && label.equals(q.result)) {
+                return i;
+            }
+        }
+        return body.size();
+    }
+}
@@ -0,0 +1,105 @@
+package com.Optimizer;
+
+import com.Parser.Quadruple.Quadruple;
+
+import java.util.*;
+
+/**
+ * 临时变量合并
+ * 每个临时变量在目标代码中都占一个数据段单元；按活跃区间构造冲突图，
+ * 把互不冲突的临时变量合并到同一个名字上，减少数据段大小
+ */
+public class TempCoalescing implements OptimizationPass {
+
+    @Override
+    public String getName() {
+        return "coalesce";
+    }
+
+    @Override
+    public boolean run(IrFunction function) {
+        ControlFlowGraph cfg = ControlFlowGraph.build(function.body);
+        Set<String> locals = function.locals();
+        Liveness liveness = new Liveness(cfg, locals);
+
+        // 按首次出现的顺序收集临时变量
+        Set<String> temps = new LinkedHashSet<>();
+        for (Quadruple q : function.body) {
+            String def = Quads.def(q);
+            if (Quads.isTemp(def) && locals.contains(def)) {
+                temps.add(def);
+            }
+            for (String v : Quads.uses(q)) {
+                if (Quads.isTemp(v) && locals.contains(v)) {
+                    temps.add(v);
+                }
+            }
+        }
+        if (temps.size() < 2) {
+            return false;
+        }
+
+        // 冲突图：定义点处与所有仍活跃的临时变量冲突，入口处同时活跃的也互相冲突
+        Map<String, Set<String>> interference = new HashMap<>();
+        for (String t : temps) {
+            interference.put(t, new HashSet<>());
+        }
+        for (BasicBlock b : cfg.blocks) {
+            List<Set<String>> liveAfter = liveness.liveAfter(b);
+            for (int i = 0; i < b.quads.size(); i++) {
+                String def = Quads.def(b.quads.get(i));
+                if (def == null || !temps.contains(def)) {
+                    continue;
+                }
+                for (String v : liveAfter.get(i)) {
+                    if (!v.equals(def) && temps.contains(v)) {
+                        interference.get(def).add(v);
+                        interference.get(v).add(def);
+                    }
+                }
+            }
+        }
+        List<String> liveAtEntry = new ArrayList<>(liveness.liveIn(cfg.entry()));
+        liveAtEntry.retainAll(temps);
+        for (String a : liveAtEntry) {
+            for (String b : liveAtEntry) {
+                if (!a.equals(b)) {
+                    interference.get(a).add(b);
+                }
+            }
+        }
+
+        // 贪心着色：依次把临时变量放入第一个不冲突的槽，槽名沿用槽中第一个临时变量
+        Map<String, String> slotOf = new HashMap<>();
+        List<String> slots = new ArrayList<>();
+        Map<String, Set<String>> members = new HashMap<>();
+        for (String t : temps) {
+            String chosen = null;
+            for (String slot : slots) {
+                if (Collections.disjoint(members.get(slot), interference.get(t))) {
+                    chosen = slot;
+                    break;
+                }
+            }
+            if (chosen == null) {
+                chosen = t;
+                slots.add(t);
+                members.put(t, new HashSet<>());
+            }
+            members.get(chosen).add(t);
+            slotOf.put(t, chosen);
+        }
+        if (slots.size() == temps.size()) {
+            return false;
+        }
+
+        for (Quadruple q : function.body) {
+            Quads.replaceUses(q, v -> slotOf.getOrDefault(v, v));
+            String def = Quads.def(q);
+            if (def != null && slotOf.containsKey(def)) {
+                q.result = slotOf.get(def);
+            }
+        }
+        return true;
+    }
+}
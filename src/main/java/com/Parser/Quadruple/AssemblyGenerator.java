@@ -1,5 +1,15 @@
 package com.Parser.Quadruple;
 
+import com.CodeGen.CodeGenerator;
+import com.CodeGen.CallingConvention;
+import com.CodeGen.ExpressionDag;
+import com.CodeGen.InstructionSelector;
+import com.CodeGen.LiveRanges;
+import com.CodeGen.OperationTree;
+import com.CodeGen.ProgramLayout;
+import com.CodeGen.Register;
+import com.CodeGen.RegisterAllocator;
+import com.Optimizer.Quads;
 import lombok.Getter;
 
 import java.util.*;
@@ -8,8 +18,10 @@ import static java.lang.String.format;
 /**
  * AssemblyGenerator 类用于将四元式中间代码转换为 x86 汇编代码（16位）。
  * 支持变量声明、算术运算、条件跳转、函数调用、数组声明等。
+ * 函数的参数、局部变量和临时变量在栈帧中（给定寄存器分配器时可以放在寄存器中），全局变量和数组在数据段中。
+ * 数组元素按 数组名[地址寄存器+位移] 寻址，地址寄存器（SI、BX）中是下标乘元素大小（2字节）。
  */
-public class AssemblyGenerator {
+public class AssemblyGenerator implements CodeGenerator {
     // 汇编代码字符串构建器
     private final StringBuilder assemblyCode = new StringBuilder();
     // 已声明的变量集合，避免重复声明
@@ -24,12 +36,58 @@ public class AssemblyGenerator {
     private final Set<String> functionNames = new HashSet<>();
     // 符号表，用于记录变量、函数等信息
     @Getter
-    private SymbolTable symbolTable = new SymbolTable();
+    private final SymbolTable symbolTable;
+    // 寄存器分配器，为null时所有变量都在内存中
+    private final RegisterAllocator registerAllocator;
+    // 各函数的寄存器、栈帧槽位与调用约定
+    private ProgramLayout layout;
+    // 当前函数中变量的位置
+    private Map<String, String> current = Map.of();
+    // 当前调用已经出现、尚未传递的实参；param 四元式紧接在 call 之前，实参在调用时一并传递
+    private final List<String> pendingArguments = new ArrayList<>();
+    // 当前函数是否省略了BP栈帧
+    private boolean currentFrameless = false;
+    // 数组名 -> 元素个数
+    private final Map<String, Integer> arrays = new LinkedHashMap<>();
+    // 地址寄存器 -> 其中保存的数组下标，之后按同一下标访问数组时直接复用
+    private final Map<String, AddressIndex> addressRegisters = new HashMap<>();
+    // 当前四元式中已经用来寻址、不能再改写的地址寄存器
+    private final Set<String> addressInUse = new HashSet<>();
+    // 赋值和算术运算的指令选择器
+    private final InstructionSelector selector = new InstructionSelector();
 
     /**
-     * 构造函数，初始化汇编文件的头部（模型、堆栈、数据段）。
+     * 地址寄存器中的数组下标：元素 数组名[下标] 的地址是 数组名 + 寄存器 + displacement
+     * 寄存器装入 下标×2 时位移为0，之后下标加减常数只调整位移，不改写寄存器
      */
+    private static class AddressIndex {
+        final String var;
+        int displacement;
+
+        AddressIndex(String var) {
+            this.var = var;
+        }
+    }
+
     public AssemblyGenerator() {
+        this(new SymbolTable());
+    }
+
+    /**
+     * 构造函数，初始化汇编文件的头部（模型、堆栈、数据段）。
+     * @param symbolTable 与调用方共用的符号表，已由同一四元式列表构建过时不再重复构建
+     */
+    public AssemblyGenerator(SymbolTable symbolTable) {
+        this(symbolTable, null);
+    }
+
+    /**
+     * @param symbolTable 与调用方共用的符号表
+     * @param registerAllocator 寄存器分配器，为null时不分配寄存器
+     */
+    public AssemblyGenerator(SymbolTable symbolTable, RegisterAllocator registerAllocator) {
+        this.symbolTable = symbolTable;
+        this.registerAllocator = registerAllocator;
         // 初始化模型和段
         assemblyCode.append(".MODEL SMALL\n");
         assemblyCode.append(".STACK 100h\n");
@@ -41,13 +99,19 @@ public class AssemblyGenerator {
      * 主方法：根据四元式列表生成汇编代码。
      * @param quadruples 四元式列表
      */
+    @Override
     public void generateAssembly(List<Quadruple> quadruples) {
-        // 先构建符号表
+        // 先构建符号表（共用的符号表已构建过则直接返回）
         symbolTable.buildFromQuadruples(quadruples);
 
         // 输出符号表内容（调试用）
         System.out.println(symbolTable.printSymbolTable());
 
+        // 分配寄存器时先按 Sethi-Ullman 顺序重排基本块内的表达式，减少同时占用的寄存器
+        if (registerAllocator != null) {
+            quadruples = new ExpressionDag().schedule(quadruples);
+        }
+
         // 收集函数名（用于避免函数名当作变量）
         for (Quadruple q : quadruples) {
             if ("FuncStart".equals(q.op) && q.result != null) {
@@ -61,15 +125,36 @@ public class AssemblyGenerator {
         }
 
         // 收集变量声明（包括参数、数组等）
+        // 标签、类型名不是变量，不占数据段
         for (Quadruple q : quadruples) {
-            collectVariable(q.arg1);
-            collectVariable(q.arg2);
-            collectVariable(q.result);
+            switch (q.op) {
+                case "label", "goto" -> {
+                }
+                case "j==", "j!=", "j<", "j<=", "j>", "j>=" -> {
+                    collectVariable(q.arg1, q.kindOfArg1());
+                    collectVariable(q.arg2, q.kindOfArg2());
+                }
+                case "var_decl", "param_decl", "FuncDef" -> collectVariable(q.result, q.kindOfResult());
+                // 同名数组取最大的长度
+                case "ARRAY_DECL" -> arrays.merge(q.arg1, Integer.parseInt(q.arg2), Math::max);
+                default -> {
+                    collectVariable(q.arg1, q.kindOfArg1());
+                    collectVariable(q.arg2, q.kindOfArg2());
+                    collectVariable(q.result, q.kindOfResult());
+                }
+            }
         }
 
-        // 添加变量声明到数据段
+        // 分配寄存器和栈帧，函数私有的变量不占数据段
+        layout = new ProgramLayout(quadruples, registerAllocator);
+        Set<String> functionPrivate = layout.placed;
+
+        // 添加数组和变量声明到数据段
+        arrays.forEach((name, size) -> dataSegmentDeclarations.add(format("    %s DW %d DUP(?)\n", name, size)));
         for (String var : declaredVariables) {
-            dataSegmentDeclarations.add(format("    %s DW ?\n", var));
+            if (!functionPrivate.contains(var) && !arrays.containsKey(var)) {
+                dataSegmentDeclarations.add(format("    %s DW ?\n", var));
+            }
         }
         for (String decl : dataSegmentDeclarations) {
             assemblyCode.append(decl);
@@ -86,39 +171,29 @@ public class AssemblyGenerator {
 
         // 遍历四元式，生成对应的汇编代码
         for (Quadruple q : quadruples) {
+            addressInUse.clear();
             switch (q.op) {
                 case "=" -> generateAssignment(q); // 赋值
-                case "+", "-", "*", "/" -> generateArithmetic(q); // 算术运算
-                case "if" -> generateConditional(q); // 条件跳转
+                case "+", "-", "*", "/", "<<", ">>" -> generateArithmetic(q); // 算术运算
+                case "j==", "j!=", "j<", "j<=", "j>", "j>=" -> generateConditional(q); // 条件跳转
                 case "goto" -> generateGoto(q); // 无条件跳转
                 case "label" -> generateLabel(q); // 标签
                 case "el", "ie", "we", "wh" -> generateControlLabel(q); // 控制流标签
                 case "FuncStart" -> generateFunctionStart(q); // 函数开始
                 case "FuncEnd" -> generateFunctionEnd(q); // 函数结束
-                case "ARRAY_DECL" -> generateArrayDeclaration(q); // 数组声明
+                case "ARRAY_DECL" -> {
+                    // 数组已在数据段中声明
+                }
                 case "param_decl" -> generateParamDeclaration(q); // 参数声明
                 case "param" -> generateParamPassing(q); // 参数传递
                 case "FuncDef" -> generateFunctionDefinition(q); // 函数定义
                 case "call" -> generateFunctionCall(q); // 函数调用
+                case "tailcall" -> generateTailCall(q); // 尾调用
                 case "return" -> generateReturnStatement(q); // 返回语句
                 case "var_decl" -> generateVariableDeclaration(q); // 变量声明
-                case "==", "!=", "<", "<=", ">", ">=" -> {
-                    // 处理比较操作，生成CMP和条件跳转
-                    String op1 = toOperand(q.arg1);
-                    String op2 = toOperand(q.arg2);
-                    assemblyCode.append(format("    MOV AX, %s\n", op1));
-                    assemblyCode.append(format("    CMP AX, %s\n", op2));
-                    switch (q.op) {
-                        case "==" -> assemblyCode.append(format("    JE %s\n", q.result));
-                        case "!=" -> assemblyCode.append(format("    JNE %s\n", q.result));
-                        case "<" -> assemblyCode.append(format("    JL %s\n", q.result));
-                        case "<=" -> assemblyCode.append(format("    JLE %s\n", q.result));
-                        case ">" -> assemblyCode.append(format("    JG %s\n", q.result));
-                        case ">=" -> assemblyCode.append(format("    JGE %s\n", q.result));
-                    }
-                }
                 default -> throw new RuntimeException("Unsupported operation: " + q.op);
             }
+            updateAddressRegisters(q);
         }
 
         // 程序结束
@@ -132,23 +207,26 @@ public class AssemblyGenerator {
     private void generateReturnStatement(Quadruple q) {
         if (!q.arg1.equals("_")) {
             // 有返回值，存入AX
-            assemblyCode.append(format("    MOV AX, %s\n", toOperand(q.arg1)));
+            move("AX", toOperand(q.arg1, q.kindOfArg1()));
         }
-        // 恢复栈帧并返回
-        assemblyCode.append("    MOV SP, BP\n");
-        assemblyCode.append("    POP BP\n");
-        assemblyCode.append("    RET\n");
+        generateEpilogue();
     }
 
     /**
      * 收集变量名，避免重复声明和保留字、函数名冲突
      * @param name 变量名
+     * @param kind 操作数分类
      */
-    private void collectVariable(String name) {
-        if (name == null || name.isEmpty()) return;
+    private void collectVariable(String name, OperandKind kind) {
+        if (kind == OperandKind.ARRAY_ELEMENT) {
+            // 数组本身由 ARRAY_DECL 声明，只需收集下标中的变量
+            String index = Quads.arrayIndex(name);
+            collectVariable(index, OperandKind.of(index));
+            return;
+        }
+        if (kind != OperandKind.TEMP && kind != OperandKind.IDENTIFIER) return;
 
-        if (Character.isLetter(name.charAt(0))
-                && !declaredVariables.contains(name)
+        if (!declaredVariables.contains(name)
                 && !isReserved(name)
                 && !functionNames.contains(name)) {
             declaredVariables.add(name);
@@ -168,49 +246,82 @@ public class AssemblyGenerator {
     }
 
     /**
-     * 生成赋值语句的汇编代码
+     * 生成赋值语句的汇编代码：由指令选择器生成；写入数组元素时至少一侧在寄存器中或右侧为立即数时直接传送，否则经过AX
      * @param q 四元式
      */
     private void generateAssignment(Quadruple q) {
-        assemblyCode.append(format("    MOV AX, %s\n", toOperand(q.arg1)));
-        assemblyCode.append(format("    MOV %s, AX\n", q.result));
+        String src = toOperand(q.arg1, q.kindOfArg1());
+        if (q.kindOfResult() != OperandKind.ARRAY_ELEMENT) {
+            select(q, src, null, toOperand(q.result, q.kindOfResult()));
+            return;
+        }
+        if (isRegister(src) || q.kindOfArg1().isLiteral()) {
+            move(target(q.result), src);
+            return;
+        }
+        assemblyCode.append(format("    MOV AX, %s\n", src));
+        assemblyCode.append(format("    MOV %s, AX\n", target(q.result)));
     }
 
     /**
-     * 生成算术运算的汇编代码
+     * 生成算术运算的汇编代码：由指令选择器在 INC/DEC、LEA、移位、直接改写内存和 AX 累加器等形式中按代价选择，
+     * 结果是数组元素时在 AX 中取得结果，操作数读完之后再计算写入地址
      * @param q 四元式
      */
     private void generateArithmetic(Quadruple q) {
-        String op1 = toOperand(q.arg1);
-        String op2 = toOperand(q.arg2);
+        String op1 = toOperand(q.arg1, q.kindOfArg1());
+        String op2 = toOperand(q.arg2, q.kindOfArg2());
+        if (q.kindOfResult() != OperandKind.ARRAY_ELEMENT) {
+            select(q, op1, op2, toOperand(q.result, q.kindOfResult()));
+            return;
+        }
+        select(q, op1, op2, "AX");
+        move(target(q.result), "AX");
+    }
 
-        assemblyCode.append(format("    MOV AX, %s\n", op1));
-        switch (q.op) {
-            case "+" -> assemblyCode.append(format("    ADD AX, %s\n", op2));
-            case "-" -> assemblyCode.append(format("    SUB AX, %s\n", op2));
-            case "*" -> {
-                assemblyCode.append(format("    MOV BX, %s\n", op2));
-                assemblyCode.append("    MUL BX\n");
-            }
-            case "/" -> {
-                assemblyCode.append("    CWD\n"); // 扩展符号位
-                assemblyCode.append(format("    MOV BX, %s\n", op2));
-                assemblyCode.append("    DIV BX\n");
+    /**
+     * 输出指令选择器为四元式选出的指令，被改写的地址寄存器中的下标失效
+     */
+    private void select(Quadruple q, String left, String right, String result) {
+        OperationTree tree = new OperationTree(q.op, left, right, result, LiveRanges.clobbers(q));
+        for (String instruction : selector.select(tree)) {
+            assemblyCode.append("    ").append(instruction).append('\n');
+            int space = instruction.indexOf(' ');
+            if (space > 0) {
+                addressRegisters.remove(instruction.substring(space + 1).split(",")[0].trim());
             }
         }
-        assemblyCode.append(format("    MOV %s, AX\n", q.result));
     }
 
     /**
-     * 生成条件跳转的汇编代码（if）
-     * @param q 四元式
+     * 生成条件跳转的汇编代码：一次CMP后按关系直接跳转，比较结果不落到内存
+     * 左操作数在寄存器中时直接比较；只有右操作数在寄存器中时交换两侧并对调关系
+     * @param q 四元式 j<relop>, 左操作数, 右操作数, 目标标签
      */
     private void generateConditional(Quadruple q) {
-        String op1 = toOperand(q.arg1);
-        String op2 = toOperand(q.arg2);
-        assemblyCode.append(format("    MOV AX, %s\n", op1));
-        assemblyCode.append(format("    CMP AX, %s\n", op2));
-        assemblyCode.append(format("    JNE %s\n", q.result));
+        String op1 = toOperand(q.arg1, q.kindOfArg1());
+        String op2 = toOperand(q.arg2, q.kindOfArg2());
+        String relation = Quads.relation(q);
+        if (!isRegister(op1) && isRegister(op2)) {
+            String t = op1;
+            op1 = op2;
+            op2 = t;
+            relation = Quads.mirror(relation);
+        }
+        if (!isRegister(op1)) {
+            assemblyCode.append(format("    MOV AX, %s\n", op1));
+            op1 = "AX";
+        }
+        assemblyCode.append(format("    CMP %s, %s\n", op1, op2));
+        String jump = switch (relation) {
+            case "==" -> "JE";
+            case "!=" -> "JNE";
+            case "<" -> "JL";
+            case "<=" -> "JLE";
+            case ">" -> "JG";
+            default -> "JGE";
+        };
+        assemblyCode.append(format("    %s %s\n", jump, q.result));
     }
 
     /**
@@ -243,39 +354,31 @@ public class AssemblyGenerator {
      */
     private void generateFunctionStart(Quadruple q) {
         currentFunction = q.result.toLowerCase();
+        current = layout.locations(q.result);
+        currentFrameless = layout.isFrameless(q.result);
         functionNames.add(currentFunction);
         assemblyCode.append(format("%s PROC\n", currentFunction));
-
-        // 保存基指针并建立新栈帧
-        assemblyCode.append("    PUSH BP\n");
-        assemblyCode.append("    MOV BP, SP\n");
-
-        // 为局部变量预留栈空间（此处固定为32字节，可根据需要调整）
-        assemblyCode.append("    SUB SP, 20h\n");
+        // 建立栈帧，寄存器传递的参数移到分配给它们的位置
+        layout.prologue(assemblyCode, q.result);
     }
 
     /**
-     * 生成函数结束的汇编代码
-     * @param q 四元式
+     * 恢复栈帧并返回
      */
-    private void generateFunctionEnd(Quadruple q) {
-        // 恢复栈指针和基指针
-        assemblyCode.append("    MOV SP, BP\n");
-        assemblyCode.append("    POP BP\n");
+    private void generateEpilogue() {
+        ProgramLayout.epilogue(assemblyCode, currentFrameless);
         assemblyCode.append("    RET\n");
-        assemblyCode.append(format("%s ENDP\n\n", currentFunction));
     }
 
     /**
-     * 生成数组声明的汇编代码
+     * 生成函数结束的汇编代码
      * @param q 四元式
      */
-    private void generateArrayDeclaration(Quadruple q) {
-        int size = Integer.parseInt(q.arg2);
-        if (!declaredVariables.contains(q.arg1)) {
-            declaredVariables.add(q.arg1);
-            dataSegmentDeclarations.add(format("    %s DW %d DUP(?)\n", q.arg1, size));
-        }
+    private void generateFunctionEnd(Quadruple q) {
+        // 恢复栈指针和基指针
+        generateEpilogue();
+        assemblyCode.append(format("%s ENDP\n\n", currentFunction));
+        current = Map.of();
     }
 
     /**
@@ -291,13 +394,48 @@ public class AssemblyGenerator {
     }
 
     /**
-     * 生成参数传递的汇编代码（调用前将参数压栈）
+     * 记录实参，在调用时按调用约定一并传递
      * @param q 四元式
      */
     private void generateParamPassing(Quadruple q) {
-        // 从右向左传递参数（符合cdecl约定）
-        assemblyCode.append(format("    MOV AX, %s\n", toOperand(q.arg1)));
-        assemblyCode.append("    PUSH AX\n");
+        pendingArguments.add(q.arg1);
+    }
+
+    /**
+     * 按调用约定传递已记录的实参：先从左到右压入栈上实参，再把前几个实参传送到参数寄存器
+     * 数组元素实参要用地址寄存器寻址，在其他寄存器实参就位之后逐个装入
+     * @return 压栈的实参个数
+     */
+    private int passArguments() {
+        int registerCount = Math.min(pendingArguments.size(), CallingConvention.ARG_REGISTERS.size());
+        for (int i = registerCount; i < pendingArguments.size(); i++) {
+            addressInUse.clear();
+            String operand = toOperand(pendingArguments.get(i));
+            if (OperandKind.of(pendingArguments.get(i)).isLiteral()) {
+                // 8086 不能直接压入立即数
+                assemblyCode.append(format("    MOV AX, %s\n", operand));
+                operand = "AX";
+            }
+            assemblyCode.append(format("    PUSH %s\n", operand));
+        }
+        List<String> targets = new ArrayList<>();
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < registerCount; i++) {
+            String argument = pendingArguments.get(i);
+            boolean element = Quads.isArrayElement(argument);
+            targets.add(element ? null : CallingConvention.ARG_REGISTERS.get(i).name());
+            sources.add(element ? argument : toOperand(argument));
+        }
+        ProgramLayout.parallelMove(assemblyCode, targets, sources);
+        for (int i = 0; i < registerCount; i++) {
+            if (targets.get(i) == null) {
+                addressInUse.clear();
+                move(CallingConvention.ARG_REGISTERS.get(i).name(), toOperand(pendingArguments.get(i)));
+            }
+        }
+        int stackCount = pendingArguments.size() - registerCount;
+        pendingArguments.clear();
+        return stackCount;
     }
 
     /**
@@ -320,43 +458,42 @@ public class AssemblyGenerator {
 
     /**
      * 生成函数调用的汇编代码
+     * 所有寄存器由调用者保存，只保存调用之后仍然活跃的变量所在的寄存器
      * @param q 四元式
      */
     private void generateFunctionCall(Quadruple q) {
-        // 保存现场（保护寄存器）
-        assemblyCode.append("    PUSH AX\n");
-        assemblyCode.append("    PUSH BX\n");
-        assemblyCode.append("    PUSH CX\n");
-        assemblyCode.append("    PUSH DX\n");
-
-        // 调用函数
+        List<Register> saved = layout.savedRegisters(q);
+        for (Register register : saved) {
+            assemblyCode.append(format("    PUSH %s\n", register));
+        }
+        int stackCount = passArguments();
         assemblyCode.append(format("    CALL %s\n", q.arg1.toLowerCase()));
 
         // 清理参数栈
-        int paramCount = 0;
-        if (!q.arg2.equals("_")) {
-            try {
-                paramCount = Integer.parseInt(q.arg2);
-                if (paramCount > 0) {
-                    assemblyCode.append(format("    ADD SP, %d\n", paramCount * 2));
-                }
-            } catch (NumberFormatException e) {
-                // 处理解析错误
-            }
+        if (stackCount > 0) {
+            assemblyCode.append(format("    ADD SP, %d\n", stackCount * 2));
         }
 
-        // 恢复现场
-        assemblyCode.append("    POP DX\n");
-        assemblyCode.append("    POP CX\n");
-        assemblyCode.append("    POP BX\n");
-        assemblyCode.append("    POP AX\n");
-
         // 处理返回值（函数返回值存入AX，赋值给目标变量）
         if (!q.result.equals("_")) {
-            assemblyCode.append(format("    MOV %s, AX\n", q.result));
+            move(toOperand(q.result, q.kindOfResult()), "AX");
+        }
+        for (int i = saved.size() - 1; i >= 0; i--) {
+            assemblyCode.append(format("    POP %s\n", saved.get(i)));
         }
     }
 
+    /**
+     * 生成尾调用的汇编代码：复用当前栈帧，不再压入新的返回地址
+     * 栈上实参压栈后依次弹出，覆盖当前函数自己的栈上参数位置，撤销栈帧后直接跳到被调函数，
+     * 被调函数返回时直接回到当前函数的调用者，由调用者按原来的实参个数清理栈
+     * @param q 四元式 tailcall, 函数名, 实参个数, _
+     */
+    private void generateTailCall(Quadruple q) {
+        int stackCount = passArguments();
+        ProgramLayout.tailCall(assemblyCode, currentFrameless, stackCount, q.arg1.toLowerCase());
+    }
+
     /**
      * 生成变量声明的汇编代码
      * @param q 四元式
@@ -374,15 +511,110 @@ public class AssemblyGenerator {
      * @return 汇编操作数
      */
     private String toOperand(String value) {
+        return toOperand(value, value == null ? null : OperandKind.of(value));
+    }
+
+    /**
+     * 将四元式参数转换为汇编操作数，kind 为四元式按字段缓存的分类
+     */
+    private String toOperand(String value, OperandKind kind) {
         if (value == null) return "0";
-        if (value.matches("-?\\d+")) return value; // 立即数
-        return value; // 变量名
+        if (kind == OperandKind.INT) return value; // 立即数
+        if (kind == OperandKind.ARRAY_ELEMENT) return element(value); // 数组元素
+        return current.getOrDefault(value, value); // 寄存器、栈帧位置或变量名
+    }
+
+    /**
+     * 写入的数组元素：此时读取的操作数已经用完，地址寄存器可以重新装入
+     */
+    private String target(String element) {
+        addressInUse.clear();
+        return toOperand(element);
+    }
+
+    /**
+     * 数组元素的内存操作数：常量下标直接折叠为位移；
+     * 地址寄存器中已有同一下标时复用，否则把 下标×2 装入 SI（SI 已被同一四元式使用时装入 BX）
+     */
+    private String element(String value) {
+        String array = Quads.arrayName(value);
+        String index = Quads.arrayIndex(value);
+        if (OperandKind.of(index) == OperandKind.INT) {
+            return format("%s[%d]", array, 2 * Integer.parseInt(index));
+        }
+        String register = null;
+        for (Map.Entry<String, AddressIndex> entry : addressRegisters.entrySet()) {
+            if (entry.getValue().var.equals(index)) {
+                register = entry.getKey();
+            }
+        }
+        if (register == null) {
+            register = addressInUse.contains("SI") ? "BX" : "SI";
+            move(register, toOperand(index));
+            assemblyCode.append(format("    SHL %s, 1\n", register));
+            addressRegisters.put(register, new AddressIndex(index));
+        }
+        addressInUse.add(register);
+        int displacement = addressRegisters.get(register).displacement;
+        if (displacement == 0) {
+            return format("%s[%s]", array, register);
+        }
+        return format("%s[%s%+d]", array, register, displacement);
+    }
+
+    /**
+     * 四元式执行之后更新地址寄存器中的下标：
+     * 经过标签（可能从别处跳来）和调用之后全部失效；寄存器被写入或下标被重新定义时失效，
+     * 下标自身加减常数时只调整位移
+     */
+    private void updateAddressRegisters(Quadruple q) {
+        switch (q.op) {
+            case "label", "el", "ie", "we", "wh", "FuncStart", "FuncEnd", "call", "tailcall" -> {
+                addressRegisters.clear();
+                return;
+            }
+        }
+        String def = Quads.def(q);
+        if (def == null) {
+            return;
+        }
+        addressRegisters.remove(toOperand(def));
+        Iterator<AddressIndex> it = addressRegisters.values().iterator();
+        while (it.hasNext()) {
+            AddressIndex address = it.next();
+            if (!address.var.equals(def)) {
+                continue;
+            }
+            if (("+".equals(q.op) || "-".equals(q.op)) && def.equals(q.arg1) && q.kindOfArg2() == OperandKind.INT) {
+                int step = 2 * Integer.parseInt(q.arg2);
+                address.displacement += "+".equals(q.op) ? step : -step;
+            } else {
+                it.remove();
+            }
+        }
+    }
+
+    private static boolean isRegister(String operand) {
+        return switch (operand) {
+            case "AX", "BX", "CX", "DX", "SI", "DI" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * 生成传送指令，源与目的相同时省略
+     */
+    private void move(String dst, String src) {
+        if (!dst.equals(src)) {
+            assemblyCode.append(format("    MOV %s, %s\n", dst, src));
+        }
     }
 
     /**
      * 获取生成的汇编代码字符串
      * @return 汇编代码
      */
+    @Override
     public String getAssemblyCode() {
         return assemblyCode.toString();
     }
@@ -391,6 +623,7 @@ public class AssemblyGenerator {
      * 打印并返回汇编代码
      * @return 汇编代码
      */
+    @Override
     public String show() {
         for (String line : assemblyCode.toString().split("\n")) {
             System.out.println(line);
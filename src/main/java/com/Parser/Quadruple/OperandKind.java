@@ -0,0 +1,99 @@
+package com.Parser.Quadruple;
+
+/**
+ * 四元式操作数的分类
+ * 只按字符扫描一遍，不使用正则表达式；四元式按字段缓存分类结果，见 Quadruple#kindOfArg1 等
+ */
+public enum OperandKind {
+    // 空操作数或占位符 _
+    NONE,
+    // 整数字面量，可带负号，如 -12
+    INT,
+    // 字符字面量，如 'a'
+    CHAR,
+    // 字符串字面量，如 "abc"
+    STRING,
+    // 编译器生成的临时变量，如 t3，优化器的SSA版本如 t3.1
+    TEMP,
+    // 数组元素，如 a[t3]
+    ARRAY_ELEMENT,
+    // 标识符：变量、参数、函数名、标签等以字母开头的名字
+    IDENTIFIER,
+    // 其他
+    OTHER;
+
+    /**
+     * 对操作数分类
+     */
+    public static OperandKind of(String s) {
+        if (s == null || s.isEmpty() || s.equals("_")) {
+            return NONE;
+        }
+        char first = s.charAt(0);
+        int length = s.length();
+        if (first == '-' || isDigit(first)) {
+            return isDigits(s, first == '-' ? 1 : 0) ? INT : OTHER;
+        }
+        if (first == '\'') {
+            return length == 3 && s.charAt(2) == '\'' ? CHAR : OTHER;
+        }
+        if (first == '"') {
+            return length > 1 && s.charAt(length - 1) == '"' ? STRING : OTHER;
+        }
+        if (!Character.isLetter(first)) {
+            return OTHER;
+        }
+        if (s.charAt(length - 1) == ']' && s.indexOf('[') > 0) {
+            return ARRAY_ELEMENT;
+        }
+        return first == 't' && isTempSuffix(s) ? TEMP : IDENTIFIER;
+    }
+
+    /**
+     * 是否为字面量常量（整数、字符或字符串）
+     */
+    public boolean isLiteral() {
+        return this == INT || this == CHAR || this == STRING;
+    }
+
+    /**
+     * 是否为变量（临时变量或标识符，不含数组元素）
+     */
+    public boolean isVariable() {
+        return this == TEMP || this == IDENTIFIER;
+    }
+
+    /**
+     * s 从 from 开始到结尾是否为非空的十进制数字串
+     */
+    public static boolean isDigits(String s, int from) {
+        return isDigits(s, from, s.length());
+    }
+
+    private static boolean isDigits(String s, int from, int to) {
+        if (from >= to) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            if (!isDigit(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * t 之后是数字，可再跟一个 .数字 的版本号
+     */
+    private static boolean isTempSuffix(String s) {
+        int dot = s.indexOf('.');
+        if (dot < 0) {
+            return isDigits(s, 1);
+        }
+        return isDigits(s, 1, dot) && isDigits(s, dot + 1);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,191 @@
+package com.Parser.Quadruple;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * 不可变的哈希映射（哈希数组映射字典树，HAMT）
+ * put 不修改原映射，而是返回新映射，新旧映射共享未改动的子树，每次只复制根到叶子路径上的节点；
+ * 每层按哈希值的5位分32路，查找和插入的代价与层数（至多7层）成正比
+ * 作用域用它保存可见符号：进入嵌套作用域时直接沿用外层的映射，快照就是当前映射的引用
+ */
+public final class PersistentMap<K, V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(new Branch(0, new Object[0]), 0);
+
+    private final Branch root;
+    private final int size;
+
+    private PersistentMap(Branch root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @return 键对应的值，不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        int hash = key.hashCode();
+        Object node = root;
+        for (int shift = 0; ; shift += BITS) {
+            if (node instanceof Branch branch) {
+                int bit = bit(hash, shift);
+                if ((branch.bitmap & bit) == 0) {
+                    return null;
+                }
+                node = branch.children[branch.index(bit)];
+            } else if (node instanceof Leaf leaf) {
+                return leaf.hash == hash && leaf.key.equals(key) ? (V) leaf.value : null;
+            } else {
+                for (Leaf leaf : ((Collision) node).leaves) {
+                    if (leaf.key.equals(key)) {
+                        return (V) leaf.value;
+                    }
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 返回加入（或替换）键值对后的新映射，原映射不变
+     */
+    public PersistentMap<K, V> put(K key, V value) {
+        Leaf leaf = new Leaf(key.hashCode(), key, value);
+        boolean[] added = new boolean[1];
+        Branch newRoot = (Branch) insert(root, 0, leaf, added);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * 按哈希顺序遍历所有键值对
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        visit(root, (BiConsumer<Object, Object>) action);
+    }
+
+    private static void visit(Object node, BiConsumer<Object, Object> action) {
+        if (node instanceof Branch branch) {
+            for (Object child : branch.children) {
+                visit(child, action);
+            }
+        } else if (node instanceof Leaf leaf) {
+            action.accept(leaf.key, leaf.value);
+        } else {
+            for (Leaf leaf : ((Collision) node).leaves) {
+                action.accept(leaf.key, leaf.value);
+            }
+        }
+    }
+
+    private static Object insert(Object node, int shift, Leaf leaf, boolean[] added) {
+        if (node instanceof Branch branch) {
+            int bit = bit(leaf.hash, shift);
+            int index = branch.index(bit);
+            if ((branch.bitmap & bit) == 0) {
+                added[0] = true;
+                Object[] children = new Object[branch.children.length + 1];
+                System.arraycopy(branch.children, 0, children, 0, index);
+                children[index] = leaf;
+                System.arraycopy(branch.children, index, children, index + 1, branch.children.length - index);
+                return new Branch(branch.bitmap | bit, children);
+            }
+            Object child = branch.children[index];
+            Object replaced = insert(child, shift + BITS, leaf, added);
+            if (replaced == child) {
+                return branch;
+            }
+            Object[] children = branch.children.clone();
+            children[index] = replaced;
+            return new Branch(branch.bitmap, children);
+        }
+        if (node instanceof Leaf old) {
+            if (old.hash == leaf.hash && old.key.equals(leaf.key)) {
+                return old.value == leaf.value ? old : leaf;
+            }
+            added[0] = true;
+            if (old.hash == leaf.hash) {
+                return new Collision(leaf.hash, new Leaf[]{old, leaf});
+            }
+            return split(old, old.hash, leaf, shift);
+        }
+        Collision collision = (Collision) node;
+        if (collision.hash != leaf.hash) {
+            added[0] = true;
+            return split(collision, collision.hash, leaf, shift);
+        }
+        Leaf[] leaves = collision.leaves;
+        for (int i = 0; i < leaves.length; i++) {
+            if (leaves[i].key.equals(leaf.key)) {
+                if (leaves[i].value == leaf.value) {
+                    return collision;
+                }
+                Leaf[] copy = leaves.clone();
+                copy[i] = leaf;
+                return new Collision(leaf.hash, copy);
+            }
+        }
+        added[0] = true;
+        Leaf[] copy = Arrays.copyOf(leaves, leaves.length + 1);
+        copy[leaves.length] = leaf;
+        return new Collision(leaf.hash, copy);
+    }
+
+    /**
+     * 哈希值不同的两个节点放进新的分支节点，在同一路时继续向下分
+     */
+    private static Branch split(Object node, int hash, Leaf leaf, int shift) {
+        int a = bit(hash, shift);
+        int b = bit(leaf.hash, shift);
+        if (a == b) {
+            return new Branch(a, new Object[]{split(node, hash, leaf, shift + BITS)});
+        }
+        Object[] children = Integer.compareUnsigned(a, b) < 0 ? new Object[]{node, leaf} : new Object[]{leaf, node};
+        return new Branch(a | b, children);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * 分支节点：bitmap 的第i位表示第i路有子节点，子节点按路号紧凑存放
+     */
+    private record Branch(int bitmap, Object[] children) {
+        int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+    }
+
+    private record Leaf(int hash, Object key, Object value) {
+    }
+
+    /**
+     * 哈希值完全相同的多个键
+     */
+    private record Collision(int hash, Leaf[] leaves) {
+    }
+}
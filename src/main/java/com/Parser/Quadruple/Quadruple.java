@@ -2,18 +2,41 @@ package com.Parser.Quadruple;
 
 // 四元式
 public class Quadruple {
-    String op, arg1, arg2, result;
+    // 字段对优化器开放，便于各个优化遍原地改写
+    public String op, arg1, arg2, result;
+    // 操作数分类的缓存，记下分类时字段引用的字符串，字段被改写后重新分类
+    private final String[] classified = new String[3];
+    private final OperandKind[] kinds = new OperandKind[3];
 
-    Quadruple(String op, String arg1, String arg2, String result) {
+    public Quadruple(String op, String arg1, String arg2, String result) {
         this.op = op;
         this.arg1 = arg1;
         this.arg2 = arg2;
         this.result = result;
     }
 
+    public OperandKind kindOfArg1() {
+        return kind(0, arg1);
+    }
+
+    public OperandKind kindOfArg2() {
+        return kind(1, arg2);
+    }
+
+    public OperandKind kindOfResult() {
+        return kind(2, result);
+    }
+
+    private OperandKind kind(int slot, String operand) {
+        if (kinds[slot] == null || classified[slot] != operand) {
+            classified[slot] = operand;
+            kinds[slot] = OperandKind.of(operand);
+        }
+        return kinds[slot];
+    }
+
     @Override
     public String toString() {
         return String.format("(%s %s %s %s)", op, arg1, arg2, result);
     }
 }
-
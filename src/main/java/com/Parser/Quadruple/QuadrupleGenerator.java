@@ -1,5 +1,8 @@
 package com.Parser.Quadruple;// 表示该类属于com.Parser.Quadruple包
 
+import lombok.Getter;
+import lombok.Setter;
+
 import java.util.*;
 
 import static java.lang.String.format;
@@ -16,12 +19,19 @@ public class QuadrupleGenerator {
     private final Map<String, String> cseCache = new HashMap<>(); // 公共子表达式消除
     // 存储生成的四元式列表
     List<Quadruple> quds = new ArrayList<>();
-    // 存储已声明的变量名，用于避免重复声明
-    private final Set<String> declaredVariables = new HashSet<>();
+    // 作用域树的根，符号表与之共用
+    @Getter
+    private final Scope globalScope = Scope.global();
+    // 当前所在的作用域
+    private Scope scope = globalScope;
     // 存储函数是否有返回值的映射，键为函数名，值为是否有返回值
     private final Map<String, Boolean> functionHasReturn = new HashMap<>();
-    // 按作用域（函数名或 "global"）区分的声明变量集合
-    private final Map<String, Set<String>> scopedDeclaredVariables = new HashMap<>();
+    // 是否在生成时折叠常量表达式，-O0 时关闭
+    @Setter
+    private boolean constantFolding = true;
+    // 是否在生成时复用已计算的相同表达式，-O0 时关闭
+    @Setter
+    private boolean commonSubexpressions = true;
 
 
 
@@ -59,32 +69,42 @@ public class QuadrupleGenerator {
      * @throws RuntimeException 当变量重复声明时
      */
     public void declareVariable(String type, String varName) {
-
-        if (currentFunction == null) {
-            // 全局作用域，沿用原有 declaredVariables 逻辑
-            if (declaredVariables.contains(varName)) {
+        // 只有同一作用域内的同名声明算重复，内层块可以遮蔽外层的声明
+        if (scope.lookupLocal(varName) != null) {
+            if (currentFunction == null) {
                 throw new RuntimeException("变量 '" + varName + "' 重复声明");
             }
-            if (functionTable.containsKey(varName)) {
-                throw new RuntimeException("变量名 '" + varName + "' 与已声明函数冲突");
-            }
-            declaredVariables.add(varName);
-        } else {
-            // 函数作用域，使用新建的 scopedDeclaredVariables
-            Set<String> vars = scopedDeclaredVariables.get(currentFunction);
-            if (vars.contains(varName)) {
-                throw new RuntimeException("变量 '" + varName + "' 在函数 '" + currentFunction + "' 中重复声明");
-            }
-            if (functionTable.containsKey(varName)) {
-                throw new RuntimeException("变量名 '" + varName + "' 与已声明函数冲突");
-            }
-            vars.add(varName);
-            declaredVariables.add(varName);
+            throw new RuntimeException("变量 '" + varName + "' 在函数 '" + currentFunction + "' 中重复声明");
+        }
+        if (functionTable.containsKey(varName)) {
+            throw new RuntimeException("变量名 '" + varName + "' 与已声明函数冲突");
         }
-        // 添加到已声明变量集合
+        Symbol symbol = scope.declare(varName, type, "variable", 0);
 
         // 生成变量声明四元式
-        quds.add(new Quadruple("var_decl", type, "_", varName));
+        quds.add(new Quadruple("var_decl", type, "_", symbol.irName));
+    }
+
+    /**
+     * 进入嵌套的代码块，块内的声明离开代码块后不再可见
+     */
+    public void enterBlock() {
+        scope = scope.enterBlock();
+    }
+
+    /**
+     * 离开代码块，回到外层作用域
+     */
+    public void exitBlock() {
+        scope = scope.getParent();
+    }
+
+    /**
+     * 源程序中的变量名在四元式中的名字，未声明时原样返回
+     */
+    private String resolve(String varName) {
+        Symbol symbol = scope.lookup(varName);
+        return symbol == null ? varName : symbol.irName;
     }
     
     /**
@@ -118,13 +138,11 @@ public class QuadrupleGenerator {
             // 数组访问表达式的类型是数组元素的类型
             ArrayAccessExpr arrayExpr = (ArrayAccessExpr)expr;
             // 查找数组声明，获取数组元素类型
-            for (int j = quds.size() - 1; j >= 0; j--) {
-                Quadruple q = quds.get(j);
-                if ("var_decl".equals(q.op) && arrayExpr.arrayName.equals(q.result)) {
-                    return q.arg1; // 返回数组声明的类型
-                }
+            Symbol symbol = scope.lookup(arrayExpr.arrayName);
+            if (symbol == null) {
+                throw new RuntimeException("未声明的数组: " + arrayExpr.arrayName);
             }
-            throw new RuntimeException("未声明的数组: " + arrayExpr.arrayName);
+            return symbol.type;
         } else if (expr instanceof BinaryExpr) {
             // 二元表达式的类型由操作数决定
             BinaryExpr binExpr = (BinaryExpr)expr;
@@ -181,15 +199,29 @@ public class QuadrupleGenerator {
 
     /**
      * 生成条件判断的四元式，如果条件为false则跳转到指定标签
+     * 比较与跳转合为一条 (j<relop> left right label)，关系取反，不再把比较结果存入临时变量
      * @param cond 条件表达式
      * @param label 跳转目标标签
      */
     public void ifFalse(Condition cond, String label) {
         String left = generateExpr(cond.left);
         String right = generateExpr(cond.right);
-        String temp = newTemp();
-        quds.add(new Quadruple(cond.op, left, right, temp));
-        quds.add(new Quadruple("if", temp, "_", label));
+        quds.add(new Quadruple("j" + negate(cond.op), left, right, label));
+    }
+
+    /**
+     * 关系运算取反，如 < 变为 >=
+     */
+    private static String negate(String op) {
+        return switch (op) {
+            case "==" -> "!=";
+            case "!=" -> "==";
+            case "<" -> ">=";
+            case "<=" -> ">";
+            case ">" -> "<=";
+            case ">=" -> "<";
+            default -> throw new RuntimeException("不支持的关系运算符: " + op);
+        };
     }
 
     /**
@@ -205,6 +237,8 @@ public class QuadrupleGenerator {
      * @param label 标签名
      */
     public void emitLabel(String label) {
+        // 标签处汇合了多条控制流，之前缓存的子表达式不一定在每条路径上都已计算
+        cseCache.clear();
         quds.add(new Quadruple("label", "_", "_", label));
     }
 
@@ -241,6 +275,8 @@ public class QuadrupleGenerator {
      * @param label 函数名
      */
     public void emitFuncLabel(String label) {
+        // 临时变量不跨函数复用
+        cseCache.clear();
         quds.add(new Quadruple("FuncStart", "_", "_", label));
     }
 
@@ -260,6 +296,7 @@ public class QuadrupleGenerator {
         }
         // 清除当前函数上下文
         currentFunction = null;
+        scope = globalScope;
         quds.add(new Quadruple("FuncEnd", "_", "_", label));
     }
 
@@ -269,7 +306,8 @@ public class QuadrupleGenerator {
      * @param size 数组大小
      */
     public void declareArray(String arrayName, int size) {
-        quds.add(new Quadruple("ARRAY_DECL", arrayName, Integer.toString(size), "_"));
+        Symbol symbol = scope.declareArray(arrayName, size);
+        quds.add(new Quadruple("ARRAY_DECL", symbol.irName, Integer.toString(size), "_"));
     }
 
     /**
@@ -281,7 +319,7 @@ public class QuadrupleGenerator {
     public String arrayAccess(String arrayName, Expr indexExpr) {
         String indexValue = generateExpr(indexExpr);
         String temp = newTemp();
-        quds.add(new Quadruple("=", arrayName + "[" + indexValue + "]", "_", temp));
+        quds.add(new Quadruple("=", resolve(arrayName) + "[" + indexValue + "]", "_", temp));
         return temp;
     }
 
@@ -294,7 +332,7 @@ public class QuadrupleGenerator {
     public void assignArray(String arrayName, Expr indexExpr, Expr valueExpr) {
         String indexValue = generateExpr(indexExpr);
         String value = generateExpr(valueExpr);
-        quds.add(new Quadruple("=", value, "_", arrayName + "[" + indexValue + "]"));
+        quds.add(new Quadruple("=", value, "_", resolve(arrayName) + "[" + indexValue + "]"));
     }
 
     /**
@@ -303,7 +341,7 @@ public class QuadrupleGenerator {
      * @return 如果是数字则返回true
      */
     boolean isNumber(String s) {
-        return s.matches("-?\\d+");
+        return OperandKind.of(s) == OperandKind.INT;
     }
 
     /**
@@ -354,6 +392,8 @@ public class QuadrupleGenerator {
         // 生成函数调用四元式
         String temp = newTemp();
         quds.add(new Quadruple("call", call.funcName, String.valueOf(evaluatedArgs.size()), temp));
+        // 被调函数可能修改全局变量，缓存的子表达式随之失效
+        cseCache.clear();
 
         return temp;
     }
@@ -431,8 +471,8 @@ public class QuadrupleGenerator {
             // 字符字面量返回带引号的字符
             return "'" + Character.toString(c.value) + "'";
         } else if (expr instanceof VarExpr v) {
-            // 变量表达式直接返回变量名
-            return v.name;
+            // 变量表达式返回变量在四元式中的名字
+            return resolve(v.name);
         } else if (expr instanceof FunctionCallExpr f) {
             // 函数调用表达式生成函数调用的四元式
             return generateFunctionCall(f);
@@ -443,16 +483,26 @@ public class QuadrupleGenerator {
             // 二元表达式递归处理左右两边的表达式
             String arg1 = generateExpr(b.left);
             String arg2 = generateExpr(b.right);
+            if (isNumber(arg2) && Integer.parseInt(arg2) == 0 && "/".equals(b.op)) {
+                throw new RuntimeException("除数为0: " + arg1 + " / " + arg2);
+            }
+            // 加法和乘法满足交换律：常量放右侧、变量按名字排序，a*b 与 b*a 命中同一缓存项
+            if (("+".equals(b.op) || "*".equals(b.op))
+                    && (isNumber(arg1) ? !isNumber(arg2) : !isNumber(arg2) && arg1.compareTo(arg2) > 0)) {
+                String t = arg1;
+                arg1 = arg2;
+                arg2 = t;
+            }
             String key = b.op + "," + arg1 + "," + arg2;
             
             // 公共子表达式消除：检查是否已计算过相同的表达式
-            if (cseCache.containsKey(key)) {
+            if (commonSubexpressions && cseCache.containsKey(key)) {
                 return cseCache.get(key);
             }
             
             // 常量折叠：如果两个操作数都是常量，直接计算结果
-            if (isNumber(arg1) && isNumber(arg2)) {
-                // 常量折叠
+            if (constantFolding && isNumber(arg1) && isNumber(arg2)) {
+                // 常量折叠，按16位字长截断
                 int folded = switch (b.op) {
                     case "+" -> Integer.parseInt(arg1) + Integer.parseInt(arg2);
                     case "-" -> Integer.parseInt(arg1) - Integer.parseInt(arg2);
@@ -460,7 +510,7 @@ public class QuadrupleGenerator {
                     case "/" -> Integer.parseInt(arg1) / Integer.parseInt(arg2);
                     default -> throw new RuntimeException("Unexpected operator: " + b.op);
                 };
-                return Integer.toString(folded);
+                return Integer.toString((short) folded);
             }
             
             // 生成二元运算的四元式
@@ -480,29 +530,13 @@ public class QuadrupleGenerator {
      * @throws RuntimeException 当变量未声明时
      */
     private String getVarType(String varName) {
-        // 查找变量声明获取类型
-        for (int j = quds.size() - 1; j >= 0; j--) {
-            Quadruple q = quds.get(j);
-            // 查找参数声明
-            if ("param_decl".equals(q.op) && varName.equals(q.result)) {
-                return q.arg1;
-            }
-            // 查找局部变量声明
-            if ("var_decl".equals(q.op) && varName.equals(q.result)) {
-                return q.arg1.equals("_") ? "int" : q.arg1;
-            }
-            // 查找数组声明
-            if ("ARRAY_DECL".equals(q.op) && varName.equals(q.arg1)) {
-                // 向上查找数组类型
-                for (int k = j; k >= 0; k--) {
-                    Quadruple decl = quds.get(k);
-                    if ("var_decl".equals(decl.op) && varName.equals(decl.result)) {
-                        return decl.arg1 + "[]"; // 添加数组标记
-                    }
-                }
-            }
+        // 在当前作用域中查找可见的声明
+        Symbol symbol = scope.lookup(varName);
+        if (symbol == null || "function".equals(symbol.kind)) {
+            throw new RuntimeException("未声明的变量: " + varName);
         }
-        throw new RuntimeException("未声明的变量: " + varName);
+        // 数组类型添加数组标记
+        return symbol.isArray() ? symbol.type + "[]" : symbol.type;
     }
 
     /**
@@ -511,15 +545,16 @@ public class QuadrupleGenerator {
      * @param expr 赋值表达式
      * @throws RuntimeException 当赋值类型不匹配时
      */
-    public void assign(String var, Expr expr) {
+    public void assign(String name, Expr expr) {
         // 获取左侧变量类型
-        String varType = getVarType(var);
+        String varType = getVarType(name);
+        String var = resolve(name);
         // 获取右侧表达式类型
         String exprType = getExprType(expr);
 
         // 类型检查
         if (!isTypeCompatible(varType, exprType)) {
-            throw new RuntimeException("变量 '" + var + "' 赋值类型不匹配: 变量类型 " +
+            throw new RuntimeException("变量 '" + name + "' 赋值类型不匹配: 变量类型 " +
                     varType + "，表达式类型 " + exprType);
         }
 
@@ -534,7 +569,7 @@ public class QuadrupleGenerator {
             quds.add(new Quadruple("=", "\"" + ((StringExpr) expr).value + "\"", "_", var));
         } else if (expr instanceof VarExpr) {
             // 变量赋值
-            quds.add(new Quadruple("=", ((VarExpr) expr).name, "_", var));
+            quds.add(new Quadruple("=", resolve(((VarExpr) expr).name), "_", var));
         } else if (expr instanceof FunctionCallExpr) {
             // 函数调用结果赋值
             String result = generateFunctionCall((FunctionCallExpr) expr);
@@ -544,6 +579,18 @@ public class QuadrupleGenerator {
             String result = generateExpr((BinaryExpr) expr);
             quds.add(new Quadruple("=", result, "_", var));
         }
+        invalidateCse(var);
+    }
+
+    /**
+     * 变量被重新赋值后，以它为操作数的缓存表达式不再有效
+     * @param var 被赋值的变量名
+     */
+    private void invalidateCse(String var) {
+        cseCache.keySet().removeIf(key -> {
+            String[] parts = key.split(",", 3);
+            return parts[1].equals(var) || parts[2].equals(var);
+        });
     }
 
     /**
@@ -576,11 +623,8 @@ public class QuadrupleGenerator {
     public void emitFuncParam(String returnType, String funcName,
                               List<String> paramNames, List<String> paramTypes) {
 
-        // 初始化函数作用域的局部变量集合
-        scopedDeclaredVariables.put(funcName, new HashSet<>());
-
-        // 检查函数名是否与变量名冲突
-        if (declaredVariables.contains(funcName)) {
+        // 检查函数名是否与全局变量冲突
+        if (globalScope.lookupLocal(funcName) != null && !functionTable.containsKey(funcName)) {
             throw new RuntimeException("函数名 '" + funcName + "' 与已声明变量冲突");
         }
 
@@ -607,8 +651,10 @@ public class QuadrupleGenerator {
             functionHasReturn.put(funcName, false);
         }
 
-        // 设置当前函数上下文
+        // 设置当前函数上下文，函数名登记在全局作用域，参数登记在函数作用域
         currentFunction = funcName;
+        globalScope.declare(funcName, returnType, "function", 0);
+        scope = globalScope.enterFunction(funcName);
 
         // 存储函数签名
         functionTable.put(funcName, new FunctionSignature(returnType, paramTypes, paramNames));
@@ -620,8 +666,9 @@ public class QuadrupleGenerator {
         for (int i = 0; i < paramNames.size(); i++) {
             String paramName = paramNames.get(i);
             String paramType = paramTypes.get(i);
-            quds.add(new Quadruple("param_decl", paramType, "_", paramName));
-            scopedDeclaredVariables.get(funcName).add(paramNames.get(i));
+            // 与全局变量同名的参数在四元式中另起名字
+            Symbol symbol = scope.declare(paramName, paramType, "parameter", 0);
+            quds.add(new Quadruple("param_decl", paramType, "_", symbol.irName));
         }
     }
 }
@@ -0,0 +1,160 @@
+package com.Parser.Quadruple;
+
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * 作用域树的节点：全局作用域 -> 函数作用域 -> 嵌套的块作用域
+ * 每个作用域用不可变映射保存可见符号，进入子作用域时直接沿用外层当时的映射（声明在使用之前），
+ * 之后在子作用域中声明只产生新映射，不影响外层；因此查找不论嵌套多深都只查一次映射，
+ * 取快照只是返回当前映射的引用
+ */
+public class Scope {
+    public enum Kind { GLOBAL, FUNCTION, BLOCK }
+
+    @Getter
+    private final Kind kind;
+    // 全局作用域为 global，函数作用域为函数名，块作用域为外层名字加块序号，如 main{1}{2}
+    @Getter
+    private final String name;
+    @Getter
+    private final Scope parent;
+    @Getter
+    private final List<Scope> children = new ArrayList<>();
+    // 本作用域声明的符号
+    private PersistentMap<String, Symbol> declared = PersistentMap.empty();
+    // 可见的符号：进入时外层可见的符号加上本作用域的声明
+    private PersistentMap<String, Symbol> visible;
+    // 函数作用域中各名字已改名的次数，用于给遮蔽外层符号的声明另起四元式中的名字
+    private final Map<String, Integer> names;
+    // 全局作用域中累计的声明个数
+    private int declarations;
+
+    private Scope(Kind kind, String name, Scope parent) {
+        this.kind = kind;
+        this.name = name;
+        this.parent = parent;
+        this.visible = parent == null ? PersistentMap.empty() : parent.visible;
+        this.names = kind == Kind.FUNCTION ? new HashMap<>() : null;
+    }
+
+    /**
+     * 新建全局作用域，作为作用域树的根
+     */
+    public static Scope global() {
+        return new Scope(Kind.GLOBAL, "global", null);
+    }
+
+    /**
+     * 在全局作用域下进入函数作用域
+     */
+    public Scope enterFunction(String function) {
+        Scope scope = new Scope(Kind.FUNCTION, function, this);
+        children.add(scope);
+        return scope;
+    }
+
+    /**
+     * 进入嵌套的块作用域
+     */
+    public Scope enterBlock() {
+        Scope scope = new Scope(Kind.BLOCK, name + "{" + (children.size() + 1) + "}", this);
+        children.add(scope);
+        return scope;
+    }
+
+    /**
+     * 查找可见的符号，内层声明遮蔽外层同名声明
+     * @return 找不到时返回null
+     */
+    public Symbol lookup(String symbol) {
+        return visible.get(symbol);
+    }
+
+    /**
+     * 只在本作用域的声明中查找
+     */
+    public Symbol lookupLocal(String symbol) {
+        return declared.get(symbol);
+    }
+
+    /**
+     * 当前可见符号的快照，之后的声明不会改变它
+     */
+    public PersistentMap<String, Symbol> snapshot() {
+        return visible;
+    }
+
+    /**
+     * 在本作用域声明符号，同名的符号被替换
+     * 函数内的声明不遮蔽任何可见符号时在四元式中沿用原名；遮蔽外层符号（包括全局变量）
+     * 或函数内已声明过同名符号时依次命名为 name@1、name@2……，否则函数中对外层符号的使用会被当成这个声明
+     */
+    public Symbol declare(String symbol, String type, String kind, int size) {
+        Scope function = function();
+        String irName = symbol;
+        if (function != null) {
+            if (function.names.containsKey(symbol) || lookup(symbol) != null) {
+                irName = symbol + "@" + function.names.merge(symbol, 1, Integer::sum);
+            } else {
+                function.names.put(symbol, 0);
+            }
+        }
+        return put(new Symbol(symbol, irName, type, kind, size, this, root().declarations++));
+    }
+
+    /**
+     * 把本作用域中刚声明的变量改为数组，四元式中的名字和声明次序不变；本作用域中没有该变量时按 int 数组新声明
+     */
+    public Symbol declareArray(String symbol, int size) {
+        Symbol variable = lookupLocal(symbol);
+        if (variable == null) {
+            Symbol outer = lookup(symbol);
+            return declare(symbol, outer == null ? "int" : outer.type, "array", size);
+        }
+        return replace(variable, variable.type, "array", size);
+    }
+
+    /**
+     * 修改本作用域中已声明符号的类型、种类或大小，四元式中的名字和声明次序不变
+     */
+    public Symbol replace(Symbol symbol, String type, String kind, int size) {
+        return put(new Symbol(symbol.name, symbol.irName, type, kind, size, this, symbol.order));
+    }
+
+    private Symbol put(Symbol symbol) {
+        declared = declared.put(symbol.name, symbol);
+        visible = visible.put(symbol.name, symbol);
+        return symbol;
+    }
+
+    /**
+     * 所在的函数作用域，全局作用域返回null
+     */
+    public Scope function() {
+        Scope scope = this;
+        while (scope != null && scope.kind != Kind.FUNCTION) {
+            scope = scope.parent;
+        }
+        return scope;
+    }
+
+    private Scope root() {
+        Scope scope = this;
+        while (scope.parent != null) {
+            scope = scope.parent;
+        }
+        return scope;
+    }
+
+    /**
+     * 本作用域声明的符号，按声明次序
+     */
+    public List<Symbol> getSymbols() {
+        List<Symbol> symbols = new ArrayList<>(declared.size());
+        declared.forEach((k, symbol) -> symbols.add(symbol));
+        symbols.sort(Comparator.comparingInt(s -> s.order));
+        return symbols;
+    }
+}
@@ -0,0 +1,43 @@
+package com.Parser.Quadruple;
+
+/**
+ * 作用域中的一个符号（变量、数组、参数或函数）
+ */
+public class Symbol {
+    // 源程序中的名字
+    public final String name;
+    // 四元式中使用的名字，与同一函数内先声明的同名符号区分，如内层块的 x 为 x@1
+    public final String irName;
+    public final String type;
+    // variable、array、parameter 或 function
+    public final String kind;
+    // 数组大小，其余符号为0
+    public final int size;
+    // 所在的作用域
+    public final Scope scope;
+    // 在整棵作用域树中的声明次序，输出符号表时按此排序
+    public final int order;
+
+    Symbol(String name, String irName, String type, String kind, int size, Scope scope, int order) {
+        this.name = name;
+        this.irName = irName;
+        this.type = type;
+        this.kind = kind;
+        this.size = size;
+        this.scope = scope;
+        this.order = order;
+    }
+
+    public boolean isArray() {
+        return "array".equals(kind);
+    }
+
+    @Override
+    public String toString() {
+        String shown = name.equals(irName) ? name : name + "(" + irName + ")";
+        if (isArray()) {
+            return String.format("%-15s | %-10s | %-10s | %-10s | %d", shown, type, kind, scope.getName(), size);
+        }
+        return String.format("%-15s | %-10s | %-10s | %-10s", shown, type, kind, scope.getName());
+    }
+}
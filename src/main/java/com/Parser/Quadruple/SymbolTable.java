@@ -5,304 +5,244 @@ import java.util.*;
 /**
  * 符号表类
  * 用于存储和管理程序中的符号信息（变量、数组、函数等）
+ * 符号按作用域树组织：全局作用域 -> 函数作用域 -> 嵌套的块作用域，与四元式生成器共用同一棵树
  */
 public class SymbolTable {
-    // 符号表主体，存储所有符号的基本信息
-    private final Map<String, SymbolInfo> symbols = new HashMap<>();
-
-    // 数组表，存储数组信息：数组名 -> [类型, 大小]
-    private final Map<String, String[]> arrayTable = new HashMap<>();
-
-    // 长度表，存储各种符号的长度：符号名 -> 长度
-    private final Map<String, Integer> lengthTable = new HashMap<>();
-
-    // 作用域表，存储符号的作用域信息：符号名 -> 作用域
-    private final Map<String, String> scopeTable = new HashMap<>();
+    // 作用域树的根
+    private final Scope global;
+    // 作用域树是否来自四元式生成器，是则声明已经登记，构建时只需识别常量
+    private final boolean shared;
     // 常量表，存储所有常量：常量值 -> [类型, 作用域]
     private final Map<String, String[]> constantTable = new HashMap<>();
-    // 当前处理的函数名（作用域）
-    private String currentScope = "global";
 
-    // 存储变量的类型信息：变量名 -> 类型
-    private final Map<String, String> typeTable = new HashMap<>();
+    // 赋值索引：变量名 -> 按出现顺序给它赋值的右侧操作数，用于推断没有类型的声明
+    private final Map<String, List<String>> assignments = new HashMap<>();
+    // 已构建过的四元式列表，同一列表只构建一次，供各使用方共享
+    private List<Quadruple> source;
 
     /**
-     * 符号信息内部类，存储单个符号的所有相关信息
+     * 独立使用时从四元式中的声明重建全局和函数作用域
      */
-    private static class SymbolInfo {
-        String name;          // 符号名称
-        String type;          // 符号类型（int, char, string等）
-        String kind;          // 符号种类（变量、数组、函数等）
-        String scope;         // 作用域
-        int size;             // 大小/长度（对数组有效）
-
-        public SymbolInfo(String name, String type, String kind, String scope) {
-            this.name = name;
-            this.type = type;
-            this.kind = kind;
-            this.scope = scope;
-            this.size = 0;    // 默认大小为0
-        }
+    public SymbolTable() {
+        this(Scope.global(), false);
+    }
 
-        public SymbolInfo(String name, String type, String kind, String scope, int size) {
-            this(name, type, kind, scope);
-            this.size = size;
-        }
+    /**
+     * 共用语法分析时建立的作用域树，包括嵌套块中的声明
+     * @param global 四元式生成器的全局作用域
+     */
+    public SymbolTable(Scope global) {
+        this(global, true);
+    }
 
-        @Override
-        public String toString() {
-            if ("array".equals(kind)) {
-                return String.format("%-15s | %-10s | %-10s | %-10s | %d", name, type, kind, scope, size);
-            }
-            return String.format("%-15s | %-10s | %-10s | %-10s", name, type, kind, scope);
-        }
+    private SymbolTable(Scope global, boolean shared) {
+        this.global = global;
+        this.shared = shared;
     }
 
     /**
      * 从四元式列表构建符号表
+     * 只扫描一遍四元式，同时建立赋值索引；声明处没有类型的变量先登记，
+     * 扫描结束后按作用域和索引确定类型，总时间与四元式条数成线性
+     * 对已经构建过的同一四元式列表再次调用时直接返回
      * @param quadruples 四元式列表
      */
     public void buildFromQuadruples(List<Quadruple> quadruples) {
-        // 存储函数参数信息：函数名 -> [参数名列表]
-        Map<String, List<String>> functionParams = new HashMap<>();
-
-        // 第一遍：收集所有类型信息和函数定义
-        for (Quadruple q : quadruples) {
-            if ("var_decl".equals(q.op) && !q.arg1.equals("_")) {
-                typeTable.put(q.result, q.arg1);
-            } else if ("param_decl".equals(q.op) && !q.arg1.equals("_")) {
-                typeTable.put(q.result, q.arg1);
-                // 记录参数归属的函数
-                functionParams.computeIfAbsent(currentScope, k -> new ArrayList<>())
-                        .add(q.result);
-            } else if ("FuncDef".equals(q.op)) {
-                typeTable.put(q.result, q.arg1);  // 存储函数返回类型
-            } else if ("FuncStart".equals(q.op)) {
-                currentScope = q.result;
-            } else if ("FuncEnd".equals(q.op)) {
-                currentScope = "global";
-            }
+        if (source == quadruples) {
+            return;
         }
+        source = quadruples;
+        Scope scope = global;
+        // 常量所在的作用域名
+        String current = "global";
+        // 类型待定的变量及其作用域，按登记顺序
+        List<Symbol> pending = new ArrayList<>();
+        List<Symbol> added = new ArrayList<>();
 
-        // 重置当前作用域，准备第二遍处理
-        currentScope = "global";
-        // 当前作用域设置为函数名
-
-        // 第二遍：构建符号表
         for (Quadruple q : quadruples) {
             switch (q.op) {
-                case "FuncStart":
+                case "FuncStart" -> {
                     // 函数开始
-                    currentScope = q.result;
-
-                    break;
-
-                case "FuncEnd":
+                    current = q.result;
+                    scope = shared ? global : global.enterFunction(q.result);
+                }
+                case "FuncEnd" -> {
                     // 函数结束，回到全局作用域
-                    currentScope = "global";
-                    break;
-
-                case "FuncDef":
+                    current = "global";
+                    scope = global;
+                }
+                case "FuncDef" -> {
                     // 函数定义：FuncDef, returnType, paramCount, funcName
-                    currentScope = q.result;
-                    addSymbol(q.result, q.arg1, "function", "global");
-                    break;
-
-                case "param_decl":
-                    // 增强参数类型处理
-                    String paramType;
+                    if (!shared) {
+                        added.add(global.declare(q.result, q.arg1, "function", 0));
+                    }
+                }
+                case "param_decl" -> {
+                    // 调用方为实参生成的无类型参数声明随后会有带类型的声明，不登记
+                    if (!shared && !q.arg1.equals("_")) {
+                        added.add(scope.declare(q.result, q.arg1, "parameter", 0));
+                    }
+                }
+                case "var_decl" -> {
+                    // 变量声明：var_decl, type, _, varName
+                    if (shared) {
+                        break;
+                    }
                     if (!q.arg1.equals("_")) {
-                        paramType = q.arg1;
-                    } else if (typeTable.containsKey(q.result)) {
-                        paramType = typeTable.get(q.result);
+                        added.add(scope.declare(q.result, q.arg1, "variable", 0));
                     } else {
-                        paramType = inferParameterType(q.result, quadruples, currentScope);
+                        pending.add(scope.declare(q.result, null, "variable", 0)); // 该情况不产生
                     }
-                    if (q.arg1.equals("_")) {
-                    currentScope = "unknown"; // 如果没有类型信息，设置为未知
+                }
+                case "ARRAY_DECL" -> {
+                    // 数组声明：ARRAY_DECL, arrayName, size, _，元素类型取同一作用域中数组变量声明的类型
+                    if (shared) {
+                        break;
                     }
-                    addSymbol(q.result, paramType, "parameter", currentScope);
-                    break;
-
-                case "var_decl":
-                    // 变量声明：var_decl, type, _, varName
-                    String varType = !q.arg1.equals("_") ? q.arg1 : inferType(q.result, quadruples);// 该情况不产生
-                    addSymbol(q.result, varType, "variable", currentScope);
-                    break;
-
-                case "ARRAY_DECL":
-                    // 数组声明：ARRAY_DECL, arrayName, size, _
+                    int size;
                     try {
-                        int size = Integer.parseInt(q.arg2);
-                        // 查找数组类型
-                        String arrayType = inferType(q.arg1, quadruples);
-                        addArray(q.arg1, arrayType, size, currentScope);
+                        size = Integer.parseInt(q.arg2);
                     } catch (NumberFormatException e) {
                         // 处理大小不是整数的情况，直接用0
-                        String arrayType = inferType(q.arg1, quadruples);
-                        addArray(q.arg1, arrayType, 0, currentScope);
+                        size = 0;
                     }
-                    break;
-
+                    added.add(scope.declareArray(q.arg1, size));
+                }
+                case "=" -> {
+                    if (q.result != null) {
+                        assignments.computeIfAbsent(q.result, k -> new ArrayList<>()).add(q.arg1);
+                    }
+                }
+                default -> {
+                }
             }
             // 识别常量
-            identifyConstant(q.arg1, currentScope);
-            identifyConstant(q.arg2, currentScope);
-
-            // 对于赋值操作，特别检查右侧是否为常量
-            if ("=".equals(q.op)) {
-                identifyConstant(q.arg1, currentScope);
-            }
+            identifyConstant(q.arg1, q.kindOfArg1(), current);
+            identifyConstant(q.arg2, q.kindOfArg2(), current);
         }
-    }
-
-    /**
-     * 识别并添加常量到常量表
-     */
-    private void identifyConstant(String value, String scope) {
-        if (value == null || value.isEmpty() || value.equals("_"))
-            return;
 
-        // 识别整数常量
-        if (value.matches("-?\\d+")) {
-            constantTable.put(value, new String[]{"int", scope});
+        // 整个程序的赋值都已进入索引，确定待定变量的类型
+        for (Symbol symbol : pending) {
+            added.add(symbol.scope.replace(symbol, inferType(symbol.name, symbol.scope), symbol.kind, 0));
         }
-        // 识别字符常量
-        else if (value.matches("'.'")) {
-            constantTable.put(value, new String[]{"char", scope});
-        }
-        // 识别字符串常量
-        else if (value.startsWith("\"") && value.endsWith("\"")) {
-            constantTable.put(value, new String[]{"string", scope});
+        for (Symbol symbol : added) {
+            // 输出调试信息
+            System.out.printf("添加符号: %s, 类型: %s, 种类: %s, 作用域: %s%n",
+                    symbol.irName, symbol.type, symbol.kind, symbol.scope.getName());
         }
     }
 
     /**
-     * 专门用于推断函数参数类型的方法
+     * 识别并添加常量到常量表
      */
-    // 没有使用他
-    private String inferParameterType(String paramName, List<Quadruple> quadruples, String funcName) {
-        // 首先检查是否在类型表中有记录
-        if (typeTable.containsKey(paramName)) {
-            return typeTable.get(paramName);
-        }
-
-        // 查找参数在函数中的使用情况来推断类型
-        for (Quadruple q : quadruples) {
-            // 查找该参数在函数内的赋值和使用情况
-            if (currentScope.equals(funcName)) {
-                // 如果参数作为左值出现在赋值中
-                if ("=".equals(q.op) && paramName.equals(q.result)) {
-                    // 推断类型逻辑...与inferType类似
-                }
-
-                // 检查参数是否参与了特定类型的运算
-                if (Arrays.asList("+", "-", "*", "/").contains(q.op)) {
-                    if (paramName.equals(q.arg1) || paramName.equals(q.arg2)) {
-                        return "int"; // 算术运算通常表示数值类型
-                    }
-                }
+    private void identifyConstant(String value, OperandKind kind, String scope) {
+        switch (kind) {
+            case INT -> constantTable.put(value, new String[]{"int", scope});
+            case CHAR -> constantTable.put(value, new String[]{"char", scope});
+            case STRING -> constantTable.put(value, new String[]{"string", scope});
+            default -> {
             }
         }
-
-        // 如果无法推断，默认为int
-        return "int";
     }
 
     /**
-     * 从上下文推断符号类型
-     * @param name 符号名
-     * @param quadruples 四元式列表
+     * 推断变量类型：先取外层作用域中同名声明的类型，再看第一个能确定类型的赋值
+     * @param name 变量名
+     * @param scope 变量所在的作用域
      * @return 推断出的类型，无法推断时返回默认类型 "int"
      */
-    private String inferType(String name, List<Quadruple> quadruples) {
-        // 首先检查typeTable中是否已有该符号的类型信息
-        if (typeTable.containsKey(name)) {
-            return typeTable.get(name);
+    private String inferType(String name, Scope scope) {
+        Symbol outer = scope.getParent() == null ? null : scope.getParent().lookup(name);
+        if (outer != null && outer.type != null) {
+            return outer.type;
         }
-
-        // 尝试从赋值语句推断类型
-        for (Quadruple q : quadruples) {
-            if ("=".equals(q.op) && name.equals(q.result)) {
-                // 如果右侧是变量或临时变量，获取其类型
-                if (typeTable.containsKey(q.arg1)) {
-                    return typeTable.get(q.arg1);
-                }
-                // 如果右侧是字符字面量
-                if (q.arg1 != null && q.arg1.startsWith("'") && q.arg1.endsWith("'")) {
+        for (String value : assignments.getOrDefault(name, List.of())) {
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            // 如果右侧是变量，获取其类型
+            Symbol source = scope.lookup(value);
+            if (source != null && source.type != null) {
+                return source.type;
+            }
+            // 右侧是字面量时取字面量的类型
+            switch (OperandKind.of(value)) {
+                case CHAR -> {
                     return "char";
                 }
-                // 如果右侧是字符串字面量
-                if (q.arg1 != null && q.arg1.startsWith("\"") && q.arg1.endsWith("\"")) {
+                case STRING -> {
                     return "string";
                 }
-                // 如果右侧是数字
-                if (q.arg1 != null && q.arg1.matches("-?\\d+")) {
+                case INT -> {
                     return "int";
                 }
+                default -> {
+                }
             }
         }
-
         // 如果还是无法推断，返回默认类型
         return "int";
     }
 
     /**
-     * 添加普通符号到符号表
+     * 全局作用域
      */
-    private void addSymbol(String name, String type, String kind, String scope) {
-        if (name == null || name.isEmpty() || name.equals("_"))
-            return;
-        String key = scope + "#" + name;
-        SymbolInfo info = new SymbolInfo(name, type, kind, scope);
-        // 输出调试信息
-        System.out.printf("添加符号: %s, 类型: %s, 种类: %s, 作用域: %s%n", name, type, kind, scope);
-        symbols.put(key, info);
-        scopeTable.put(key, scope);
-        typeTable.put(key, type);
+    public Scope getGlobalScope() {
+        return global;
     }
 
     /**
-     * 添加数组到符号表和数组表
+     * 查找符号：先找全局作用域，再按声明顺序找各函数作用域及其中的块
+     * @return 找不到时返回null
      */
-    private void addArray(String name, String type, int size, String scope) {
-        if (name == null || name.isEmpty())
-            return;
-        String key = scope + "#" + name;
-        SymbolInfo info = new SymbolInfo(name, type, "array", scope, size);
-        symbols.put(key, info);
-        arrayTable.put(name, new String[]{type, String.valueOf(size)});
-        lengthTable.put(key, size);
-        scopeTable.put(key, scope);
-        typeTable.put(key, type);
+    public Symbol lookup(String name) {
+        return find(global, name);
+    }
+
+    private static Symbol find(Scope scope, String name) {
+        Symbol symbol = scope.lookupLocal(name);
+        if (symbol != null) {
+            return symbol;
+        }
+        for (Scope child : scope.getChildren()) {
+            symbol = find(child, name);
+            if (symbol != null) {
+                return symbol;
+            }
+        }
+        return null;
     }
 
     /**
      * 获取符号的类型
      */
     public String getType(String name) {
-        return symbols.containsKey(name) ? symbols.get(name).type : null;
+        Symbol symbol = lookup(name);
+        return symbol == null ? null : symbol.type;
     }
 
     /**
      * 获取数组的大小
      */
     public int getArraySize(String name) {
-        return lengthTable.getOrDefault(name, 0);
+        Symbol symbol = lookup(name);
+        return symbol == null ? 0 : symbol.size;
     }
 
     /**
      * 获取符号的作用域
      */
     public String getScope(String name) {
-        return scopeTable.getOrDefault(name, "unknown");
+        Symbol symbol = lookup(name);
+        return symbol == null ? "unknown" : symbol.scope.getName();
     }
 
     /**
      * 判断符号是否为数组
      */
     public boolean isArray(String name) {
-        return arrayTable.containsKey(name);
+        Symbol symbol = lookup(name);
+        return symbol != null && symbol.isArray();
     }
 
     /**
@@ -315,42 +255,32 @@ public class SymbolTable {
                 "名称", "类型", "种类", "作用域", "大小(数组)"));
         sb.append("--------------------------------------------------------------------\n");
 
-        // 按照作用域分组排序
-        Map<String, List<SymbolInfo>> scopeGroups = new HashMap<>();
-
-        for (SymbolInfo info : symbols.values()) {
-            scopeGroups.computeIfAbsent(info.scope, k -> new ArrayList<>()).add(info);
-        }
-
         // 先输出全局符号
-        if (scopeGroups.containsKey("global")) {
+        List<Symbol> arrays = new ArrayList<>();
+        List<Symbol> globals = global.getSymbols();
+        if (!globals.isEmpty()) {
             sb.append("全局符号:\n");
-
-            for (SymbolInfo info : scopeGroups.get("global")) {
-                sb.append(info).append("\n");
-            }
+            appendSymbols(sb, globals, arrays);
             sb.append("\n");
         }
 
-        // 然后输出各个函数作用域的符号
-        for (String scope : scopeGroups.keySet()) {
-            if (!"global".equals(scope) && !"unknown".equals(scope)) {
-                sb.append("函数 '").append(scope).append("' 的符号:\n");
-                for (SymbolInfo info : scopeGroups.get(scope)) {
-                    sb.append(info).append("\n");
-                }
-                sb.append("\n");
+        // 然后按声明顺序输出各个函数作用域的符号，嵌套块中的符号跟在所在函数之后
+        for (Scope function : global.getChildren()) {
+            if (isEmpty(function)) {
+                continue;
             }
+            sb.append("函数 '").append(function.getName()).append("' 的符号:\n");
+            appendScope(sb, function, arrays);
+            sb.append("\n");
         }
 
         // 特别输出数组表
-        if (!arrayTable.isEmpty()) {
+        if (!arrays.isEmpty()) {
             sb.append("数组表:\n");
             sb.append(String.format("%-15s | %-10s | %-10s\n", "数组名", "元素类型", "大小"));
             sb.append("------------------------------------------\n");
-            for (Map.Entry<String, String[]> entry : arrayTable.entrySet()) {
-                sb.append(String.format("%-15s | %-10s | %-10s\n",
-                        entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+            for (Symbol array : arrays) {
+                sb.append(String.format("%-15s | %-10s | %-10s\n", array.irName, array.type, array.size));
             }
         }
         // 输出常量表
@@ -365,4 +295,32 @@ public class SymbolTable {
         }
         return sb.toString();
     }
-}
\ No newline at end of file
+
+    private static boolean isEmpty(Scope scope) {
+        if (!scope.getSymbols().isEmpty()) {
+            return false;
+        }
+        for (Scope block : scope.getChildren()) {
+            if (!isEmpty(block)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void appendScope(StringBuilder sb, Scope scope, List<Symbol> arrays) {
+        appendSymbols(sb, scope.getSymbols(), arrays);
+        for (Scope block : scope.getChildren()) {
+            appendScope(sb, block, arrays);
+        }
+    }
+
+    private static void appendSymbols(StringBuilder sb, List<Symbol> symbols, List<Symbol> arrays) {
+        for (Symbol symbol : symbols) {
+            sb.append(symbol).append("\n");
+            if (symbol.isArray()) {
+                arrays.add(symbol);
+            }
+        }
+    }
+}
@@ -326,9 +326,11 @@ public class RecursiveParser {
                 throw new RuntimeException(" unknown statement after identifier after " + id+ "\n");
             }
         }
-        // 代码块
+        // 代码块，块内声明的变量只在块内可见
         else if (t.value.equals("{")) {
+            gen.enterBlock();
             parseBlock();
+            gen.exitBlock();
         }
         // if语句
         else if (t.value.equals("if")) {
@@ -337,6 +339,10 @@ public class RecursiveParser {
         // while循环
         else if (t.value.equals("while")) {
             parseWhileStmt();
+        }
+        // for循环
+        else if (t.value.equals("for")) {
+            parseForStmt();
         } else {
             // 语法错误处理
             throw new RuntimeException("Expected DeclStmt, AssignStmt or Block, but found " + t.value);// 报错
@@ -401,6 +407,72 @@ public class RecursiveParser {
         gen.emitWeLabel();
     }
 
+    /**
+     * 解析for循环，翻译成与while相同的循环结构
+     * 语法形式: for ([init]; [condition]; [step]) statement
+     * 步进部分先解析，待循环体生成后再生成四元式
+     */
+    private void parseForStmt() {
+        match("for");
+        match("(");
+        if (!lookahead().value.equals(";")) {
+            parseForClause().run();  // 初始化部分只执行一次
+        }
+        match(";");
+
+        String labelStart = newLabel();
+        String labelEnd = newLabel();
+
+        gen.emitWhLabel();
+        gen.emitLabel(labelStart);
+
+        // 省略条件时为无限循环
+        if (!lookahead().value.equals(";")) {
+            Condition cond = parseCondition();
+            gen.ifFalse(cond, labelEnd);
+        }
+        match(";");
+
+        Runnable step = lookahead().value.equals(")") ? null : parseForClause();
+        match(")");
+
+        parseStmt();  // 解析循环体
+        if (step != null) {
+            step.run();
+        }
+        gen.gotoLabel(labelStart);
+        gen.emitLabel(labelEnd);
+
+        gen.emitWeLabel();
+    }
+
+    /**
+     * 解析for循环头部中不带分号的赋值
+     * 语法形式: 变量 = 表达式 | 数组[索引] = 表达式 | 变量++ | 变量--
+     *
+     * @return 生成对应四元式的动作
+     */
+    private Runnable parseForClause() {
+        String var = match(Token.Type.IDENTIFIER).value;
+        if (lookahead().value.equals("++") || lookahead().value.equals("--")) {
+            // i++ 等价于 i = i + 1
+            String op = match(lookahead().value).value.substring(0, 1);
+            Expr expr = new BinaryExpr(op, new VarExpr(var), new NumberExpr(1));
+            return () -> gen.assign(var, expr);
+        }
+        if (lookahead().value.equals("[")) {
+            match("[");
+            Expr indexExpr = parseExpr();
+            match("]");
+            match("=");
+            Expr valueExpr = parseExpr();
+            return () -> gen.assignArray(var, indexExpr, valueExpr);
+        }
+        match("=");
+        Expr expr = parseExpr();
+        return () -> gen.assign(var, expr);
+    }
+
     /**
      * 解析条件表达式
      * 语法形式: expr 操作符 expr
@@ -0,0 +1,124 @@
+package com.Profile;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 一次编译的性能剖析
+ * 记录各阶段（词法分析、语法分析、各优化遍、符号表、目标代码生成）的耗时与分配的内存字节数，
+ * 优化遍前后的四元式条数，以及 token、四元式、汇编指令的数量；
+ * 还记录所选优化级别实际执行的优化遍和每条窥孔规则的命中次数
+ */
+@Getter
+public class CompileProfile {
+    // 当前线程分配字节数的计数器，JVM不支持时为null
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    // 按首次出现的顺序排列
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+    @Setter
+    private int tokenCount;
+    // 优化前的四元式条数
+    @Setter
+    private int quadCount;
+    // 优化后的四元式条数
+    @Setter
+    private int optimizedQuadCount;
+    @Setter
+    private int instructionCount;
+    // 执行的优化遍，方括号中的组合反复执行到不动点，*后为最多轮数
+    @Setter
+    private String passes;
+    // 窥孔规则 -> 命中次数
+    private final Map<String, Integer> peepholeHits = new LinkedHashMap<>();
+
+    /**
+     * 执行并记录一个阶段
+     */
+    public <T> T measure(String name, Supplier<T> work) {
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            record(name, System.nanoTime() - start, allocatedBytes() - bytes);
+        }
+    }
+
+    public void measure(String name, Runnable work) {
+        measure(name, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * 累加一个阶段的耗时和分配字节数，同名阶段多次执行时合并为一项
+     */
+    public Stage record(String name, long nanos, long bytes) {
+        Stage stage = stage(name);
+        stage.runs++;
+        stage.nanos += nanos;
+        stage.allocatedBytes += bytes;
+        return stage;
+    }
+
+    public Stage stage(String name) {
+        return stages.computeIfAbsent(name, Stage::new);
+    }
+
+    public List<Stage> getStages() {
+        return new ArrayList<>(stages.values());
+    }
+
+    /**
+     * 当前线程累计分配的字节数，不支持时为0
+     */
+    public static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+        return null;
+    }
+
+    /**
+     * 一个阶段的统计；优化遍的 irBefore、irAfter 为各函数第一次执行前、最后一次执行后的四元式条数之和，其余阶段为null
+     */
+    @Getter
+    public static class Stage {
+        private final String name;
+        private int runs;
+        private long nanos;
+        private long allocatedBytes;
+        private Integer irBefore;
+        private Integer irAfter;
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        public double getMillis() {
+            return nanos / 1e6;
+        }
+
+        public void addIrSize(int before, int after) {
+            irBefore = (irBefore == null ? 0 : irBefore) + before;
+            irAfter = (irAfter == null ? 0 : irAfter) + after;
+        }
+    }
+}
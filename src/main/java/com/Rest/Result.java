@@ -1,6 +1,7 @@
 package com.Rest;
 
 import com.Lexer.Lexer;
+import com.Profile.CompileProfile;
 import lombok.*;
 
 import java.util.HashMap;
@@ -44,6 +45,9 @@ public class Result {
     public String asmCode;
     @Setter
     public String symbolTable;
+    // 请求中 profile 为 true 时才有，各阶段的耗时、内存分配与代码规模
+    @Setter
+    public CompileProfile profile;
 
 
     public static Result ok(String res, String tokens, String asmCode, Lexer lexer) {
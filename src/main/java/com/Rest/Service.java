@@ -1,7 +1,11 @@
 package com.Rest;
 
 import cn.hutool.core.util.StrUtil;
+import com.CodeGen.AllocatorKind;
+import com.CodeGen.Backend;
+import com.CompileOptions;
 import com.Main;
+import com.Optimizer.OptLevel;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
@@ -11,6 +15,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -19,6 +24,13 @@ import java.util.stream.Collectors;
 public class Service {
     Result res;
 
+    /**
+     * 编译请求，payload 中 sourceCode 为源程序；
+     * 可选 optLevel 为优化级别（-O0、-O1、-O2、-Os，默认 -O0），disabledPasses 为逗号分隔的禁用优化遍名称，
+     * profile 为 true 时结果中附带各阶段的耗时、内存分配和代码规模，
+     * backend 为目标代码生成器（masm、accumulator 或 x86-64，默认 masm），
+     * allocator 为寄存器分配器（none、linear 或 graph，默认 -O0 为 none，其余为 linear）
+     */
     @PostMapping("/parse")
     @ResponseBody
     public Result parse(@RequestBody Map<String, String> payload) {
@@ -30,7 +42,18 @@ public class Service {
             sourceCode = sourceCode.replace('\r', ' ').replace('\n', ' ');
             System.out.printf("%s", sourceCode);
             System.out.println();
-            res = Main.Solve(sourceCode);
+            Set<String> disabledPasses = Arrays.stream(payload.getOrDefault("disabledPasses", "").split(","))
+                    .map(String::trim)
+                    .filter(StrUtil::isNotEmpty)
+                    .collect(Collectors.toSet());
+            CompileOptions options = CompileOptions.builder()
+                    .level(OptLevel.parse(payload.get("optLevel")))
+                    .disabledPasses(disabledPasses)
+                    .profiling(Boolean.parseBoolean(payload.get("profile")))
+                    .backend(Backend.parse(payload.get("backend")))
+                    .allocator(AllocatorKind.parse(payload.get("allocator")))
+                    .build();
+            res = Main.Solve(sourceCode, options);
             return res;
         } catch (Exception e) {
             return Result.fail("error" + e.getMessage());
@@ -0,0 +1,107 @@
+package com.CodeGen;
+
+import com.Lexer.Lexer;
+import com.Optimizer.IrOptimizer;
+import com.Optimizer.OptLevel;
+import com.Parser.Quadruple.AssemblyGenerator;
+import com.Parser.Quadruple.Quadruple;
+import com.Parser.Quadruple.SymbolTable;
+import com.Parser.RecursiveParser;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * 寄存器分配器对比
+ * 对语料中的每个程序用各个寄存器分配器生成汇编，比较代码段指令条数和数据段中的变量个数
+ * 用法: AllocatorBenchmark [-O0|-O1|-O2|-Os] [文件或目录...]，默认 -O2 和 in/corpus
+ */
+public class AllocatorBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        OptLevel level = OptLevel.O2;
+        List<String> paths = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("-O")) {
+                level = OptLevel.parse(arg);
+            } else {
+                paths.add(arg);
+            }
+        }
+        if (paths.isEmpty()) {
+            paths.add("in/corpus");
+        }
+        List<Path> files = new ArrayList<>();
+        for (String arg : paths) {
+            Path path = Path.of(arg);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> s = Files.list(path)) {
+                    s.filter(p -> p.toString().endsWith(".c")).sorted().forEach(files::add);
+                }
+            } else {
+                files.add(path);
+            }
+        }
+
+        PrintStream out = System.out;
+        AllocatorKind[] kinds = AllocatorKind.values();
+        int[] instructionTotals = new int[kinds.length];
+        int[] variableTotals = new int[kinds.length];
+        out.printf("-%s  指令数/数据段变量数%n%-28s", level, "");
+        for (AllocatorKind kind : kinds) {
+            out.printf(" %16s", kind);
+        }
+        out.println();
+        for (Path file : files) {
+            String source = Files.readString(file);
+            StringBuilder line = new StringBuilder(String.format("%-28s", file.getFileName()));
+            // 词法、语法分析、优化和目标代码生成的调试输出不关心，暂时屏蔽
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            try {
+                for (int i = 0; i < kinds.length; i++) {
+                    List<Quadruple> quadruples = compile(source, new IrOptimizer(level, Set.of()));
+                    AssemblyGenerator generator = new AssemblyGenerator(new SymbolTable(), kinds[i].create());
+                    generator.generateAssembly(quadruples);
+                    int instructions = generator.getInstructionCount();
+                    int variables = countVariables(generator.getAssemblyCode());
+                    instructionTotals[i] += instructions;
+                    variableTotals[i] += variables;
+                    line.append(String.format(" %16s", instructions + "/" + variables));
+                }
+            } catch (RuntimeException e) {
+                line.append(" ERROR ").append(e.getMessage());
+            } finally {
+                System.setOut(out);
+            }
+            out.println(line);
+        }
+        out.printf("%-28s", "合计");
+        for (int i = 0; i < kinds.length; i++) {
+            out.printf(" %16s", instructionTotals[i] + "/" + variableTotals[i]);
+        }
+        out.println();
+    }
+
+    private static List<Quadruple> compile(String source, IrOptimizer optimizer) {
+        RecursiveParser parser = new RecursiveParser(new Lexer(source).analyze());
+        parser.getGen().setConstantFolding(optimizer.isEnabled(IrOptimizer.GENERATOR_FOLD));
+        parser.getGen().setCommonSubexpressions(optimizer.isEnabled(IrOptimizer.GENERATOR_CSE));
+        parser.parseProgram();
+        return optimizer.optimize(parser.getGen().getQuadruples());
+    }
+
+    /**
+     * 数据段中的变量个数
+     */
+    private static int countVariables(String assembly) {
+        String data = assembly.substring(assembly.indexOf(".DATA\n"), assembly.indexOf(".CODE\n"));
+        return (int) data.lines().filter(l -> l.contains(" DW ")).count();
+    }
+}
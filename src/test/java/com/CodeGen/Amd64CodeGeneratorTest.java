@@ -0,0 +1,82 @@
+package com.CodeGen;
+
+import com.CompileOptions;
+import com.Main;
+import com.Rest.Result;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * x86-64 后端的 System V 调用约定：参数寄存器、栈上实参的顺序与对齐，以及函数的序言和尾声
+ */
+class Amd64CodeGeneratorTest {
+    private static final String SOURCE = "int f(int a, int b, int c, int d, int e, int g, int h, int k) {"
+            + " return a - b + c - d + e - g + h * k; }"
+            + " int s(int a, int b, int c, int d, int e, int g, int h) { return a + h; }"
+            + " int main() { return f(1, 2, 3, 4, 5, 6, 7, 8) + s(1, 2, 3, 4, 5, 6, 7); }";
+
+    @Test
+    void eightArgumentsUseSixRegistersAndTheStack() {
+        List<String> code = compile();
+        // 第7、8个实参从右到左压栈，栈上实参个数为偶数时不需要补齐
+        assertEquals(List.of("pushq $8", "pushq $7",
+                "movq $1, %rdi", "movq $2, %rsi", "movq $3, %rdx", "movq $4, %rcx", "movq $5, %r8", "movq $6, %r9",
+                "call f", "addq $16, %rsp"), callSequence(code, "f", 10));
+    }
+
+    @Test
+    void oddStackArgumentsKeepCallAligned() {
+        List<String> code = compile();
+        // 只有一个栈上实参时先补8字节，调用时 %rsp 仍按16字节对齐
+        assertEquals(List.of("subq $8, %rsp", "pushq $7",
+                "movq $1, %rdi", "movq $2, %rsi", "movq $3, %rdx", "movq $4, %rcx", "movq $5, %r8", "movq $6, %r9",
+                "call s", "addq $16, %rsp"), callSequence(code, "s", 10));
+    }
+
+    @Test
+    void calleeSavesRegisterParamsAndReadsStackParams() {
+        List<String> code = compile();
+        int start = code.indexOf("f:");
+        assertEquals(List.of("pushq %rbp", "movq %rsp, %rbp"), code.subList(start + 1, start + 3));
+        String reserve = code.get(start + 3);
+        assertTrue(reserve.matches("subq \\$\\d+, %rsp"), reserve);
+        assertEquals(0, Integer.parseInt(reserve.substring("subq $".length(), reserve.indexOf(','))) % 16);
+        List<String> saves = code.subList(start + 4, start + 10);
+        String[] registers = {"%rdi", "%rsi", "%rdx", "%rcx", "%r8", "%r9"};
+        for (int i = 0; i < registers.length; i++) {
+            assertEquals("movq " + registers[i] + ", -" + 8 * (i + 1) + "(%rbp)", saves.get(i));
+        }
+        List<String> body = code.subList(start, code.indexOf(".size f, .-f"));
+        // 第7、8个形参在返回地址和保存的 %rbp 之上
+        assertTrue(body.contains("movq 16(%rbp), %rax"), String.join("\n", body));
+        assertTrue(body.contains("imulq 24(%rbp), %rax"), String.join("\n", body));
+        assertEquals(List.of("leave", "ret"), body.subList(body.size() - 2, body.size()));
+    }
+
+    /**
+     * 编译 SOURCE，每行去掉缩进，助记符与操作数之间以一个空格分隔
+     */
+    private static List<String> compile() {
+        Result result = Main.Solve(SOURCE, CompileOptions.builder().backend(Backend.X86_64).build());
+        assertTrue(result.isSuccess(), result.getMsg());
+        List<String> lines = new ArrayList<>();
+        for (String line : result.getAsmCode().split("\n")) {
+            lines.add(line.trim().replace('\t', ' '));
+        }
+        return lines;
+    }
+
+    /**
+     * 调用 callee 的指令及其之前的 count - 2 条、之后的一条
+     */
+    private static List<String> callSequence(List<String> code, String callee, int count) {
+        int call = code.indexOf("call " + callee);
+        assertTrue(call >= 0, "call " + callee);
+        return code.subList(call - count + 2, call + 2);
+    }
+}
@@ -0,0 +1,51 @@
+package com.CodeGen;
+
+import com.CompileOptions;
+import com.Optimizer.OptLevel;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 16位后端的每种组合（MASM 配每种寄存器分配器、累加器后端）在每个优化级别下，
+ * 语料中每个程序的执行结果都与四元式解释器一致：main 的返回值和全局变量、数组的最终值
+ */
+class CodeGeneratorTest {
+
+    @Test
+    void everyBackendMatchesInterpreterOnCorpus() throws IOException {
+        // null 为默认：-O0 不分配寄存器，其余级别用线性扫描
+        List<AllocatorKind> allocators = new ArrayList<>(Arrays.asList(AllocatorKind.values()));
+        allocators.add(0, null);
+        List<String> mismatches = new ArrayList<>();
+        for (Path file : CompiledPrograms.corpus()) {
+            String source = Files.readString(file);
+            String expected = CompiledPrograms.interpret(source);
+            for (OptLevel level : OptLevel.values()) {
+                for (AllocatorKind allocator : allocators) {
+                    check(file, source, expected, CompileOptions.builder()
+                            .level(level).backend(Backend.MASM).allocator(allocator).build(), mismatches);
+                }
+                // 累加器后端只使用 AX，不分配寄存器
+                check(file, source, expected, CompileOptions.builder()
+                        .level(level).backend(Backend.ACCUMULATOR).build(), mismatches);
+            }
+        }
+        assertEquals(List.of(), mismatches);
+    }
+
+    private static void check(Path file, String source, String expected, CompileOptions options, List<String> mismatches) {
+        String actual = CompiledPrograms.execute(source, options, expected);
+        if (!expected.equals(actual)) {
+            mismatches.add(file.getFileName() + " -" + options.getLevel() + " " + options.getBackend()
+                    + " " + options.getAllocator() + ": " + actual + " != " + expected);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.CodeGen;
+
+import com.CompileOptions;
+import com.Lexer.Lexer;
+import com.Main;
+import com.Optimizer.IrInterpreter;
+import com.Parser.RecursiveParser;
+import com.Rest.Result;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 后端测试共用的编译与执行：未优化的四元式由 IrInterpreter 执行作为参照，生成的16位汇编由 Emulator8086 执行
+ */
+final class CompiledPrograms {
+
+    private CompiledPrograms() {
+    }
+
+    /**
+     * in/corpus 中的所有程序
+     */
+    static List<Path> corpus() throws IOException {
+        try (Stream<Path> s = Files.list(Path.of("in/corpus"))) {
+            List<Path> files = s.filter(p -> p.toString().endsWith(".c")).sorted().toList();
+            assertTrue(files.size() > 0);
+            return files;
+        }
+    }
+
+    /**
+     * 未经优化的四元式的执行结果
+     */
+    static String interpret(String source) {
+        RecursiveParser parser = new RecursiveParser(new Lexer(source).analyze());
+        parser.parseProgram();
+        return new IrInterpreter(parser.getGen().getQuadruples()).run();
+    }
+
+    /**
+     * 按 options 编译并在 Emulator8086 中执行，结果的格式与 reference 相同
+     * @param reference interpret 对同一程序的执行结果
+     */
+    static String execute(String source, CompileOptions options, String reference) {
+        Result result = Main.Solve(source, options);
+        assertTrue(result.isSuccess(), result.getMsg());
+        try {
+            return new Emulator8086(result.getAsmCode()).result(reference);
+        } catch (RuntimeException e) {
+            return "ERR " + e.getMessage();
+        }
+    }
+}
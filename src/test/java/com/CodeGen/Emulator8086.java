@@ -0,0 +1,315 @@
+package com.CodeGen;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 执行16位后端生成的汇编程序的简易 8086 解释器，只支持后端会生成的指令
+ * 从 _start 开始执行到 INT 21H 退出，记录 main 返回时 AX 中的值和数据段中各变量的地址
+ */
+class Emulator8086 {
+    // 最多执行的指令条数，超过时认为程序没有终止
+    static final long STEP_LIMIT = 10_000_000L;
+    private static final List<String> REGISTERS = List.of("AX", "CX", "DX", "BX", "SP", "BP", "SI", "DI");
+    private final int[] reg = new int[8];
+    private final byte[] memory = new byte[65536];
+    private boolean zf, sf, of, cf;
+    // 数据段中的名字 -> 地址
+    private final Map<String, Integer> data = new LinkedHashMap<>();
+    // 数据段中的名字 -> 字数
+    private final Map<String, Integer> words = new HashMap<>();
+    private final Map<String, Integer> labels = new HashMap<>();
+    // 每条指令：助记符和操作数
+    private final List<String[]> code = new ArrayList<>();
+    // main 的返回值
+    private Integer result;
+
+    Emulator8086(String asm) {
+        boolean inData = false;
+        int address = 0x10;
+        for (String text : asm.split("\n")) {
+            String line = text.trim();
+            if (line.isEmpty() || line.startsWith(".MODEL") || line.startsWith(".STACK") || line.startsWith("END ")) {
+                continue;
+            }
+            if (line.equals(".DATA") || line.equals(".CODE")) {
+                inData = line.equals(".DATA");
+                continue;
+            }
+            if (inData) {
+                // name DW ? 或 name DW n DUP(?)
+                String[] parts = line.split("\\s+", 3);
+                int count = parts[2].contains("DUP") ? Integer.parseInt(parts[2].substring(0, parts[2].indexOf("DUP")).trim()) : 1;
+                data.put(parts[0], address);
+                words.put(parts[0], count);
+                address += 2 * count;
+                continue;
+            }
+            if (line.endsWith(":")) {
+                labels.put(line.substring(0, line.length() - 1), code.size());
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            if (parts.length == 2 && parts[1].equals("PROC")) {
+                labels.put(parts[0], code.size());
+                continue;
+            }
+            if (parts.length == 2 && parts[1].equals("ENDP")) {
+                continue;
+            }
+            int space = line.indexOf(' ');
+            List<String> instruction = new ArrayList<>();
+            instruction.add(space < 0 ? line : line.substring(0, space));
+            if (space > 0) {
+                for (String operand : line.substring(space + 1).split(",")) {
+                    instruction.add(operand.trim());
+                }
+            }
+            code.add(instruction.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * 执行程序，返回 main 的返回值
+     * @param maxSteps 最多执行的指令条数，超过时认为程序没有终止
+     */
+    int run(long maxSteps) {
+        reg[4] = 0xFFFE;
+        int pc = labels.get("_start");
+        int afterMain = -1;
+        for (long steps = 0; steps < maxSteps; steps++) {
+            if (pc == afterMain && result == null) {
+                result = (int) (short) reg[0];
+            }
+            String[] in = code.get(pc++);
+            switch (in[0]) {
+                case "MOV" -> set(in[1], get(in[2]));
+                case "LEA" -> set(in[1], address(in[2]));
+                case "XCHG" -> {
+                    int a = get(in[1]);
+                    set(in[1], get(in[2]));
+                    set(in[2], a);
+                }
+                case "ADD" -> {
+                    int a = get(in[1]), b = get(in[2]);
+                    arithmeticFlags(a, b, a + b, true);
+                    set(in[1], a + b);
+                }
+                case "SUB", "CMP" -> {
+                    int a = get(in[1]), b = get(in[2]);
+                    arithmeticFlags(a, b, a - b, false);
+                    if (in[0].equals("SUB")) {
+                        set(in[1], a - b);
+                    }
+                }
+                case "INC", "DEC" -> {
+                    boolean carry = cf;
+                    int a = get(in[1]);
+                    int r = in[0].equals("INC") ? a + 1 : a - 1;
+                    arithmeticFlags(a, 1, r, in[0].equals("INC"));
+                    cf = carry;
+                    set(in[1], r);
+                }
+                case "NEG" -> {
+                    int a = get(in[1]);
+                    arithmeticFlags(0, a, -a, false);
+                    set(in[1], -a);
+                }
+                case "AND" -> set(in[1], logicFlags(get(in[1]) & get(in[2])));
+                case "OR" -> set(in[1], logicFlags(get(in[1]) | get(in[2])));
+                case "XOR" -> set(in[1], logicFlags(get(in[1]) ^ get(in[2])));
+                case "TEST" -> logicFlags(get(in[1]) & get(in[2]));
+                case "SHL" -> set(in[1], logicFlags(get(in[1]) << (get(in[2]) & 31)));
+                case "SHR" -> set(in[1], logicFlags(get(in[1]) >>> (get(in[2]) & 31)));
+                case "SAR" -> set(in[1], logicFlags((short) get(in[1]) >> (get(in[2]) & 31)));
+                case "CWD" -> reg[2] = (reg[0] & 0x8000) != 0 ? 0xFFFF : 0;
+                case "MUL" -> {
+                    long r = (long) reg[0] * get(in[1]);
+                    reg[0] = (int) (r & 0xFFFF);
+                    reg[2] = (int) (r >> 16 & 0xFFFF);
+                }
+                case "IMUL" -> {
+                    int r = (short) reg[0] * (short) get(in[1]);
+                    reg[0] = r & 0xFFFF;
+                    reg[2] = r >> 16 & 0xFFFF;
+                }
+                case "IDIV" -> {
+                    int n = reg[2] << 16 | reg[0];
+                    int d = (short) get(in[1]);
+                    if (d == 0) {
+                        throw new RuntimeException("除数为0");
+                    }
+                    reg[0] = n / d & 0xFFFF;
+                    reg[2] = n % d & 0xFFFF;
+                }
+                case "PUSH" -> push(get(in[1]));
+                case "POP" -> set(in[1], pop());
+                case "JMP" -> pc = target(in[1]);
+                case "JE" -> pc = zf ? target(in[1]) : pc;
+                case "JNE" -> pc = !zf ? target(in[1]) : pc;
+                case "JL" -> pc = sf != of ? target(in[1]) : pc;
+                case "JLE" -> pc = zf || sf != of ? target(in[1]) : pc;
+                case "JG" -> pc = !zf && sf == of ? target(in[1]) : pc;
+                case "JGE" -> pc = sf == of ? target(in[1]) : pc;
+                case "CALL" -> {
+                    if (afterMain < 0 && in[1].equals("main")) {
+                        afterMain = pc;
+                    }
+                    push(pc);
+                    pc = target(in[1]);
+                    if (reg[4] < 0x8000) {
+                        throw new RuntimeException("栈溢出");
+                    }
+                }
+                case "RET" -> pc = pop();
+                case "INT" -> {
+                    if (result == null) {
+                        throw new RuntimeException("main 没有返回");
+                    }
+                    return result;
+                }
+                default -> throw new RuntimeException("不支持的指令: " + String.join(" ", in));
+            }
+        }
+        throw new RuntimeException("执行超过 " + maxSteps + " 条指令");
+    }
+
+    /**
+     * 执行程序，按 IrInterpreter 的格式给出结果：返回值以及 reference 中出现的全局变量和数组的值
+     * @param reference IrInterpreter 对同一程序的执行结果，只用其中的名字
+     */
+    String result(String reference) {
+        StringBuilder state = new StringBuilder("ret=" + run(STEP_LIMIT));
+        Matcher m = Pattern.compile(" ([\\w@]+)(=|\\[)").matcher(reference);
+        while (m.find()) {
+            String name = m.group(1);
+            if (!data.containsKey(name)) {
+                state.append(' ').append(name).append("=?");
+            } else if (m.group(2).equals("=")) {
+                state.append(' ').append(name).append('=').append(valueOf(name).get(0));
+            } else {
+                state.append(' ').append(name).append(valueOf(name));
+            }
+        }
+        return state.toString();
+    }
+
+    /**
+     * 全局变量或数组的当前值（有符号）
+     */
+    private List<Integer> valueOf(String name) {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < words.get(name); i++) {
+            values.add((int) (short) load(data.get(name) + 2 * i));
+        }
+        return values;
+    }
+
+    private void arithmeticFlags(int a, int b, int r, boolean add) {
+        int res = r & 0xFFFF;
+        zf = res == 0;
+        sf = (res & 0x8000) != 0;
+        cf = add ? (a & 0xFFFF) + (b & 0xFFFF) > 0xFFFF : (a & 0xFFFF) < (b & 0xFFFF);
+        of = ((add ? ~(a ^ b) : a ^ b) & (a ^ res) & 0x8000) != 0;
+    }
+
+    private int logicFlags(int r) {
+        int res = r & 0xFFFF;
+        zf = res == 0;
+        sf = (res & 0x8000) != 0;
+        cf = false;
+        of = false;
+        return res;
+    }
+
+    private int target(String label) {
+        Integer target = labels.get(label);
+        if (target == null) {
+            throw new RuntimeException("未定义的标签: " + label);
+        }
+        return target;
+    }
+
+    private void push(int value) {
+        reg[4] = reg[4] - 2 & 0xFFFF;
+        store(reg[4], value);
+    }
+
+    private int pop() {
+        int value = load(reg[4]);
+        reg[4] = reg[4] + 2 & 0xFFFF;
+        return value;
+    }
+
+    private int load(int address) {
+        return memory[address & 0xFFFF] & 0xFF | (memory[address + 1 & 0xFFFF] & 0xFF) << 8;
+    }
+
+    private void store(int address, int value) {
+        memory[address & 0xFFFF] = (byte) value;
+        memory[address + 1 & 0xFFFF] = (byte) (value >> 8);
+    }
+
+    private static String strip(String operand) {
+        return operand.startsWith("WORD PTR ") ? operand.substring("WORD PTR ".length()) : operand;
+    }
+
+    private boolean isMemory(String operand) {
+        String s = strip(operand);
+        return s.contains("[") || data.containsKey(s);
+    }
+
+    /**
+     * 内存操作数的地址：name、[BP-2]、name[SI+4] 等形式，各项相加
+     */
+    private int address(String operand) {
+        String s = strip(operand).replace("[", "+").replace("]", "");
+        int address = 0;
+        for (String term : s.replace("-", "+-").split("\\+")) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            boolean negative = term.startsWith("-");
+            String name = negative ? term.substring(1) : term;
+            int value = REGISTERS.contains(name) ? reg[REGISTERS.indexOf(name)]
+                    : data.containsKey(name) ? data.get(name) : Integer.parseInt(name);
+            address += negative ? -value : value;
+        }
+        return address & 0xFFFF;
+    }
+
+    private int get(String operand) {
+        if (REGISTERS.contains(operand)) {
+            return reg[REGISTERS.indexOf(operand)];
+        }
+        if (operand.equals("CL")) {
+            return reg[1] & 0xFF;
+        }
+        if (operand.equals("@DATA")) {
+            return 0;
+        }
+        if (isMemory(operand)) {
+            return load(address(operand));
+        }
+        if (operand.length() == 3 && operand.charAt(0) == '\'') {
+            return operand.charAt(1);
+        }
+        if (operand.endsWith("H")) {
+            return Integer.parseInt(operand.substring(0, operand.length() - 1), 16);
+        }
+        return Integer.parseInt(operand) & 0xFFFF;
+    }
+
+    private void set(String operand, int value) {
+        if (REGISTERS.contains(operand)) {
+            reg[REGISTERS.indexOf(operand)] = value & 0xFFFF;
+        } else if (operand.equals("DS")) {
+            // 只有一个段
+        } else if (isMemory(operand)) {
+            store(address(operand), value);
+        } else {
+            throw new RuntimeException("不能写入: " + operand);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.CodeGen;
+
+import com.CompileOptions;
+import com.Optimizer.OptLevel;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 每种寄存器分配器在每个优化级别下生成的 MASM 程序与四元式解释器的结果一致
+ * 语料中的 param_entry.c（入口处同时活跃的寄存器参数）和 param_dead.c（入口处已死的参数与其他参数共用寄存器）是针对分配器的回归用例
+ */
+class RegisterAllocatorTest {
+
+    @Test
+    void everyAllocatorMatchesInterpreter() throws IOException {
+        List<Path> files = CompiledPrograms.corpus();
+        assertTrue(files.contains(Path.of("in/corpus/param_entry.c")));
+        assertTrue(files.contains(Path.of("in/corpus/param_dead.c")));
+        // null 为默认：-O0 不分配寄存器，其余级别用线性扫描
+        List<AllocatorKind> allocators = Arrays.asList(null, AllocatorKind.LINEAR_SCAN, AllocatorKind.GRAPH_COLORING);
+        List<String> mismatches = new ArrayList<>();
+        for (Path file : files) {
+            String source = Files.readString(file);
+            String expected = CompiledPrograms.interpret(source);
+            for (AllocatorKind allocator : allocators) {
+                for (OptLevel level : OptLevel.values()) {
+                    CompileOptions options = CompileOptions.builder().level(level).allocator(allocator).build();
+                    String actual = CompiledPrograms.execute(source, options, expected);
+                    if (!expected.equals(actual)) {
+                        mismatches.add(file.getFileName() + " -" + level + " " + allocator + ": " + actual + " != " + expected);
+                    }
+                }
+            }
+        }
+        assertEquals(List.of(), mismatches);
+    }
+}
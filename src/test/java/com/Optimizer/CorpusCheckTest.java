@@ -0,0 +1,65 @@
+package com.Optimizer;
+
+import com.Lexer.Lexer;
+import com.Parser.Quadruple.Quadruple;
+import com.Parser.RecursiveParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 优化正确性校验
+ * 对语料中的每个程序在每个优化级别下分别解释执行优化前、后的四元式，比较返回值与全局变量、数组的最终值；任何一侧执行出错都算不一致
+ */
+class CorpusCheckTest {
+
+    @Test
+    void optimizedProgramsMatchOriginal() throws IOException {
+        List<Path> files;
+        try (Stream<Path> s = Files.list(Path.of("in/corpus"))) {
+            files = s.filter(p -> p.toString().endsWith(".c")).sorted().toList();
+        }
+        assertTrue(files.size() > 0);
+        List<String> mismatches = new ArrayList<>();
+        for (OptLevel level : OptLevel.values()) {
+            for (Path file : files) {
+                String source = Files.readString(file);
+                String before = new IrInterpreter(parse(source, null)).run();
+                IrOptimizer optimizer = new IrOptimizer(level, Set.of());
+                String after;
+                try {
+                    after = new IrInterpreter(optimizer.optimize(parse(source, optimizer))).run();
+                } catch (RuntimeException e) {
+                    after = "ERR " + e.getMessage();
+                }
+                // 任何一侧执行出错都算失败，两侧同样出错不能说明优化正确
+                if (before.startsWith("ERR") || after.startsWith("ERR") || !before.equals(after)) {
+                    mismatches.add(file.getFileName() + " -" + level + ": " + before + " != " + after);
+                }
+            }
+        }
+        assertEquals(List.of(), mismatches);
+    }
+
+    /**
+     * 语法分析；optimizer 不为null时按其设置开关生成阶段的常量折叠和公共子表达式消除
+     */
+    private static List<Quadruple> parse(String source, IrOptimizer optimizer) {
+        RecursiveParser parser = new RecursiveParser(new Lexer(source).analyze());
+        if (optimizer != null) {
+            parser.getGen().setConstantFolding(optimizer.isEnabled(IrOptimizer.GENERATOR_FOLD));
+            parser.getGen().setCommonSubexpressions(optimizer.isEnabled(IrOptimizer.GENERATOR_CSE));
+        }
+        parser.parseProgram();
+        return parser.getGen().getQuadruples();
+    }
+}
@@ -0,0 +1,42 @@
+package com.Parser.Quadruple;
+
+import com.Lexer.Lexer;
+import com.Optimizer.IrInterpreter;
+import com.Parser.RecursiveParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 作用域中同名声明在四元式中的命名
+ */
+class ScopeTest {
+
+    @Test
+    void blockShadowingGlobalGetsOwnName() {
+        Scope global = Scope.global();
+        global.declare("g", "int", "variable", 0);
+        Scope main = global.enterFunction("main");
+        Scope block = main.enterBlock();
+        assertEquals("g@1", block.declare("g", "int", "variable", 0).irName);
+        // 块外仍然是全局变量
+        assertEquals("g", main.lookup("g").irName);
+    }
+
+    @Test
+    void firstUnshadowedDeclarationKeepsName() {
+        Scope main = Scope.global().enterFunction("main");
+        assertEquals("x", main.declare("x", "int", "variable", 0).irName);
+        assertEquals("x@1", main.enterBlock().declare("x", "int", "variable", 0).irName);
+    }
+
+    @Test
+    void globalReadOutsideShadowingBlock() {
+        String source = "int g; int main() { int s; g = 100; s = 0;"
+                + " while (s < 3) { int g; g = s * 10; s = s + g + 1; }"
+                + " return g * 10 + s; }";
+        RecursiveParser parser = new RecursiveParser(new Lexer(source).analyze());
+        parser.parseProgram();
+        assertEquals("ret=1012 g=100", new IrInterpreter(parser.getGen().getQuadruples()).run());
+    }
+}